@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.auth.model.InvalidatedToken;
 import org.skomi.pilot.auth.repository.InvalidatedTokenRepository;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
 import org.springframework.modulith.NamedInterface;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -12,6 +13,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Base64;
@@ -26,6 +29,7 @@ public class TokenBlacklistService {
 
     private final InvalidatedTokenRepository tokenRepository;
     private final JwtTokenService jwtTokenService;
+    private final LeaseJobRunner leaseJobRunner;
 
     /**
      * Invalidates a given JWT token by creating a hashed representation of the token,
@@ -89,14 +93,11 @@ public class TokenBlacklistService {
     }
 
     /**
-     * Periodically removes all expired tokens from the repository. Runs every hour.
+     * Periodically removes all expired tokens from the repository. Runs every hour on a single instance.
      */
     @Scheduled(cron = "0 0 * * * *") // Run hourly
     public void cleanupExpiredTokens() {
-        try {
-            tokenRepository.deleteExpiredTokens(OffsetDateTime.now());
-        } catch (Exception e) {
-            log.error("Failed to cleanup expired tokens", e);
-        }
+        leaseJobRunner.submit("token-cleanup", Instant.now(), Duration.ofHours(1),
+                () -> tokenRepository.deleteExpiredTokens(OffsetDateTime.now()));
     }
 }
\ No newline at end of file
@@ -22,4 +22,16 @@ public class CoreEventPublisher {
                 new RefreshAllPlacesEvent(this)
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Calls for sensor refresh of a single bucket of places.
+     *
+     * @param bucket      the bucket to be refreshed, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     */
+    public void callForRefreshSensors(int bucket, int bucketCount) {
+        applicationEventPublisher.publishEvent(
+                new RefreshAllPlacesEvent(this, bucket, bucketCount)
+        );
+    }
+}
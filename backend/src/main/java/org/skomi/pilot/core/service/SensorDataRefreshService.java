@@ -3,27 +3,72 @@ package org.skomi.pilot.core.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.core.publisher.CoreEventPublisher;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Service responsible for periodically triggering the refresh of sensor data.
  * It uses {@link CoreEventPublisher} to publish events for refreshing sensor data.
- * The schedule for triggering refresh is configurable via the property {@code sensor.data.refresh.rate}.
+ * <p>
+ * Places are not refreshed all at once. The refresh period ({@code sensor.data.refresh.period}) is split into
+ * {@code sensor.data.refresh.buckets} equal slots and every tick ({@code sensor.data.refresh.cron}) refreshes
+ * only the bucket belonging to the current slot, so every place is still refreshed once per period while the
+ * load is spread evenly over it.
+ * <p>
+ * When several instances run, every slot is refreshed by only one of them, see {@link LeaseJobRunner}.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SensorDataRefreshService {
 
+    private static final String JOB_NAME = "sensor-refresh";
+
     private final CoreEventPublisher coreEventPublisher;
+    private final LeaseJobRunner leaseJobRunner;
+    private final AtomicLong lastSlot = new AtomicLong(-1);
+
+    @Value("${sensor.data.refresh.period:PT1H}")
+    private Duration refreshPeriod;
+
+    @Value("${sensor.data.refresh.buckets:60}")
+    private int bucketCount;
 
     /**
-     * Periodically triggers sensor data refresh by publishing an event.
+     * Periodically triggers sensor data refresh by publishing an event for the current bucket.
      */
-    @Scheduled(cron = "0 0 * * * ?")
+    @Scheduled(cron = "${sensor.data.refresh.cron:0 * * * * ?}")
     private void refreshSensors() {
-        log.info("Calling for refresh sensor data.");
-        coreEventPublisher.callForRefreshSensors();
+        Instant now = Instant.now();
+        leaseJobRunner.submit(JOB_NAME, now, slotDuration(), () -> refreshSensorsAt(now));
+    }
+
+    /**
+     * Publishes a refresh of the bucket belonging to the slot of the given instant. Slots are aligned to the epoch,
+     * so the same bucket is refreshed at the same time in every period. A slot is refreshed only once, even when
+     * the tick fires more often than the slots change.
+     *
+     * @param now the instant of the tick
+     */
+    void refreshSensorsAt(Instant now) {
+        long slot = now.toEpochMilli() / slotDuration().toMillis();
+
+        if (lastSlot.getAndSet(slot) == slot) {
+            return;
+        }
+
+        int bucket = (int) (slot % bucketCount);
+        log.info("Calling for refresh sensor data of bucket {}/{}.", bucket, bucketCount);
+        coreEventPublisher.callForRefreshSensors(bucket, bucketCount);
+    }
+
+    private Duration slotDuration() {
+        return Duration.ofMillis(Math.max(1, refreshPeriod.toMillis() / bucketCount));
     }
 }
@@ -5,8 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.email.model.ComposedEmail;
 import org.skomi.pilot.email.service.EmailTemplateService;
 import org.skomi.pilot.email.service.WelcomeEmailService;
+import org.skomi.pilot.shared.event.DurableEventListener;
 import org.skomi.pilot.shared.event.SendEmailWithMessageEvent;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -24,7 +24,7 @@ public class SendEmailListener {
      * @param event the event containing the user's email address, the template name,
      *              and arguments to be used for generating the email content
      */
-    @EventListener
+    @DurableEventListener
     public void handleSendEmail(SendEmailWithMessageEvent event) {
         ComposedEmail composedEmail = emailTemplateService.composeEmail(event.getEmailTemplate(), event.getArgs());
         welcomeEmailService.buildAndSendEmail(event.getUserEmail(), composedEmail.subject(), composedEmail.body());
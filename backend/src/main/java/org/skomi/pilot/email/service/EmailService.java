@@ -1,7 +1,11 @@
 package org.skomi.pilot.email.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.bulkhead.Bulkhead;
+import org.skomi.pilot.shared.bulkhead.BulkheadRegistry;
+import org.skomi.pilot.shared.service.OutboundHttpClientFactory;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -20,12 +24,22 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
     private final MailConfig mailConfig;
+    private final OutboundHttpClientFactory outboundHttpClientFactory;
+    private final BulkheadRegistry bulkheadRegistry;
+    private RestTemplate restTemplate;
+    private Bulkhead bulkhead;
+
+    @PostConstruct
+    void init() {
+        restTemplate = outboundHttpClientFactory.restTemplate("email");
+        bulkhead = bulkheadRegistry.get("email");
+    }
 
     /**
      * Sends an email using the specified parameters. This method constructs the email payload
-     * and communicates with the ZeptoMail API to send the email.
+     * and communicates with the ZeptoMail API to send the email. Errors of the API are logged, a call rejected
+     * by the bulkhead of the API is rethrown, so the email is sent again with the next delivery of its event.
      *
      * @param from     the email address of the sender
      * @param to       the email address of the recipient
@@ -48,7 +62,8 @@ public class EmailService {
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
 
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(mailConfig.getZeptoApiUrl(), request, String.class);
+            ResponseEntity<String> response = bulkhead.call(() ->
+                    restTemplate.postForEntity(mailConfig.getZeptoApiUrl(), request, String.class));
             log.info("Email sent successfully: HTTP {}", response.getStatusCode());
         } catch (HttpStatusCodeException ex) {
             log.error("ZeptoMail API returned error: {} - {}", ex.getStatusCode(), ex.getResponseBodyAsString());
@@ -3,9 +3,14 @@ package org.skomi.pilot.googleapi.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.googleapi.model.CityResponse;
+import org.skomi.pilot.googleapi.model.PrefetchResult;
 import org.skomi.pilot.googleapi.service.CitySearchService;
+import org.skomi.pilot.googleapi.service.PlacePrefetchService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -19,6 +24,7 @@ import java.util.List;
 public class CitySearchController {
 
     private final CitySearchService citySearchService;
+    private final PlacePrefetchService placePrefetchService;
 
     /**
      * Endpoint to search cities by query parameter.
@@ -30,4 +36,17 @@ public class CitySearchController {
     public ResponseEntity<List<CityResponse>> getCities(@RequestParam("place") String place) {
         return ResponseEntity.ok(citySearchService.searchCities(place));
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint to prefetch the weather data of a city picked in the search, before a sensor is placed there.
+     *
+     * @param place the picked city.
+     * @return 202 when the prefetch was requested or is not needed, 429 when the user requests too many prefetches.
+     */
+    @PostMapping("/prefetch")
+    public ResponseEntity<Void> prefetch(@RequestParam("place") String place, Authentication authentication) {
+        PrefetchResult result = placePrefetchService.prefetch(authentication.getName(), place);
+        HttpStatus status = result == PrefetchResult.RATE_LIMITED ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).build();
+    }
+}
@@ -0,0 +1,19 @@
+package org.skomi.pilot.googleapi.model;
+
+/**
+ * Outcome of a prefetch request of a picked place.
+ */
+public enum PrefetchResult {
+    /**
+     * The prefetch was requested.
+     */
+    REQUESTED,
+    /**
+     * The place was prefetched recently, nothing was requested.
+     */
+    DUPLICATE,
+    /**
+     * The user requested too many prefetches, nothing was requested.
+     */
+    RATE_LIMITED
+}
@@ -0,0 +1,23 @@
+package org.skomi.pilot.googleapi.publisher;
+
+import lombok.RequiredArgsConstructor;
+import org.skomi.pilot.shared.event.PlacePrefetchRequestedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CitySearchEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Publishes an event requesting a prefetch of the weather data of a picked place.
+     *
+     * @param place the name of the picked place
+     */
+    public void requestPlacePrefetch(String place) {
+        PlacePrefetchRequestedEvent event = new PlacePrefetchRequestedEvent(this, place);
+        applicationEventPublisher.publishEvent(event);
+    }
+}
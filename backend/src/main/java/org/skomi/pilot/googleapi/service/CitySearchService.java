@@ -1,9 +1,13 @@
 package org.skomi.pilot.googleapi.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.googleapi.model.CityResponse;
 import org.skomi.pilot.googleapi.model.PredictionsResponse;
+import org.skomi.pilot.shared.bulkhead.Bulkhead;
+import org.skomi.pilot.shared.bulkhead.BulkheadRegistry;
+import org.skomi.pilot.shared.service.OutboundHttpClientFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
@@ -29,12 +33,21 @@ public class CitySearchService {
     /**
      * Dependencies
      */
-    private final RestTemplate restTemplate;
+    private final OutboundHttpClientFactory outboundHttpClientFactory;
+    private final BulkheadRegistry bulkheadRegistry;
+    private RestTemplate restTemplate;
+    private Bulkhead bulkhead;
     @Value("${google.maps.autocomplete.url:https://maps.googleapis.com/maps/api/place/autocomplete/json}")
     private String googleMapsAutocompleteUrl;
     @Value("${google.maps.api.key}")
     private String apiKey;
 
+    @PostConstruct
+    void init() {
+        restTemplate = outboundHttpClientFactory.restTemplate("google");
+        bulkhead = bulkheadRegistry.get("google");
+    }
+
     /**
      * Searches for cities using Google Places Autocomplete.
      * This method uses the 'types=(cities)' parameter to bias results toward localities.
@@ -56,7 +69,7 @@ public class CitySearchService {
         log.info(url);
 
         ResponseEntity<PredictionsResponse> responseEntity =
-                restTemplate.getForEntity(url, PredictionsResponse.class);
+                bulkhead.call(() -> restTemplate.getForEntity(url, PredictionsResponse.class));
         AtomicInteger counter = new AtomicInteger(0);
 
         if (responseEntity.getStatusCode() == HttpStatus.OK && responseEntity.getBody() != null) {
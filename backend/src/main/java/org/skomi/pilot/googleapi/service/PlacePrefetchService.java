@@ -0,0 +1,79 @@
+package org.skomi.pilot.googleapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.googleapi.model.PrefetchResult;
+import org.skomi.pilot.googleapi.publisher.CitySearchEventPublisher;
+import org.skomi.pilot.shared.service.PlaceRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests prefetches of the weather data of places picked in the city search, so a sensor placed there shows its
+ * data right away. A place is requested at most once per {@code place.prefetch.dedupe-window}, and every user may
+ * request at most {@code place.prefetch.max-per-window} prefetches per {@code place.prefetch.rate-window}.
+ * <p>
+ * Requests are counted by {@code place.prefetch.requests} tagged with the result.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlacePrefetchService {
+
+    private final CitySearchEventPublisher citySearchEventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${place.prefetch.dedupe-window:PT10M}")
+    private Duration dedupeWindow;
+
+    @Value("${place.prefetch.rate-window:PT1M}")
+    private Duration rateWindow;
+
+    @Value("${place.prefetch.max-per-window:10}")
+    private int maxPerWindow;
+
+    private Cache<String, Boolean> recentPlaces;
+    private Cache<String, AtomicInteger> userRequests;
+
+    @PostConstruct
+    void init() {
+        recentPlaces = Caffeine.newBuilder().expireAfterWrite(dedupeWindow).maximumSize(10_000).build();
+        userRequests = Caffeine.newBuilder().expireAfterWrite(rateWindow).maximumSize(10_000).build();
+    }
+
+    /**
+     * Requests a prefetch of the weather data of a place picked by the user.
+     *
+     * @param userEmail the email of the user
+     * @param place     the name of the picked place
+     * @return whether the prefetch was requested
+     */
+    public PrefetchResult prefetch(String userEmail, String place) {
+        PrefetchResult result = tryPrefetch(userEmail, place);
+        meterRegistry.counter("place.prefetch.requests", "result", result.name().toLowerCase()).increment();
+        return result;
+    }
+
+    private PrefetchResult tryPrefetch(String userEmail, String place) {
+        String key = PlaceRegistry.key(place);
+        if (key.isEmpty() || recentPlaces.getIfPresent(key) != null) {
+            return PrefetchResult.DUPLICATE;
+        }
+        if (userRequests.get(userEmail, email -> new AtomicInteger()).incrementAndGet() > maxPerWindow) {
+            log.warn("User {} requested more than {} place prefetches within {}.", userEmail, maxPerWindow, rateWindow);
+            return PrefetchResult.RATE_LIMITED;
+        }
+        if (recentPlaces.asMap().putIfAbsent(key, true) != null) {
+            return PrefetchResult.DUPLICATE;
+        }
+        citySearchEventPublisher.requestPlacePrefetch(place.trim());
+        return PrefetchResult.REQUESTED;
+    }
+}
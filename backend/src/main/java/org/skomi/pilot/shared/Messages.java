@@ -11,4 +11,5 @@ public class Messages {
     public static final String MSG_FORGOTTEN_PASSWORD_TOKEN_EXPIRED = "forgottenPasswordTokenExpired";
     public static final String MSG_SERVER_ERROR = "serverError";
     public static final String MSG_USER_EMAIL_NOT_AUTHORIZED = "userEmailNotVerified";
+    public static final String MSG_SERVICE_UNAVAILABLE = "serviceUnavailable";
 }
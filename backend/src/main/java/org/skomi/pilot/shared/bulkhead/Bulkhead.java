@@ -0,0 +1,128 @@
+package org.skomi.pilot.shared.bulkhead;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.skomi.pilot.shared.exception.BulkheadRejectedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Isolates the calls to a single external dependency. Calls run on own virtual threads of the bulkhead, at most
+ * {@code maxConcurrent} at once, so a slow dependency holds only its own slots and never the threads of the callers.
+ * A call finding no free slot within {@code maxWait}, or not finished within {@code timeout}, is rejected.
+ * <p>
+ * Exposes {@code bulkhead.active} and {@code bulkhead.saturation}, the share of slots in use, and counts calls by
+ * {@code bulkhead.calls} tagged with the result, {@code success}, {@code failure}, {@code rejected} or
+ * {@code timeout}. All meters are tagged with the name of the bulkhead.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final String name;
+    private final BulkheadSettings settings;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore slots;
+    private final ThreadFactory threads;
+
+    Bulkhead(String name, BulkheadSettings settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.slots = new Semaphore(settings.maxConcurrent());
+        this.threads = Thread.ofVirtual().name("bulkhead-" + name + "-", 0).factory();
+
+        Gauge.builder("bulkhead.active", this, Bulkhead::active)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.saturation", this, bulkhead -> (double) bulkhead.active() / settings.maxConcurrent())
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call on a thread of the bulkhead and waits for its result.
+     *
+     * @param call the call of the dependency
+     * @param <T>  the type of the result
+     * @return the result of the call
+     * @throws BulkheadRejectedException if no slot was free within {@code maxWait} or the call did not finish
+     *                                   within {@code timeout}
+     */
+    public <T> T call(Supplier<T> call) {
+        if (!acquire()) {
+            count("rejected");
+            throw new BulkheadRejectedException("Bulkhead " + name + " is saturated, "
+                    + settings.maxConcurrent() + " calls are running.");
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Thread worker;
+        try {
+            worker = threads.newThread(() -> {
+                try {
+                    future.complete(call.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    slots.release();
+                }
+            });
+            worker.start();
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        try {
+            T result = future.get(settings.timeout().toNanos(), TimeUnit.NANOSECONDS);
+            count("success");
+            return result;
+        } catch (TimeoutException e) {
+            // the slot stays taken until the call really ends, so a hanging dependency fills only its own bulkhead
+            worker.interrupt();
+            count("timeout");
+            throw new BulkheadRejectedException("Call of bulkhead " + name + " did not finish within "
+                    + settings.timeout() + ".");
+        } catch (ExecutionException e) {
+            count("failure");
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            worker.interrupt();
+            Thread.currentThread().interrupt();
+            throw new BulkheadRejectedException("Interrupted while waiting for a call of bulkhead " + name + ".");
+        }
+    }
+
+    /**
+     * Returns the number of running calls.
+     *
+     * @return the number of slots in use
+     */
+    public int active() {
+        return settings.maxConcurrent() - slots.availablePermits();
+    }
+
+    private boolean acquire() {
+        try {
+            return settings.maxWait().isZero()
+                    ? slots.tryAcquire()
+                    : slots.tryAcquire(settings.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("bulkhead.calls", "bulkhead", name, "result", result).increment();
+    }
+}
@@ -0,0 +1,60 @@
+package org.skomi.pilot.shared.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the bulkheads of the external dependencies, one per dependency, configured by {@code bulkhead.<name>.*}
+ * properties, falling back to {@code bulkhead.default.*}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkheadRegistry {
+
+    private static final String PREFIX = "bulkhead.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the bulkhead of the dependency, creating it on first use.
+     *
+     * @param name the name of the dependency
+     * @return the bulkhead
+     */
+    public Bulkhead get(String name) {
+        return bulkheads.computeIfAbsent(name, key -> {
+            BulkheadSettings settings = settingsOf(key);
+            log.info("Bulkhead {}: {} concurrent calls, waiting {} for a slot, timeout {}.",
+                    key, settings.maxConcurrent(), settings.maxWait(), settings.timeout());
+            return new Bulkhead(key, settings, meterRegistry);
+        });
+    }
+
+    /**
+     * Resolves the settings of a bulkhead from its own properties and the defaults.
+     *
+     * @param name the name of the bulkhead
+     * @return the settings of the bulkhead
+     */
+    public BulkheadSettings settingsOf(String name) {
+        return new BulkheadSettings(
+                property(name, "max-concurrent", Integer.class, 10),
+                property(name, "max-wait", Duration.class, Duration.ZERO),
+                property(name, "timeout", Duration.class, Duration.ofSeconds(15)));
+    }
+
+    private <V> V property(String bulkhead, String key, Class<V> type, V defaultValue) {
+        V fallback = environment.getProperty(PREFIX + "default." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + bulkhead + "." + key, type, fallback);
+    }
+}
@@ -0,0 +1,15 @@
+package org.skomi.pilot.shared.bulkhead;
+
+import java.time.Duration;
+
+/**
+ * Settings of a single bulkhead.
+ *
+ * @param maxConcurrent how many calls run at once, further calls wait or are rejected
+ * @param maxWait       how long a call waits for a free slot before it is rejected
+ * @param timeout       how long the caller waits for a running call before it gives up on it
+ */
+public record BulkheadSettings(int maxConcurrent,
+                               Duration maxWait,
+                               Duration timeout) {
+}
@@ -0,0 +1,21 @@
+package org.skomi.pilot.shared.event;
+
+import org.skomi.pilot.shared.publisher.DurableEventPublisher;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a public method with a single parameter as a listener of durable events of the parameter type published by
+ * {@link DurableEventPublisher}. The listener is called asynchronously after the publishing transaction commits and
+ * the publication is completed once the method returns. When the method throws, the publication stays incomplete
+ * and is delivered again later, so listeners should tolerate receiving an event more than once.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DurableEventListener {
+}
@@ -1,18 +1,21 @@
 package org.skomi.pilot.shared.event;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import org.skomi.pilot.shared.model.Place;
-import org.springframework.context.ApplicationEvent;
 
 import java.util.List;
 
+/**
+ * Requests the actual weather of places, delivered durably to the weather API module.
+ */
 @Getter
-public class GetPlaceWeatherDataEvent extends ApplicationEvent {
+@NoArgsConstructor
+public class GetPlaceWeatherDataEvent {
 
     List<Place> places;
 
-    public GetPlaceWeatherDataEvent(Object source, List<Place> places) {
-        super(source);
+    public GetPlaceWeatherDataEvent(List<Place> places) {
         this.places = places;
     }
 }
@@ -1,15 +1,18 @@
 package org.skomi.pilot.shared.event;
 
 import lombok.Getter;
-import org.springframework.context.ApplicationEvent;
+import lombok.NoArgsConstructor;
 
+/**
+ * Requests the weather history of a place, delivered durably to the weather API module.
+ */
 @Getter
-public class GetPlaceWeatherDataHistoryEvent extends ApplicationEvent {
+@NoArgsConstructor
+public class GetPlaceWeatherDataHistoryEvent {
 
     String place;
 
-    public GetPlaceWeatherDataHistoryEvent(Object source, String place) {
-        super(source);
+    public GetPlaceWeatherDataHistoryEvent(String place) {
         this.place = place;
     }
 }
@@ -1,18 +1,21 @@
 package org.skomi.pilot.shared.event;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import org.skomi.pilot.shared.model.Place;
-import org.springframework.context.ApplicationEvent;
 
 import java.util.List;
 
+/**
+ * Carries places with freshly fetched weather. Delivered durably, see {@link DurableEventListener}.
+ */
 @Getter
-public class PlaceActualWeatherDataEvent extends ApplicationEvent {
+@NoArgsConstructor
+public class PlaceActualWeatherDataEvent {
 
     List<Place> places;
 
-    public PlaceActualWeatherDataEvent(Object source, List<Place> places) {
-        super(source);
+    public PlaceActualWeatherDataEvent(List<Place> places) {
         this.places = places;
     }
 }
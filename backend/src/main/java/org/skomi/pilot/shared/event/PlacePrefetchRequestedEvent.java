@@ -0,0 +1,19 @@
+package org.skomi.pilot.shared.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Signals that a user picked a place in the city search, so its weather data can be fetched before a sensor is
+ * placed there.
+ */
+@Getter
+public class PlacePrefetchRequestedEvent extends ApplicationEvent {
+
+    private final String place;
+
+    public PlacePrefetchRequestedEvent(Object source, String place) {
+        super(source);
+        this.place = place;
+    }
+}
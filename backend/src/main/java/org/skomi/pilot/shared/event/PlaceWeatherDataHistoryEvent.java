@@ -1,19 +1,29 @@
 package org.skomi.pilot.shared.event;
 
 import lombok.Getter;
-import org.springframework.context.ApplicationEvent;
+import lombok.NoArgsConstructor;
+import org.skomi.pilot.shared.model.HourlyTemperature;
 
 import java.util.List;
 
+/**
+ * Carries the hourly temperatures filling the gaps in the history of a place. Delivered durably,
+ * see {@link DurableEventListener}.
+ */
 @Getter
-public class PlaceWeatherDataHistoryEvent extends ApplicationEvent {
+@NoArgsConstructor
+public class PlaceWeatherDataHistoryEvent {
 
     String place;
-    List<Double> temperatures;
+    List<HourlyTemperature> hours;
+    /**
+     * Whether all missing days were received, otherwise the history of the place is requested again later.
+     */
+    boolean complete;
 
-    public PlaceWeatherDataHistoryEvent(Object source, String place, List<Double> temperatures) {
-        super(source);
+    public PlaceWeatherDataHistoryEvent(String place, List<HourlyTemperature> hours, boolean complete) {
         this.place = place;
-        this.temperatures = temperatures;
+        this.hours = hours;
+        this.complete = complete;
     }
 }
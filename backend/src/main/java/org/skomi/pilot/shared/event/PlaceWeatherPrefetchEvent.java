@@ -0,0 +1,19 @@
+package org.skomi.pilot.shared.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Requests the weather and the history of a place not stored yet to be fetched into the caches of the weather
+ * API module, so they are served from there once a sensor is placed there.
+ */
+@Getter
+public class PlaceWeatherPrefetchEvent extends ApplicationEvent {
+
+    private final String place;
+
+    public PlaceWeatherPrefetchEvent(Object source, String place) {
+        super(source);
+        this.place = place;
+    }
+}
@@ -3,10 +3,23 @@ package org.skomi.pilot.shared.event;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
 
+/**
+ * Requests a refresh of places. Places are split into {@code bucketCount} buckets by a stable hash of
+ * their id and only the places falling into {@code bucket} are refreshed. A single bucket covers all places.
+ */
 @Getter
 public class RefreshAllPlacesEvent extends ApplicationEvent {
 
+    private final int bucket;
+    private final int bucketCount;
+
     public RefreshAllPlacesEvent(Object source) {
+        this(source, 0, 1);
+    }
+
+    public RefreshAllPlacesEvent(Object source, int bucket, int bucketCount) {
         super(source);
+        this.bucket = bucket;
+        this.bucketCount = bucketCount;
     }
 }
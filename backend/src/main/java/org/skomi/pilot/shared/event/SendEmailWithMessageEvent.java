@@ -1,17 +1,20 @@
 package org.skomi.pilot.shared.event;
 
 import lombok.Getter;
-import org.springframework.context.ApplicationEvent;
+import lombok.NoArgsConstructor;
 
+/**
+ * Asks the email module to send a templated email. Delivered durably, so the email survives a restart.
+ */
 @Getter
-public class SendEmailWithMessageEvent extends ApplicationEvent {
+@NoArgsConstructor
+public class SendEmailWithMessageEvent {
 
     String userEmail;
     String emailTemplate;
     String[] args;
 
-    public SendEmailWithMessageEvent(Object source, String userEmail, String emailTemplate, String[] args) {
-        super(source);
+    public SendEmailWithMessageEvent(String userEmail, String emailTemplate, String[] args) {
         this.userEmail = userEmail;
         this.emailTemplate = emailTemplate;
         this.args = args;
@@ -0,0 +1,12 @@
+package org.skomi.pilot.shared.exception;
+
+/**
+ * Thrown when a call to an external dependency is rejected by its bulkhead, because the dependency is saturated
+ * or did not answer in time.
+ */
+public class BulkheadRejectedException extends RuntimeException {
+
+    public BulkheadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -115,4 +115,18 @@ public class ExceptionsHandler {
         ErrorResponse errorResponse = new ErrorResponse(Messages.MSG_INVALID_DATA, Messages.MSG_INVALID_DATA);
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Handles exceptions of type {@link BulkheadRejectedException}.
+     *
+     * @param ex the exception thrown when an external dependency is saturated or too slow
+     * @return a {@link ResponseEntity} containing an {@link ErrorResponse} with an error message
+     *         and an HTTP status of 503 (Service Unavailable)
+     */
+    @ExceptionHandler(BulkheadRejectedException.class)
+    public ResponseEntity<ErrorResponse> onBulkheadRejectedException(BulkheadRejectedException ex) {
+        log.warn("External dependency unavailable: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(Messages.MSG_SERVICE_UNAVAILABLE, Messages.MSG_SERVICE_UNAVAILABLE);
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,172 @@
+package org.skomi.pilot.shared.job;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.JobRun;
+import org.skomi.pilot.shared.model.JobRunOutcome;
+import org.skomi.pilot.shared.repository.JobLeaseRepository;
+import org.skomi.pilot.shared.repository.JobRunRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs scheduled jobs on a single instance of the application per period. Every instance submits the job on its
+ * own schedule, the submission is delayed by a random jitter up to {@code job.<name>.max-jitter} and then the
+ * instance tries to take the lease of the job for the period in the {@code job_lease} table. Only the instance
+ * which takes the lease runs the job, the others skip the period.
+ * <p>
+ * A lease lasts {@code job.<name>.lease} and is renewed every third of it while the job runs, so a run longer than
+ * the lease keeps it until the run finishes. When an instance dies while running a job, it stops renewing the lease
+ * and another instance takes the job over once the lease expires. Settings of a job fall back to
+ * {@code job.default.*}.
+ * <p>
+ * Every run is recorded in the {@code job_run} table with its duration and outcome and timed by {@code job.run}
+ * tagged with the job and the outcome. The history is kept for {@code job.history.retention}.
+ */
+@Slf4j
+@Component
+public class LeaseJobRunner {
+
+    private static final String PREFIX = "job.";
+    private static final String HISTORY_CLEANUP_JOB = "job-history-cleanup";
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final JobRunRepository jobRunRepository;
+    private final TaskScheduler taskScheduler;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+
+    @Value("${job.history.retention:P7D}")
+    private Duration retention;
+
+    public LeaseJobRunner(JobLeaseRepository jobLeaseRepository, JobRunRepository jobRunRepository,
+                          TaskScheduler taskScheduler, Environment environment, MeterRegistry meterRegistry) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.jobRunRepository = jobRunRepository;
+        this.taskScheduler = taskScheduler;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.owner = Objects.requireNonNullElse(System.getenv("HOSTNAME"), "local")
+                     + ":" + ProcessHandle.current().pid()
+                     + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Submits a run of the job for the period containing the given tick. The run starts after a random jitter
+     * and is skipped when another instance has already taken the period.
+     *
+     * @param jobName the name of the job
+     * @param tick    the instant the job was triggered at, it determines the period
+     * @param period  the length of the period, periods are aligned to the epoch
+     * @param job     the job
+     */
+    public void submit(String jobName, Instant tick, Duration period, Runnable job) {
+        long periodNumber = tick.toEpochMilli() / Math.max(1, period.toMillis());
+        long maxJitter = property(jobName, "max-jitter", Duration.ofSeconds(10)).toMillis();
+        long jitter = maxJitter > 0 ? ThreadLocalRandom.current().nextLong(maxJitter + 1) : 0;
+        taskScheduler.schedule(() -> runOnce(jobName, periodNumber, job), Instant.now().plusMillis(jitter));
+    }
+
+    /**
+     * Removes the old run history, itself a job running on a single instance.
+     */
+    @Scheduled(cron = "${job.history.cleanup-cron:0 30 3 * * *}")
+    public void cleanupHistory() {
+        submit(HISTORY_CLEANUP_JOB, Instant.now(), Duration.ofDays(1), () -> {
+            int removed = jobRunRepository.deleteStartedBefore(Instant.now().minus(retention).atOffset(ZoneOffset.UTC));
+            log.info("Removed {} job runs older than {}.", removed, retention);
+        });
+    }
+
+    /**
+     * Runs the job for the period if this instance takes its lease.
+     *
+     * @param jobName      the name of the job
+     * @param periodNumber the number of the period
+     * @param job          the job
+     * @return {@code true} if the job was run by this instance
+     */
+    boolean runOnce(String jobName, long periodNumber, Runnable job) {
+        if (!acquire(jobName, periodNumber)) {
+            log.debug("Job {} of period {} is run by another instance.", jobName, periodNumber);
+            return false;
+        }
+
+        Instant startedAt = Instant.now();
+        Duration renewal = lease(jobName).dividedBy(3);
+        ScheduledFuture<?> heartbeat = taskScheduler.scheduleAtFixedRate(() -> renew(jobName, periodNumber),
+                startedAt.plus(renewal), renewal);
+        JobRunOutcome outcome = JobRunOutcome.SUCCEEDED;
+        String error = null;
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            outcome = JobRunOutcome.FAILED;
+            error = e.toString();
+            log.error("Job {} of period {} failed.", jobName, periodNumber, e);
+        } finally {
+            heartbeat.cancel(false);
+            Instant finishedAt = Instant.now();
+            Duration duration = Duration.between(startedAt, finishedAt);
+            Timer.builder("job.run")
+                    .tag("job", jobName)
+                    .tag("outcome", outcome.name())
+                    .register(meterRegistry)
+                    .record(duration);
+            finish(new JobRun(null, jobName, owner, periodNumber, startedAt.atOffset(ZoneOffset.UTC),
+                    finishedAt.atOffset(ZoneOffset.UTC), duration.toMillis(), outcome, error));
+        }
+        return true;
+    }
+
+    private boolean acquire(String jobName, long periodNumber) {
+        try {
+            return jobLeaseRepository.acquire(jobName, owner, periodNumber, lease(jobName).toSeconds()) > 0;
+        } catch (DataAccessException e) {
+            log.warn("Failed to take the lease of job {}: {}", jobName, e.getMessage());
+            return false;
+        }
+    }
+
+    private void renew(String jobName, long periodNumber) {
+        try {
+            if (jobLeaseRepository.renew(jobName, owner, periodNumber, lease(jobName).toSeconds()) == 0) {
+                log.warn("Job {} of period {} lost its lease while running.", jobName, periodNumber);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to renew the lease of job {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    private Duration lease(String jobName) {
+        return property(jobName, "lease", Duration.ofMinutes(5));
+    }
+
+    private void finish(JobRun run) {
+        try {
+            jobLeaseRepository.release(run.getJobName(), owner, run.getPeriod());
+            jobRunRepository.save(run);
+        } catch (DataAccessException e) {
+            log.warn("Failed to record the run of job {}: {}", run.getJobName(), e.getMessage());
+        }
+    }
+
+    private Duration property(String jobName, String key, Duration defaultValue) {
+        Duration fallback = environment.getProperty(PREFIX + "default." + key, Duration.class, defaultValue);
+        return environment.getProperty(PREFIX + jobName + "." + key, Duration.class, fallback);
+    }
+}
@@ -18,10 +18,5 @@ public class DashboardKpisDto {
     public static class TemperatureKpiDto {
         private String place;
         private double temperature;
-
-        public TemperatureKpiDto(PlaceHistory placeHistory) {
-            this.place = placeHistory.getPlaceId();
-            this.temperature = placeHistory.getTemperature();
-        }
     }
 }
\ No newline at end of file
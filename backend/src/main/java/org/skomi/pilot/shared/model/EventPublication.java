@@ -0,0 +1,48 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Publication of a durable event to a single listener. The publication is incomplete until the listener has
+ * handled the event, then {@code completionDate} is set.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("event_publication")
+public class EventPublication {
+
+    @Id
+    private UUID id;
+
+    @Column("listener_id")
+    private String listenerId;
+
+    @Column("event_type")
+    private String eventType;
+
+    @Column("serialized_event")
+    private String serializedEvent;
+
+    @Column("publication_date")
+    private OffsetDateTime publicationDate;
+
+    @Column("completion_date")
+    private OffsetDateTime completionDate;
+
+    private int attempts;
+
+    @Column("last_attempt_at")
+    private OffsetDateTime lastAttemptAt;
+
+    @Column("last_error")
+    private String lastError;
+}
@@ -0,0 +1,53 @@
+package org.skomi.pilot.shared.model;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resolution of place history queries: single readings, or the hourly and daily rollups of the readings.
+ * Buckets of the rollups start at whole UTC hours and days.
+ */
+public enum HistoryResolution {
+
+    RAW(null),
+    HOURLY(ChronoUnit.HOURS),
+    DAILY(ChronoUnit.DAYS);
+
+    private final ChronoUnit bucket;
+
+    HistoryResolution(ChronoUnit bucket) {
+        this.bucket = bucket;
+    }
+
+    /**
+     * Returns the next finer resolution.
+     *
+     * @return the finer resolution, RAW for RAW
+     */
+    public HistoryResolution finer() {
+        return this == RAW ? RAW : values()[ordinal() - 1];
+    }
+
+    /**
+     * Returns the start of the bucket containing the time.
+     *
+     * @param time the time
+     * @return the start of the bucket, in UTC
+     */
+    public OffsetDateTime floor(OffsetDateTime time) {
+        OffsetDateTime utc = time.withOffsetSameInstant(ZoneOffset.UTC);
+        return bucket == null ? utc : utc.truncatedTo(bucket);
+    }
+
+    /**
+     * Returns the start of the first bucket starting at or after the time.
+     *
+     * @param time the time
+     * @return the start of the bucket, in UTC
+     */
+    public OffsetDateTime ceil(OffsetDateTime time) {
+        OffsetDateTime floor = floor(time);
+        return bucket == null || floor.isEqual(time) ? floor : floor.plus(1, bucket);
+    }
+}
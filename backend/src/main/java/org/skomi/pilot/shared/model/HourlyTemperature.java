@@ -0,0 +1,13 @@
+package org.skomi.pilot.shared.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Temperature and weather condition of a place at a full hour.
+ *
+ * @param time        the hour
+ * @param temperature the temperature in Celsius
+ * @param condition   the weather condition
+ */
+public record HourlyTemperature(OffsetDateTime time, Double temperature, String condition) {
+}
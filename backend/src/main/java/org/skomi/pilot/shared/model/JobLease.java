@@ -0,0 +1,34 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Lease of a scheduled job. The instance named by {@code owner} runs the job for {@code period} and holds
+ * the lease until {@code leaseUntil} or until the run is {@code finished}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("job_lease")
+public class JobLease {
+
+    @Id
+    @Column("job_name")
+    private String jobName;
+
+    private String owner;
+
+    private long period;
+
+    @Column("lease_until")
+    private OffsetDateTime leaseUntil;
+
+    private boolean finished;
+}
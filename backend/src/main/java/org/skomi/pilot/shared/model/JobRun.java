@@ -0,0 +1,43 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A finished run of a scheduled job.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("job_run")
+public class JobRun {
+
+    @Id
+    private Long id;
+
+    @Column("job_name")
+    private String jobName;
+
+    private String owner;
+
+    private long period;
+
+    @Column("started_at")
+    private OffsetDateTime startedAt;
+
+    @Column("finished_at")
+    private OffsetDateTime finishedAt;
+
+    @Column("duration_ms")
+    private long durationMs;
+
+    private JobRunOutcome outcome;
+
+    private String error;
+}
@@ -0,0 +1,9 @@
+package org.skomi.pilot.shared.model;
+
+/**
+ * Outcome of a run of a scheduled job.
+ */
+public enum JobRunOutcome {
+    SUCCEEDED,
+    FAILED
+}
@@ -1,17 +1,26 @@
 package org.skomi.pilot.shared.model;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.time.OffsetDateTime;
+
 @Data
+@NoArgsConstructor
 @Table("place")
 public class Place {
 
     @Id
     private String id;
 
+    /**
+     * Kept by the database from the running sum and count of the place history, never written by the application.
+     */
+    @ReadOnlyProperty
     @Column("average_temperature")
     private Double averageTemperature;
 
@@ -22,6 +31,37 @@ public class Place {
 
     private Double temperature;
 
+    /**
+     * Time the weather data was last fetched successfully.
+     */
+    @Column("updated_at")
+    private OffsetDateTime updatedAt;
+
+    /**
+     * Whether the last fetch failed and the place holds its last known weather data.
+     */
+    private boolean stale;
+
+    /**
+     * Location of the place as resolved by the weather provider.
+     */
+    private Double lat;
+
+    private Double lon;
+
+    /**
+     * Time zone of the place as reported by the weather provider, the days of its weather history are counted in it.
+     */
+    @Column("time_zone")
+    private String timeZone;
+
+    /**
+     * Geo cell the place represents, claimed once its location is known. Written only by {@code PlaceRegistry}.
+     */
+    @ReadOnlyProperty
+    @Column("geo_cell")
+    private String geoCell;
+
     public Place(String id) {
         this.id = id;
     }
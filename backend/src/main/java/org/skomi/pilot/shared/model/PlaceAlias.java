@@ -0,0 +1,24 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Normalized name resolving to a canonical place.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("place_alias")
+public class PlaceAlias {
+
+    @Id
+    private String alias;
+
+    @Column("place_id")
+    private String placeId;
+}
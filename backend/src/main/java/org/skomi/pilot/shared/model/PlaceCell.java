@@ -0,0 +1,7 @@
+package org.skomi.pilot.shared.model;
+
+public record PlaceCell(
+        String id,
+        String geoCell
+) {
+}
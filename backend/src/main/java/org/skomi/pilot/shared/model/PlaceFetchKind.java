@@ -0,0 +1,15 @@
+package org.skomi.pilot.shared.model;
+
+/**
+ * What is fetched from the weather provider for a place.
+ */
+public enum PlaceFetchKind {
+    /**
+     * The current weather of the place.
+     */
+    ACTUAL,
+    /**
+     * The weather history of the place.
+     */
+    HISTORY
+}
@@ -0,0 +1,37 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A queued weather fetch of a place. The task stays in the queue until the fetched data arrives,
+ * an instance processing it holds a lease until {@code lockedUntil}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("place_fetch_task")
+public class PlaceFetchTask {
+
+    @Id
+    private Long id;
+
+    @Column("place_id")
+    private String placeId;
+
+    private PlaceFetchKind kind;
+
+    @Column("created_at")
+    private OffsetDateTime createdAt;
+
+    private int attempts;
+
+    @Column("locked_until")
+    private OffsetDateTime lockedUntil;
+}
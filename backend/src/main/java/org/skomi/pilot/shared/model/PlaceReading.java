@@ -0,0 +1,13 @@
+package org.skomi.pilot.shared.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A single temperature reading of a place, as recorded in its history.
+ *
+ * @param placeId     the id of the place
+ * @param updatedAt   the time of the reading
+ * @param temperature the temperature, null if the provider sent none
+ */
+public record PlaceReading(String placeId, OffsetDateTime updatedAt, Double temperature) {
+}
@@ -0,0 +1,11 @@
+package org.skomi.pilot.shared.model;
+
+import java.time.OffsetDateTime;
+
+public record PlaceRefreshSchedule(
+        String id,
+        String refreshReason,
+        OffsetDateTime lastRefreshAt,
+        OffsetDateTime nextDueAt
+) {
+}
@@ -0,0 +1,16 @@
+package org.skomi.pilot.shared.model;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Temperature statistics of a place within a bucket of the history, a single reading for raw history.
+ */
+public record PlaceTemperatureStats(
+        String placeId,
+        OffsetDateTime bucket,
+        Double minTemperature,
+        Double maxTemperature,
+        Double averageTemperature,
+        Long readings
+) {
+}
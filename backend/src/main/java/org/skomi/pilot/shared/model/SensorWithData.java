@@ -9,6 +9,8 @@ import lombok.ToString;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Schema(description = "Represents a sensor capturing environmental data.")
@@ -34,4 +36,15 @@ public class SensorWithData {
 
     @Schema(description = "Description of the environmental condition.")
     private String condition;
+
+    @Schema(description = "Time the weather data was last fetched successfully.")
+    private OffsetDateTime updatedAt;
+
+    @Schema(description = "Whether the weather data is the last known data because the provider could not be reached.")
+    private boolean stale;
+
+    @Schema(description = "Age of the weather data in seconds.")
+    public Long getAgeSeconds() {
+        return updatedAt == null ? null : Duration.between(updatedAt, OffsetDateTime.now()).toSeconds();
+    }
 }
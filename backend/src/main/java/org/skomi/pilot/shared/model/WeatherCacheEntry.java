@@ -0,0 +1,30 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A weather provider response shared by all instances of the application. The response is kept as JSON
+ * and is valid until {@code expiresAt}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("weather_cache")
+public class WeatherCacheEntry {
+
+    @Id
+    @Column("place_key")
+    private String placeKey;
+
+    private String response;
+
+    @Column("expires_at")
+    private OffsetDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package org.skomi.pilot.shared.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Hourly weather history of a place for a single past day. Past days do not change, so the entry never expires.
+ * The entry is identified by the place key together with the day, so it is read and written only by the queries
+ * of its repository.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("weather_history_cache")
+public class WeatherHistoryCacheEntry {
+
+    @Column("place_key")
+    private String placeKey;
+
+    private LocalDate day;
+
+    private String hours;
+}
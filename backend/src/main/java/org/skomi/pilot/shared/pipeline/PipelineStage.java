@@ -0,0 +1,231 @@
+package org.skomi.pilot.shared.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A single stage of an asynchronous pipeline. Items are routed by their key to one of several lanes, every lane
+ * with its own bounded queue and a single worker thread, so items with the same key are handled in the order
+ * they were submitted. The worker drains its queue in micro-batches of up to {@code batchSize} items, waiting at
+ * most {@code linger} for a batch to fill up.
+ * <p>
+ * A full queue pushes back on the submitter, which waits up to {@code offerTimeout} for a free slot. Items that
+ * still do not fit are dropped and counted.
+ * <p>
+ * Every stage records the metrics {@code pipeline.stage.depth}, {@code pipeline.stage.latency},
+ * {@code pipeline.stage.batch.size}, {@code pipeline.stage.dropped} and {@code pipeline.stage.failed},
+ * tagged with the name of the stage.
+ *
+ * @param <T> the type of items handled by the stage
+ */
+@Slf4j
+public class PipelineStage<T> implements AutoCloseable {
+
+    private static final String STAGE_TAG = "stage";
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @Getter
+    private final String name;
+    private final Function<T, ?> keyFunction;
+    private final Consumer<List<T>> handler;
+    private final PipelineStageSettings settings;
+    private final List<Lane> lanes = new ArrayList<>();
+
+    private final Timer latency;
+    private final DistributionSummary batchSize;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts the stage.
+     *
+     * @param name          the name of the stage, used for thread names and metric tags
+     * @param keyFunction   resolves the key of an item, items with the same key keep their order
+     * @param handler       handles a micro-batch of items
+     * @param settings      the lanes, capacity and batching of the stage
+     * @param meterRegistry the registry the stage metrics are recorded to
+     */
+    public PipelineStage(String name,
+                         Function<T, ?> keyFunction,
+                         Consumer<List<T>> handler,
+                         PipelineStageSettings settings,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.keyFunction = keyFunction;
+        this.handler = handler;
+        this.settings = settings;
+
+        this.latency = meterRegistry.timer("pipeline.stage.latency", STAGE_TAG, name);
+        this.batchSize = meterRegistry.summary("pipeline.stage.batch.size", STAGE_TAG, name);
+        this.dropped = meterRegistry.counter("pipeline.stage.dropped", STAGE_TAG, name);
+        this.failed = meterRegistry.counter("pipeline.stage.failed", STAGE_TAG, name);
+        Gauge.builder("pipeline.stage.depth", this, PipelineStage::depth)
+                .tag(STAGE_TAG, name)
+                .register(meterRegistry);
+
+        for (int i = 0; i < settings.lanes(); i++) {
+            Lane lane = new Lane(new ArrayBlockingQueue<>(settings.capacity()));
+            lane.worker = Thread.ofPlatform()
+                    .name("pipeline-" + name + "-" + i)
+                    .daemon()
+                    .start(lane::run);
+            lanes.add(lane);
+        }
+    }
+
+    /**
+     * Submits an item to the stage. Waits for a free slot when the lane of the item is full.
+     *
+     * @param item the item to be handled
+     * @return a future completed once the item has been handled, completed exceptionally when the item
+     * was dropped or its handling failed
+     */
+    public CompletableFuture<Void> submit(T item) {
+        Entry<T> entry = new Entry<>(item, System.nanoTime(), new CompletableFuture<>());
+        if (!running) {
+            return drop(entry, "stage is stopped");
+        }
+
+        Lane lane = lanes.get(Math.floorMod(Objects.hashCode(keyFunction.apply(item)), lanes.size()));
+        try {
+            if (!lane.queue.offer(entry, settings.offerTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return drop(entry, "queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return drop(entry, "submitter was interrupted");
+        }
+        return entry.future;
+    }
+
+    /**
+     * Submits all items to the stage in their order.
+     *
+     * @param items the items to be handled
+     * @return a future completed once all items have been handled
+     */
+    public CompletableFuture<Void> submitAll(Collection<T> items) {
+        return CompletableFuture.allOf(items.stream()
+                .map(this::submit)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Returns the number of items waiting in all lanes of the stage.
+     *
+     * @return the queue depth of the stage
+     */
+    public int depth() {
+        return lanes.stream().mapToInt(lane -> lane.queue.size()).sum();
+    }
+
+    /**
+     * Stops accepting new items and gives the workers the configured grace period to handle the queued ones.
+     */
+    @Override
+    public void close() {
+        running = false;
+        long deadline = System.nanoTime() + settings.shutdownTimeout().toNanos();
+        for (Lane lane : lanes) {
+            try {
+                lane.worker.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lane.worker.interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> drop(Entry<T> entry, String reason) {
+        dropped.increment();
+        log.warn("Pipeline stage {} dropped an item, {}.", name, reason);
+        entry.future.completeExceptionally(new RejectedExecutionException("Pipeline stage " + name + " " + reason));
+        return entry.future;
+    }
+
+    private void handle(List<Entry<T>> batch) {
+        batchSize.record(batch.size());
+        try {
+            handler.accept(batch.stream().map(Entry::item).toList());
+            long now = System.nanoTime();
+            batch.forEach(entry -> {
+                latency.record(now - entry.enqueuedAt, TimeUnit.NANOSECONDS);
+                entry.future.complete(null);
+            });
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.error("Pipeline stage {} failed to handle a batch of {} items.", name, batch.size(), e);
+            batch.forEach(entry -> entry.future.completeExceptionally(e));
+        }
+    }
+
+    private record Entry<T>(T item, long enqueuedAt, CompletableFuture<Void> future) {
+    }
+
+    /**
+     * A bounded queue with its single worker.
+     */
+    private class Lane {
+
+        private final BlockingQueue<Entry<T>> queue;
+        private Thread worker;
+
+        private Lane(BlockingQueue<Entry<T>> queue) {
+            this.queue = queue;
+        }
+
+        private void run() {
+            try {
+                while (running || !queue.isEmpty()) {
+                    Entry<T> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        handle(collectBatch(first));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Collects a micro-batch starting with the given entry, lingering for more entries if the batch is not full.
+         */
+        private List<Entry<T>> collectBatch(Entry<T> first) throws InterruptedException {
+            List<Entry<T>> batch = new ArrayList<>(settings.batchSize());
+            batch.add(first);
+            queue.drainTo(batch, settings.batchSize() - 1);
+
+            long deadline = System.nanoTime() + settings.linger().toNanos();
+            while (batch.size() < settings.batchSize()) {
+                long remaining = deadline - System.nanoTime();
+                Entry<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                queue.drainTo(batch, settings.batchSize() - batch.size());
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.skomi.pilot.shared.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Creates pipeline stages configured by {@code pipeline.stage.<name>.*} properties, falling back to
+ * {@code pipeline.stage.default.*}, and stops all of them on shutdown.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineStageFactory {
+
+    private static final String PREFIX = "pipeline.stage.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final List<PipelineStage<?>> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates and starts a new pipeline stage.
+     *
+     * @param name        the name of the stage
+     * @param keyFunction resolves the key of an item, items with the same key keep their order
+     * @param handler     handles a micro-batch of items
+     * @param <T>         the type of items handled by the stage
+     * @return the running stage
+     */
+    public <T> PipelineStage<T> create(String name, Function<T, ?> keyFunction, Consumer<List<T>> handler) {
+        PipelineStage<T> stage = new PipelineStage<>(name, keyFunction, handler, settingsOf(name), meterRegistry);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Resolves the settings of a stage from its own properties and the defaults.
+     *
+     * @param name the name of the stage
+     * @return the settings of the stage
+     */
+    public PipelineStageSettings settingsOf(String name) {
+        return new PipelineStageSettings(
+                property(name, "lanes", Integer.class, 4),
+                property(name, "capacity", Integer.class, 1000),
+                property(name, "batch-size", Integer.class, 50),
+                property(name, "linger", Duration.class, Duration.ofMillis(20)),
+                property(name, "offer-timeout", Duration.class, Duration.ofSeconds(5)),
+                property(name, "shutdown-timeout", Duration.class, Duration.ofSeconds(10)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stages.forEach(PipelineStage::close);
+    }
+
+    private <V> V property(String stage, String key, Class<V> type, V defaultValue) {
+        V fallback = environment.getProperty(PREFIX + "default." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + stage + "." + key, type, fallback);
+    }
+}
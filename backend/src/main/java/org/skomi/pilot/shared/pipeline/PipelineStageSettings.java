@@ -0,0 +1,21 @@
+package org.skomi.pilot.shared.pipeline;
+
+import java.time.Duration;
+
+/**
+ * Settings of a single pipeline stage.
+ *
+ * @param lanes           the number of lanes, each with its own queue and worker
+ * @param capacity        the capacity of the queue of every lane
+ * @param batchSize       the maximum number of items handled at once
+ * @param linger          how long a worker waits for a batch to fill up
+ * @param offerTimeout    how long a submitter waits for a free slot before the item is dropped
+ * @param shutdownTimeout how long queued items are still handled when the stage is stopped
+ */
+public record PipelineStageSettings(int lanes,
+                                    int capacity,
+                                    int batchSize,
+                                    Duration linger,
+                                    Duration offerTimeout,
+                                    Duration shutdownTimeout) {
+}
@@ -0,0 +1,239 @@
+package org.skomi.pilot.shared.publisher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.event.DurableEventListener;
+import org.skomi.pilot.shared.model.EventPublication;
+import org.skomi.pilot.shared.repository.EventPublicationRepository;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes durable cross-module events. A publication of the event is stored in the {@code event_publication}
+ * table for every {@link DurableEventListener} of the event within the publishing transaction. Once the
+ * transaction commits, the listeners are called asynchronously on virtual threads and each publication is
+ * completed when its listener returns. Publications left incomplete by a failed listener or a crash are delivered
+ * again by {@link org.skomi.pilot.shared.service.EventPublicationService}.
+ * <p>
+ * While a listener runs, its publication is renewed every {@code events.delivery.heartbeat}, so a delivery running
+ * longer than {@code events.retry.min-age} is not claimed and delivered a second time. The heartbeat has to stay
+ * well below the minimal age.
+ * <p>
+ * Published events are counted by {@code events.published} and deliveries timed by {@code events.delivery},
+ * both tagged with the event.
+ */
+@Slf4j
+@Service
+public class DurableEventPublisher implements SmartInitializingSingleton {
+
+    private static final ReflectionUtils.MethodFilter LISTENER_METHODS =
+            method -> AnnotatedElementUtils.hasAnnotation(method, DurableEventListener.class);
+
+    private record Listener(String id, Class<?> eventType, Object bean, Method method) {
+    }
+
+    private final EventPublicationRepository eventPublicationRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationContext applicationContext;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Listener> listenersById = new ConcurrentHashMap<>();
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("event-", 0).factory());
+
+    @Value("${events.shutdown-timeout:PT10S}")
+    private Duration shutdownTimeout;
+
+    public DurableEventPublisher(EventPublicationRepository eventPublicationRepository, ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry, ApplicationContext applicationContext) {
+        this.eventPublicationRepository = eventPublicationRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Finds the durable event listeners of all beans once they are created.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanNamesForType(Object.class, false, false)) {
+            Class<?> beanType = applicationContext.getType(beanName);
+            if (beanType != null && !MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType), LISTENER_METHODS)
+                    .isEmpty()) {
+                register(applicationContext.getBean(beanName));
+            }
+        }
+        log.info("Registered {} durable event listeners.", listeners.size());
+    }
+
+    /**
+     * Stores a publication of the event for each of its listeners and delivers it after the current transaction
+     * commits. Without a listener the event is dropped.
+     *
+     * @param event the event, it has to be serializable to JSON
+     */
+    @Transactional
+    public void publish(Object event) {
+        List<Listener> targets = listeners.stream()
+                .filter(listener -> listener.eventType().isInstance(event))
+                .toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        String serializedEvent;
+        try {
+            serializedEvent = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Event " + event.getClass().getName() + " cannot be serialized", e);
+        }
+
+        List<UUID> ids = targets.stream().map(listener -> {
+            UUID id = UUID.randomUUID();
+            eventPublicationRepository.insert(id, listener.id(), event.getClass().getName(), serializedEvent);
+            return id;
+        }).toList();
+        meterRegistry.counter("events.published", "event", event.getClass().getSimpleName()).increment();
+
+        Runnable delivery = () -> {
+            for (int i = 0; i < targets.size(); i++) {
+                deliver(ids.get(i), targets.get(i), event);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    delivery.run();
+                }
+            });
+        } else {
+            delivery.run();
+        }
+    }
+
+    /**
+     * Delivers an incomplete publication again.
+     *
+     * @param publication the publication
+     * @return {@code false} if the listener or the event of the publication no longer exists
+     */
+    public boolean redeliver(EventPublication publication) {
+        Listener listener = listenersById.get(publication.getListenerId());
+        if (listener == null) {
+            log.warn("No listener {} for event publication {}.", publication.getListenerId(), publication.getId());
+            return false;
+        }
+        try {
+            Object event = objectMapper.readValue(publication.getSerializedEvent(),
+                    Class.forName(publication.getEventType()));
+            deliver(publication.getId(), listener, event);
+            return true;
+        } catch (ClassNotFoundException | JsonProcessingException e) {
+            log.warn("Cannot read event of publication {}: {}", publication.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Registers the durable event listener methods of a bean.
+     *
+     * @param bean the bean
+     */
+    void register(Object bean) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        MethodIntrospector.selectMethods(targetClass, LISTENER_METHODS)
+                .forEach(method -> {
+                    if (method.getParameterCount() != 1) {
+                        throw new IllegalStateException("Durable event listener " + method + " must have one parameter");
+                    }
+                    Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+                    ReflectionUtils.makeAccessible(invocable);
+                    Class<?> eventType = method.getParameterTypes()[0];
+                    String id = targetClass.getName() + "." + method.getName() + "(" + eventType.getName() + ")";
+                    Listener listener = new Listener(id, eventType, bean, invocable);
+                    listeners.add(listener);
+                    listenersById.put(id, listener);
+                });
+    }
+
+    /**
+     * Renews the publications whose delivery is still running on this instance.
+     */
+    @Scheduled(fixedDelayString = "${events.delivery.heartbeat:PT1M}")
+    public void renewInFlight() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        try {
+            eventPublicationRepository.renew(List.copyOf(inFlight));
+        } catch (DataAccessException e) {
+            log.warn("Failed to renew {} running event publications: {}", inFlight.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Durable event deliveries still running on shutdown, they will be delivered again.");
+        }
+    }
+
+    private void deliver(UUID id, Listener listener, Object event) {
+        executor.execute(() -> {
+            inFlight.add(id);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "completed";
+            try {
+                listener.method().invoke(listener.bean(), event);
+                eventPublicationRepository.complete(id);
+            } catch (Exception e) {
+                outcome = "failed";
+                Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+                log.warn("Delivery of event publication {} to {} failed: {}", id, listener.id(), cause.toString());
+                try {
+                    eventPublicationRepository.fail(id, cause.toString());
+                } catch (RuntimeException recordFailure) {
+                    log.warn("Failed to record failure of event publication {}: {}", id, recordFailure.getMessage());
+                }
+            } finally {
+                inFlight.remove(id);
+                sample.stop(meterRegistry.timer("events.delivery",
+                        "event", event.getClass().getSimpleName(), "outcome", outcome));
+            }
+        });
+    }
+}
@@ -2,21 +2,20 @@ package org.skomi.pilot.shared.publisher;
 
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.event.SendEmailWithMessageEvent;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class EmailPublisher {
 
-    private final ApplicationEventPublisher applicationEventPublisher;
+    private final DurableEventPublisher durableEventPublisher;
 
     /**
      * Calls to send email
      */
     public void sendEmail(String userEmail, String emailTemplateName, String ... args) {
-        applicationEventPublisher.publishEvent(
-                new SendEmailWithMessageEvent(this,
+        durableEventPublisher.publish(
+                new SendEmailWithMessageEvent(
                         userEmail,
                         emailTemplateName,
                         args
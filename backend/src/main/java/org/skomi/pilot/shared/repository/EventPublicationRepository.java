@@ -0,0 +1,106 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.EventPublication;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventPublicationRepository extends CrudRepository<EventPublication, UUID> {
+
+    /**
+     * Stores a new publication of an event, counted as its first delivery attempt.
+     *
+     * @param id              the id of the publication
+     * @param listenerId      the id of the listener the event is published to
+     * @param eventType       the class name of the event
+     * @param serializedEvent the event as JSON
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO event_publication (id, listener_id, event_type, serialized_event, publication_date,
+                                           attempts, last_attempt_at)
+            VALUES (:id, :listenerId, :eventType, :serializedEvent, now(), 1, now())
+            """)
+    void insert(UUID id, String listenerId, String eventType, String serializedEvent);
+
+    /**
+     * Marks the publication as completed.
+     *
+     * @param id the id of the publication
+     */
+    @Modifying
+    @Query("UPDATE event_publication SET completion_date = now(), last_error = NULL WHERE id = :id")
+    void complete(UUID id);
+
+    /**
+     * Records why the last delivery of the publication failed.
+     *
+     * @param id    the id of the publication
+     * @param error the description of the failure
+     */
+    @Modifying
+    @Query("UPDATE event_publication SET last_error = :error WHERE id = :id")
+    void fail(UUID id, String error);
+
+    /**
+     * Renews the last delivery attempt of the publications whose delivery is still running, so they are not claimed
+     * again while their listeners run.
+     *
+     * @param ids the ids of the publications being delivered
+     * @return the number of renewed publications
+     */
+    @Modifying
+    @Query("UPDATE event_publication SET last_attempt_at = now() WHERE id IN (:ids) AND completion_date IS NULL")
+    int renew(Collection<UUID> ids);
+
+    /**
+     * Claims the oldest incomplete publications whose last delivery attempt is older than the given age. A running
+     * delivery keeps renewing its attempt, so only publications whose delivery ended or was lost are claimed.
+     * Publications claimed by another instance are skipped, so several instances can retry at once.
+     *
+     * @param limit         the maximum number of publications to claim
+     * @param minAgeSeconds the minimal age of the last delivery attempt in seconds
+     * @param maxAttempts   publications attempted this many times are not claimed anymore
+     * @return the claimed publications
+     */
+    @Query("""
+            UPDATE event_publication p
+            SET attempts = p.attempts + 1, last_attempt_at = now()
+            WHERE p.id IN (
+                SELECT id FROM event_publication
+                WHERE completion_date IS NULL
+                AND last_attempt_at < now() - make_interval(secs => :minAgeSeconds)
+                AND attempts < :maxAttempts
+                ORDER BY publication_date
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+                )
+            RETURNING p.*
+            """)
+    List<EventPublication> claimIncomplete(int limit, long minAgeSeconds, int maxAttempts);
+
+    /**
+     * Counts the publications which have not been completed yet.
+     *
+     * @return the number of incomplete publications
+     */
+    @Query("SELECT count(*) FROM event_publication WHERE completion_date IS NULL")
+    long countIncomplete();
+
+    /**
+     * Removes the publications completed before the given time.
+     *
+     * @param before the time before which completed publications are removed
+     * @return the number of removed publications
+     */
+    @Modifying
+    @Query("DELETE FROM event_publication WHERE completion_date < :before")
+    int deleteCompletedBefore(OffsetDateTime before);
+}
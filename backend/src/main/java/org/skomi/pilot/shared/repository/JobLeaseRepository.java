@@ -0,0 +1,63 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.JobLease;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLeaseRepository extends CrudRepository<JobLease, String> {
+
+    /**
+     * Takes the lease of a job for a period. The lease is taken when the job has never run, when the run of
+     * an earlier period has finished, or when the instance running the job stopped renewing its lease and it expired.
+     * A period is taken only once unless its run was abandoned.
+     *
+     * @param jobName      the name of the job
+     * @param owner        the instance taking the lease
+     * @param period       the number of the period
+     * @param leaseSeconds the length of the lease in seconds
+     * @return {@code 1} if the lease was taken, {@code 0} otherwise
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO job_lease AS l (job_name, owner, period, lease_until, finished)
+            VALUES (:jobName, :owner, :period, now() + make_interval(secs => :leaseSeconds), false)
+            ON CONFLICT (job_name) DO UPDATE
+            SET owner = EXCLUDED.owner, period = EXCLUDED.period, lease_until = EXCLUDED.lease_until, finished = false
+            WHERE (l.period < EXCLUDED.period AND (l.finished OR l.lease_until < now()))
+               OR (l.period = EXCLUDED.period AND NOT l.finished AND l.lease_until < now())
+            """)
+    int acquire(String jobName, String owner, long period, long leaseSeconds);
+
+    /**
+     * Renews the lease of a running job, so no other instance takes the job over while it still runs.
+     *
+     * @param jobName      the name of the job
+     * @param owner        the instance holding the lease
+     * @param period       the number of the period
+     * @param leaseSeconds the length of the renewed lease in seconds
+     * @return {@code 1} if the lease was renewed, {@code 0} if the instance no longer holds it
+     */
+    @Modifying
+    @Query("""
+            UPDATE job_lease SET lease_until = now() + make_interval(secs => :leaseSeconds)
+            WHERE job_name = :jobName AND owner = :owner AND period = :period AND NOT finished
+            """)
+    int renew(String jobName, String owner, long period, long leaseSeconds);
+
+    /**
+     * Marks the run of the period as finished, so the next period can be taken right away.
+     *
+     * @param jobName the name of the job
+     * @param owner   the instance holding the lease
+     * @param period  the number of the period
+     */
+    @Modifying
+    @Query("""
+            UPDATE job_lease SET finished = true, lease_until = now()
+            WHERE job_name = :jobName AND owner = :owner AND period = :period
+            """)
+    void release(String jobName, String owner, long period);
+}
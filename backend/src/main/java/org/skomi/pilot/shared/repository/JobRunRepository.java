@@ -0,0 +1,23 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.JobRun;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+
+@Repository
+public interface JobRunRepository extends CrudRepository<JobRun, Long> {
+
+    /**
+     * Removes the history of runs started before the given time.
+     *
+     * @param before the time before which runs are removed
+     * @return the number of removed runs
+     */
+    @Modifying
+    @Query("DELETE FROM job_run WHERE started_at < :before")
+    int deleteStartedBefore(OffsetDateTime before);
+}
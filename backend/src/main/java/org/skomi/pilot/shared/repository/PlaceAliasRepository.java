@@ -0,0 +1,33 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.PlaceAlias;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlaceAliasRepository extends CrudRepository<PlaceAlias, String> {
+
+    /**
+     * Finds the aliases among the given ones.
+     *
+     * @param aliases the normalized place names
+     * @return the known aliases with their places
+     */
+    @Query("SELECT alias, place_id FROM place_alias WHERE alias IN (:aliases)")
+    List<PlaceAlias> findByAliases(Collection<String> aliases);
+
+    /**
+     * Registers an alias of the place, unless the alias already resolves to a place.
+     *
+     * @param alias   the normalized place name
+     * @param placeId the id of the place
+     */
+    @Modifying
+    @Query("INSERT INTO place_alias (alias, place_id) VALUES (:alias, :placeId) ON CONFLICT (alias) DO NOTHING")
+    void insertIfAbsent(String alias, String placeId);
+}
@@ -0,0 +1,73 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.PlaceFetchTask;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PlaceFetchTaskRepository extends CrudRepository<PlaceFetchTask, Long> {
+
+    /**
+     * Queues a fetch of the place unless the same fetch is already queued.
+     *
+     * @param placeId the id of the place
+     * @param kind    what is fetched for the place
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO place_fetch_task (place_id, kind) VALUES (:placeId, :kind)
+            ON CONFLICT (place_id, kind) DO NOTHING
+            """)
+    void enqueue(String placeId, String kind);
+
+    /**
+     * Claims the oldest waiting tasks and tasks whose lease has expired. Tasks locked by another instance
+     * are skipped, so several instances can poll the queue at once.
+     *
+     * @param limit        the maximum number of tasks to claim
+     * @param leaseSeconds the length of the lease in seconds
+     * @param maxAttempts  tasks attempted this many times are not claimed anymore
+     * @return the claimed tasks
+     */
+    @Query("""
+            UPDATE place_fetch_task t
+            SET locked_until = now() + make_interval(secs => :leaseSeconds),
+                attempts = t.attempts + 1
+            WHERE t.id IN (
+                SELECT id FROM place_fetch_task
+                WHERE (locked_until IS NULL OR locked_until < now())
+                AND attempts < :maxAttempts
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+                )
+            RETURNING t.*
+            """)
+    List<PlaceFetchTask> claim(int limit, long leaseSeconds, int maxAttempts);
+
+    /**
+     * Removes the tasks of the places whose data has arrived.
+     *
+     * @param placeIds the ids of the places
+     * @param kind     what has been fetched for the places
+     * @return the number of removed tasks
+     */
+    @Modifying
+    @Query("DELETE FROM place_fetch_task WHERE kind = :kind AND place_id IN (:placeIds)")
+    int complete(Collection<String> placeIds, String kind);
+
+    /**
+     * Removes the tasks that failed too many times and whose last lease has expired.
+     *
+     * @param maxAttempts the number of attempts after which a task is abandoned
+     * @return the number of removed tasks
+     */
+    @Modifying
+    @Query("DELETE FROM place_fetch_task WHERE attempts >= :maxAttempts AND locked_until < now()")
+    int deleteAbandoned(int maxAttempts);
+}
@@ -1,16 +1,21 @@
 package org.skomi.pilot.shared.repository;
 
 import org.skomi.pilot.shared.model.PlaceHistory;
+import org.skomi.pilot.shared.model.PlaceTemperatureStats;
+import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PlaceHistoryRepository extends CrudRepository<PlaceHistory, UUID> {
+public interface PlaceHistoryRepository extends CrudRepository<PlaceHistory, UUID>, PlaceHistoryRepositoryCustom {
 
 
     /**
@@ -24,34 +29,138 @@ public interface PlaceHistoryRepository extends CrudRepository<PlaceHistory, UUI
             """)
     List<PlaceHistory> findAllByPlaceId(String placeId);
 
-    @Query("SELECT * FROM place_history WHERE place_id = :placeId ORDER BY id DESC LIMIT 10")
-    List<PlaceHistory> findLatest10BySensorId(String placeId);
-
+    /**
+     * Retrieves the single readings of the places within the range, each as its own bucket.
+     *
+     * @param placeIds the ids of the places
+     * @param from     the beginning of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @return the readings with a temperature, ordered by place and time
+     */
     @Query("""
-            SELECT * FROM place_history ph
-            WHERE DATE(ph.created_at) = CURRENT_DATE
+            SELECT ph.place_id, ph.updated_at AS bucket, ph.temperature AS min_temperature,
+                   ph.temperature AS max_temperature, ph.temperature AS average_temperature, 1 AS readings
+            FROM place_history ph
+            WHERE ph.place_id IN (:placeIds)
+            AND ph.updated_at >= :from
+            AND ph.updated_at < :to
             AND ph.temperature IS NOT NULL
-            AND ph.place_id IN (
-                SELECT s.place_id FROM user_sensor us
-                JOIN sensor s ON s.id = us.sensor_id
-                WHERE us.user_id = :userId
-                )
-            ORDER BY ph.temperature DESC
-            LIMIT 1
+            ORDER BY ph.place_id, ph.updated_at
             """)
-    Optional<PlaceHistory> findHighestTemperatureToday(UUID userId);
+    List<PlaceTemperatureStats> findRawTemperatureStats(Collection<String> placeIds, OffsetDateTime from,
+                                                        OffsetDateTime to);
 
+    /**
+     * Retrieves the hourly rollups of the places for the hours starting within the range.
+     *
+     * @param placeIds the ids of the places
+     * @param from     the beginning of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @return the hourly statistics, ordered by place and hour
+     */
     @Query("""
-            SELECT * FROM place_history ph
-            WHERE DATE(ph.created_at) = CURRENT_DATE
-            AND ph.temperature IS NOT NULL
-            AND ph.place_id IN (
-                SELECT s.place_id FROM user_sensor us
-                JOIN sensor s ON s.id = us.sensor_id
-                WHERE us.user_id = :userId
+            SELECT r.place_id, r.bucket, r.min_temperature, r.max_temperature,
+                   (r.sum_temperature / r.readings)::float8 AS average_temperature, r.readings
+            FROM place_history_hourly r
+            WHERE r.place_id IN (:placeIds)
+            AND r.bucket >= :from
+            AND r.bucket < :to
+            ORDER BY r.place_id, r.bucket
+            """)
+    List<PlaceTemperatureStats> findHourlyTemperatureStats(Collection<String> placeIds, OffsetDateTime from,
+                                                           OffsetDateTime to);
+
+    /**
+     * Retrieves the daily rollups of the places for the days starting within the range.
+     *
+     * @param placeIds the ids of the places
+     * @param from     the beginning of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @return the daily statistics, ordered by place and day
+     */
+    @Query("""
+            SELECT r.place_id, r.bucket, r.min_temperature, r.max_temperature,
+                   (r.sum_temperature / r.readings)::float8 AS average_temperature, r.readings
+            FROM place_history_daily r
+            WHERE r.place_id IN (:placeIds)
+            AND r.bucket >= :from
+            AND r.bucket < :to
+            ORDER BY r.place_id, r.bucket
+            """)
+    List<PlaceTemperatureStats> findDailyTemperatureStats(Collection<String> placeIds, OffsetDateTime from,
+                                                          OffsetDateTime to);
+
+    /**
+     * Retrieves the start of the day the given number of days from the current day, by the clock and the time zone
+     * of the database session.
+     *
+     * @param days the number of days from the current day
+     * @return the start of the day
+     */
+    @Query("SELECT (CURRENT_DATE + :days)::timestamptz")
+    OffsetDateTime findStartOfDay(int days);
+
+    /**
+     * Deletes the hourly rollups of the hours before the given time, the daily rollups are kept.
+     *
+     * @param before the time rollups of earlier hours are deleted
+     * @return the number of deleted rollups
+     */
+    @Modifying
+    @Query("DELETE FROM place_history_hourly WHERE bucket < :before")
+    int deleteHourlyRollupsBefore(OffsetDateTime before);
+
+    /**
+     * Retrieves the past days, counted in the time zone of the place, on which the history of the place has fewer
+     * than the given number of distinct hours. The weather history is provided per local day of the place, so a day
+     * counted this way is filled by a single day of history. Days of a place whose time zone is not known yet are
+     * counted in UTC.
+     *
+     * @param placeId  the ID of the place
+     * @param days     the number of past days to check, ending yesterday
+     * @param minHours the number of distinct hours a complete day has at least
+     * @return the days with gaps in ascending order
+     */
+    @Query("""
+            SELECT d.day::date
+            FROM (SELECT COALESCE((SELECT time_zone FROM place WHERE id = :placeId), 'UTC') AS tz) z
+            CROSS JOIN generate_series(
+                ((now() AT TIME ZONE z.tz)::date - :days)::timestamp,
+                ((now() AT TIME ZONE z.tz)::date - 1)::timestamp,
+                interval '1 day') AS d(day)
+            LEFT JOIN place_history ph ON ph.place_id = :placeId
+                AND ph.updated_at >= ((now() AT TIME ZONE z.tz)::date - :days)::timestamp AT TIME ZONE z.tz
+                AND ph.updated_at >= d.day AT TIME ZONE z.tz
+                AND ph.updated_at < (d.day + interval '1 day') AT TIME ZONE z.tz
+            GROUP BY d.day, z.tz
+            HAVING count(DISTINCT date_trunc('hour', ph.updated_at AT TIME ZONE z.tz)) < :minHours
+            ORDER BY d.day
+            """)
+    List<LocalDate> findDaysWithGaps(String placeId, int days, int minHours);
+
+    /**
+     * Retrieves the places whose history has fewer than the given number of distinct hours on any of the past days,
+     * counted in the time zone of each place as by {@link #findDaysWithGaps}.
+     *
+     * @param days     the number of past days to check, ending yesterday
+     * @param minHours the number of distinct hours a complete day has at least
+     * @return the ids of the places with gaps
+     */
+    @Query("""
+            SELECT p.id FROM place p
+            CROSS JOIN LATERAL (SELECT COALESCE(p.time_zone, 'UTC') AS tz) z
+            WHERE EXISTS (
+                SELECT 1 FROM generate_series(
+                    ((now() AT TIME ZONE z.tz)::date - :days)::timestamp,
+                    ((now() AT TIME ZONE z.tz)::date - 1)::timestamp,
+                    interval '1 day') AS d(day)
+                WHERE (SELECT count(DISTINCT date_trunc('hour', ph.updated_at AT TIME ZONE z.tz))
+                       FROM place_history ph
+                       WHERE ph.place_id = p.id
+                       AND ph.updated_at >= ((now() AT TIME ZONE z.tz)::date - :days)::timestamp AT TIME ZONE z.tz
+                       AND ph.updated_at >= d.day AT TIME ZONE z.tz
+                       AND ph.updated_at < (d.day + interval '1 day') AT TIME ZONE z.tz) < :minHours
                 )
-            ORDER BY ph.temperature ASC
-            LIMIT 1
             """)
-    Optional<PlaceHistory> findLowestTemperatureToday(UUID userId);
-}
\ No newline at end of file
+    List<String> findPlacesWithGaps(int days, int minHours);
+}
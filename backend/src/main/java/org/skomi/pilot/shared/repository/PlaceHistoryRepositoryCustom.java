@@ -0,0 +1,69 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.shared.model.PlaceReading;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+public interface PlaceHistoryRepositoryCustom {
+    /**
+     * Inserts a history record of the place for each of the hours the history does not contain yet.
+     * The records are written in JDBC batches and keep the time of their hour. Writing the same hours again,
+     * for example for a redelivered event, inserts nothing.
+     *
+     * @param placeId the ID of the place
+     * @param hours   the hourly temperatures of the place
+     * @return the number of inserted records
+     */
+    int insertMissingHours(String placeId, List<HourlyTemperature> hours);
+
+    /**
+     * Retrieves the latest readings of each of the places, in a single query binding the places as an array.
+     * The readings of every place are read newest first from the place index, covering their temperature,
+     * so only the returned readings are touched regardless of how much history the place has. Bounding the readings
+     * by time leaves out the partitions of older months.
+     *
+     * @param placeIds the ids of the places
+     * @param limit    the number of readings per place
+     * @param since    the time readings older than are left out, null for no bound
+     * @return up to {@code limit} readings of every place, ordered by place and the newest first
+     */
+    List<PlaceReading> findLatestReadings(Collection<String> placeIds, int limit, OffsetDateTime since);
+
+    /**
+     * Creates the monthly partition of the history for the month, unless it exists. Records of the month already
+     * stored in the default partition are moved into the new partition.
+     *
+     * @param month the month, counted in UTC
+     * @return true if the partition was created
+     */
+    boolean createPartition(YearMonth month);
+
+    /**
+     * Retrieves the months of the existing monthly partitions of the history.
+     *
+     * @return the months in ascending order
+     */
+    List<YearMonth> findPartitions();
+
+    /**
+     * Drops the monthly partition of the history for the month. Dropping a partition fires no delete triggers,
+     * so the records of the partition are subtracted from the running aggregates of their places first.
+     *
+     * @param month the month, counted in UTC
+     * @return the number of dropped records
+     */
+    long dropPartition(YearMonth month);
+
+    /**
+     * Deletes the records older than the given time. Once the older monthly partitions are dropped, such records
+     * are left only in the default partition. The daily rollups of the deleted records are kept.
+     *
+     * @param before the time records older than are deleted
+     * @return the number of deleted records
+     */
+    int deleteBefore(OffsetDateTime before);
+}
@@ -1,13 +1,20 @@
 package org.skomi.pilot.shared.repository;
 
 import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceCell;
+import org.skomi.pilot.shared.model.PlaceRefreshSchedule;
 import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface PlaceRepository extends CrudRepository<Place, String> {
+public interface PlaceRepository extends CrudRepository<Place, String>, PlaceRepositoryCustom {
     /**
      * Performs an upsert operation on the "place" table. If a row with the given ID already exists,
      * its ID is updated; otherwise, a new row is inserted.
@@ -21,4 +28,148 @@ public interface PlaceRepository extends CrudRepository<Place, String> {
             DO UPDATE SET id = :id
             """)
     void upsert(String id);
-}
\ No newline at end of file
+
+    /**
+     * Marks the places as holding their last known weather data, without touching the data itself.
+     *
+     * @param ids the ids of the places whose weather could not be fetched
+     */
+    @Modifying
+    @Query("UPDATE place SET stale = true WHERE id IN (:ids)")
+    void markStale(Collection<String> ids);
+
+    /**
+     * Counts the places whose id falls into the given bucket. Places are assigned to buckets by a stable
+     * hash of their id, so a place always stays in the same bucket for a given bucket count.
+     *
+     * @param bucket      the bucket to count, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     * @return the number of places assigned to the bucket
+     */
+    @Query("""
+            SELECT count(*) FROM place
+            WHERE mod(hashtext(id)::bigint + 2147483648, :bucketCount) = :bucket
+            """)
+    int countInBucket(int bucket, int bucketCount);
+
+    /**
+     * Retrieves the places due for a refresh. These are the places of the given bucket that have not been
+     * planned yet, together with all places of any bucket that are due by the given time.
+     *
+     * @param bucket      the bucket being refreshed, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     * @param dueLimit    the time by which planned places are due
+     * @return a list of places to be refreshed
+     */
+    @Query("""
+            SELECT * FROM place
+            WHERE next_due_at <= :dueLimit
+            OR (next_due_at IS NULL AND mod(hashtext(id)::bigint + 2147483648, :bucketCount) = :bucket)
+            """)
+    List<Place> findDueInBucket(int bucket, int bucketCount, OffsetDateTime dueLimit);
+
+    /**
+     * Plans the next refresh of places being refreshed now.
+     *
+     * @param ids         the ids of the places
+     * @param reason      the reason of their refresh cadence
+     * @param refreshedAt the time of the refresh
+     * @param nextDueAt   the time of their next refresh
+     */
+    @Modifying
+    @Query("""
+            UPDATE place SET refresh_reason = :reason, last_refresh_at = :refreshedAt, next_due_at = :nextDueAt
+            WHERE id IN (:ids)
+            """)
+    void plan(Collection<String> ids, String reason, OffsetDateTime refreshedAt, OffsetDateTime nextDueAt);
+
+    /**
+     * Brings the next refresh of watched places forward to the hot cadence from their last refresh, unless they
+     * are planned sooner already.
+     *
+     * @param ids        the ids of the watched places
+     * @param reason     the reason of the hot cadence
+     * @param hotCadence the hot cadence in seconds
+     */
+    @Modifying
+    @Query("""
+            UPDATE place SET refresh_reason = :reason,
+                             next_due_at = last_refresh_at + make_interval(secs => :hotCadence)
+            WHERE id IN (:ids)
+            AND refresh_reason <> :reason
+            AND last_refresh_at + make_interval(secs => :hotCadence) < next_due_at
+            """)
+    void watch(Collection<String> ids, String reason, long hotCadence);
+
+    /**
+     * Retrieves the refresh plans of all planned places ordered by the time they are due.
+     *
+     * @return a list of refresh plans
+     */
+    @Query("""
+            SELECT id, refresh_reason, last_refresh_at, next_due_at FROM place
+            WHERE next_due_at IS NOT NULL
+            ORDER BY next_due_at
+            """)
+    List<PlaceRefreshSchedule> findRefreshSchedules();
+
+    /**
+     * Retrieves the refresh plan of a single place.
+     *
+     * @param id the id of the place
+     * @return the refresh plan, empty if the place does not exist or has not been refreshed yet
+     */
+    @Query("""
+            SELECT id, refresh_reason, last_refresh_at, next_due_at FROM place
+            WHERE id = :id AND next_due_at IS NOT NULL
+            """)
+    Optional<PlaceRefreshSchedule> findRefreshSchedule(String id);
+
+    /**
+     * Retrieves the ids of all places with a sensor owned by any of the given users.
+     *
+     * @param userEmails the emails of the users whose places are to be retrieved
+     * @return a list of distinct place ids
+     */
+    @Query("""
+            SELECT DISTINCT s.place_id FROM sensor s
+                     JOIN user_sensor us ON s.id = us.sensor_id
+                     JOIN app_user u ON u.id = us.user_id
+            WHERE u.user_email IN (:userEmails)
+            AND s.place_id IS NOT NULL
+            """)
+    List<String> findPlaceIdsOwnedByUsers(Collection<String> userEmails);
+
+    /**
+     * Retrieves the geo cells of the given places.
+     *
+     * @param ids the ids of the places
+     * @return the existing places with their geo cells, which are null until claimed
+     */
+    @Query("SELECT id, geo_cell FROM place WHERE id IN (:ids)")
+    List<PlaceCell> findCells(Collection<String> ids);
+
+    /**
+     * Retrieves the id of the place representing the geo cell.
+     *
+     * @param geoCell the geo cell
+     * @return the id of the place, empty if no place represents the cell
+     */
+    @Query("SELECT id FROM place WHERE geo_cell = :geoCell")
+    Optional<String> findIdByGeoCell(String geoCell);
+
+    /**
+     * Claims the geo cell for a place that does not represent a cell yet, unless another place represents it.
+     *
+     * @param id      the id of the place
+     * @param geoCell the geo cell
+     * @return {@code 1} if the cell was claimed, {@code 0} otherwise
+     */
+    @Modifying
+    @Query("""
+            UPDATE place SET geo_cell = :geoCell
+            WHERE id = :id AND geo_cell IS NULL
+            AND NOT EXISTS (SELECT 1 FROM place o WHERE o.geo_cell = :geoCell)
+            """)
+    int claimGeoCell(String id, String geoCell);
+}
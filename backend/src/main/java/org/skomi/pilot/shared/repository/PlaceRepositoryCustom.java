@@ -0,0 +1,29 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.Place;
+
+import java.util.List;
+
+public interface PlaceRepositoryCustom {
+    /**
+     * Saves the fetched weather data of the places and appends a history record of each of them, stamped with the
+     * time of the reading, in a single statement binding the places as arrays. Places no longer stored and readings
+     * not newer than the stored one are skipped, along with their history, a stale place only takes its reading
+     * back without recording it twice.
+     *
+     * @param places the places with fetched weather data
+     * @return the number of saved places
+     */
+    int saveWeather(List<Place> places);
+
+    /**
+     * Merges a duplicate place into its canonical place. The sensors and aliases of the duplicate are moved to
+     * the canonical place, as are its history records for hours the canonical history does not contain yet.
+     * The duplicate is then deleted and its name registered as an alias of the canonical place.
+     *
+     * @param duplicateId the id of the duplicate place
+     * @param canonicalId the id of the canonical place
+     * @param alias       the normalized name of the duplicate place
+     */
+    void merge(String duplicateId, String canonicalId, String alias);
+}
@@ -0,0 +1,60 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.WeatherCacheEntry;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WeatherCacheRepository extends CrudRepository<WeatherCacheEntry, String> {
+
+    /**
+     * Finds the cached responses of the places which have not expired yet.
+     *
+     * @param placeKeys the normalized keys of the places
+     * @return the valid cached responses, places without one are omitted
+     */
+    @Query("""
+            SELECT place_key, response::text AS response, expires_at FROM weather_cache
+            WHERE place_key IN (:placeKeys) AND expires_at > now()
+            """)
+    List<WeatherCacheEntry> findValid(Collection<String> placeKeys);
+
+    /**
+     * Stores the response of a place, replacing the previous one.
+     *
+     * @param placeKey  the normalized key of the place
+     * @param response  the response as JSON
+     * @param expiresAt the time the response expires
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO weather_cache (place_key, response, expires_at)
+            VALUES (:placeKey, CAST(:response AS jsonb), :expiresAt)
+            ON CONFLICT (place_key) DO UPDATE
+            SET response = EXCLUDED.response, expires_at = EXCLUDED.expires_at, updated_at = now()
+            """)
+    void upsert(String placeKey, String response, OffsetDateTime expiresAt);
+
+    /**
+     * Removes the expired responses.
+     *
+     * @return the number of removed responses
+     */
+    @Modifying
+    @Query("DELETE FROM weather_cache WHERE expires_at <= now()")
+    int deleteExpired();
+
+    /**
+     * Counts the responses which have not expired yet.
+     *
+     * @return the number of valid responses
+     */
+    @Query("SELECT count(*) FROM weather_cache WHERE expires_at > now()")
+    long countValid();
+}
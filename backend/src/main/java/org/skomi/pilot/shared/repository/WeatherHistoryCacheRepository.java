@@ -0,0 +1,37 @@
+package org.skomi.pilot.shared.repository;
+
+import org.skomi.pilot.shared.model.WeatherHistoryCacheEntry;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface WeatherHistoryCacheRepository extends Repository<WeatherHistoryCacheEntry, String> {
+
+    /**
+     * Finds the cached history of a place for the given days.
+     *
+     * @param placeKey the normalized key of the place
+     * @param days     the days
+     * @return the cached days, days without history are omitted
+     */
+    @Query("SELECT place_key, day, hours FROM weather_history_cache WHERE place_key = :placeKey AND day IN (:days)")
+    List<WeatherHistoryCacheEntry> findByPlaceKeyAndDays(String placeKey, Collection<LocalDate> days);
+
+    /**
+     * Stores the history of a place for a day, replacing the previous one.
+     *
+     * @param placeKey the normalized key of the place
+     * @param day      the day
+     * @param hours    the hourly temperatures of the day as JSON
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO weather_history_cache (place_key, day, hours) VALUES (:placeKey, :day, :hours)
+            ON CONFLICT (place_key, day) DO UPDATE SET hours = EXCLUDED.hours, fetched_at = now()
+            """)
+    void upsert(String placeKey, LocalDate day, String hours);
+}
@@ -0,0 +1,164 @@
+package org.skomi.pilot.shared.repository.impl;
+
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.shared.model.PlaceReading;
+import org.skomi.pilot.shared.repository.PlaceHistoryRepositoryCustom;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@Transactional
+public class PlaceHistoryRepositoryCustomImpl implements PlaceHistoryRepositoryCustom {
+
+    private static final String PARTITION_PREFIX = "place_history_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlaceHistoryRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int insertMissingHours(String placeId, List<HourlyTemperature> hours) {
+        String sql = """
+                INSERT INTO place_history (place_id, temperature, condition, created_at, updated_at)
+                SELECT ?, ?, ?, ?, ?
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM place_history
+                    WHERE place_id = ? AND updated_at >= ? AND updated_at < ?
+                )
+                ON CONFLICT DO NOTHING
+                """;
+
+        int[][] inserted = jdbcTemplate.batchUpdate(sql, hours, 100, (ps, hour) -> {
+            OffsetDateTime start = hour.time().truncatedTo(ChronoUnit.HOURS);
+            ps.setString(1, placeId);
+            if (hour.temperature() != null) {
+                ps.setDouble(2, hour.temperature());
+            } else {
+                ps.setNull(2, Types.DOUBLE);
+            }
+            ps.setString(3, hour.condition() != null ? hour.condition() : "undefined");
+            ps.setObject(4, hour.time());
+            ps.setObject(5, hour.time());
+            ps.setString(6, placeId);
+            ps.setObject(7, start);
+            ps.setObject(8, start.plusHours(1));
+        });
+        return Arrays.stream(inserted).flatMapToInt(Arrays::stream).map(count -> Math.max(count, 0)).sum();
+    }
+
+    @Override
+    public List<PlaceReading> findLatestReadings(Collection<String> placeIds, int limit, OffsetDateTime since) {
+        if (placeIds.isEmpty()) {
+            return List.of();
+        }
+        String sql = """
+                SELECT p.place_id, r.updated_at, r.temperature
+                FROM unnest(?::varchar[]) AS p(place_id)
+                CROSS JOIN LATERAL (
+                    SELECT ph.updated_at, ph.temperature FROM place_history ph
+                    WHERE ph.place_id = p.place_id%s
+                    ORDER BY ph.updated_at DESC
+                    LIMIT ?
+                ) r
+                ORDER BY p.place_id, r.updated_at DESC
+                """.formatted(since != null ? " AND ph.updated_at >= ?" : "");
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            int index = 1;
+            ps.setArray(index++, connection.createArrayOf("varchar", placeIds.stream().distinct().toArray()));
+            if (since != null) {
+                ps.setObject(index++, since);
+            }
+            ps.setInt(index, limit);
+            return ps;
+        }, (rs, rowNum) -> new PlaceReading(rs.getString("place_id"), rs.getObject("updated_at", OffsetDateTime.class),
+                rs.getObject("temperature", Double.class)));
+    }
+
+    @Override
+    public boolean createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL",
+                Boolean.class, partition))) {
+            return false;
+        }
+
+        OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = from.plusMonths(1);
+        // the records move between partitions directly, so the aggregate triggers of place_history do not fire
+        jdbcTemplate.execute("LOCK TABLE place_history_default IN EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE place_history INCLUDING DEFAULTS)");
+        jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM place_history_default WHERE updated_at >= ? AND updated_at < ? RETURNING *
+                )
+                INSERT INTO %s SELECT * FROM moved
+                """.formatted(partition), from, to);
+        jdbcTemplate.execute("ALTER TABLE place_history ATTACH PARTITION " + partition
+                             + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+    @Override
+    public List<YearMonth> findPartitions() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'place_history'::regclass
+                        AND c.relname <> 'place_history_default'
+                        """, String.class)
+                .stream()
+                .map(name -> YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX))
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public long dropPartition(YearMonth month) {
+        String partition = partitionName(month);
+        // no record may arrive between the subtraction from the aggregates and the drop
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+        jdbcTemplate.update("""
+                UPDATE place p
+                SET history_sum = p.history_sum - d.temperature_sum,
+                    history_count = p.history_count - d.temperature_count,
+                    average_temperature = round((p.history_sum - d.temperature_sum)
+                        / NULLIF(p.history_count - d.temperature_count, 0), 2)::float8
+                FROM (SELECT place_id, sum(temperature::numeric) AS temperature_sum, count(temperature) AS temperature_count
+                      FROM %s
+                      WHERE temperature IS NOT NULL
+                      GROUP BY place_id) d
+                WHERE p.id = d.place_id
+                """.formatted(partition));
+        Long records = jdbcTemplate.queryForObject("SELECT count(*) FROM " + partition, Long.class);
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        return records == null ? 0 : records;
+    }
+
+    @Override
+    public int deleteBefore(OffsetDateTime before) {
+        // the daily rollups of the deleted records are kept, the setting lasts until the end of the transaction
+        jdbcTemplate.queryForObject("SELECT set_config('place_history.retention', 'on', true)", String.class);
+        return jdbcTemplate.update("DELETE FROM place_history WHERE updated_at < ?", before);
+    }
+
+    private String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -0,0 +1,94 @@
+package org.skomi.pilot.shared.repository.impl;
+
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.repository.PlaceRepositoryCustom;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+@Transactional
+public class PlaceRepositoryCustomImpl implements PlaceRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlaceRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int saveWeather(List<Place> places) {
+        if (places.isEmpty()) {
+            return 0;
+        }
+        // the history records are inserted from the updated rows, so a place and its history are written together,
+        // a reading not newer than the stored one updates nothing, unless it revives a stale place, and a reading
+        // already recorded is not recorded again
+        String sql = """
+                WITH fresh AS (
+                    SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::float8[], ?::timestamptz[],
+                                         ?::bool[], ?::float8[], ?::float8[], ?::varchar[])
+                        AS f(id, condition, continent, temperature, updated_at, stale, lat, lon, time_zone)
+                ), updated AS (
+                    UPDATE place p
+                    SET condition = f.condition, continent = f.continent, temperature = f.temperature,
+                        updated_at = f.updated_at, stale = f.stale, lat = f.lat, lon = f.lon, time_zone = f.time_zone
+                    FROM fresh f
+                    WHERE p.id = f.id
+                    AND (p.updated_at IS NULL OR p.updated_at < f.updated_at OR p.stale)
+                    RETURNING p.id, p.temperature, p.condition, f.updated_at
+                )
+                INSERT INTO place_history (place_id, temperature, condition, created_at, updated_at)
+                SELECT id, temperature, condition, updated_at, updated_at FROM updated
+                ON CONFLICT DO NOTHING
+                """;
+
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("varchar", places.stream().map(Place::getId).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", places.stream().map(Place::getCondition).toArray()));
+            ps.setArray(3, connection.createArrayOf("varchar", places.stream().map(Place::getContinent).toArray()));
+            ps.setArray(4, connection.createArrayOf("float8", places.stream().map(Place::getTemperature).toArray()));
+            ps.setArray(5, connection.createArrayOf("timestamptz", places.stream()
+                    .map(place -> place.getUpdatedAt() == null ? null : Timestamp.from(place.getUpdatedAt().toInstant()))
+                    .toArray()));
+            ps.setArray(6, connection.createArrayOf("bool", places.stream().map(Place::isStale).toArray()));
+            ps.setArray(7, connection.createArrayOf("float8", places.stream().map(Place::getLat).toArray()));
+            ps.setArray(8, connection.createArrayOf("float8", places.stream().map(Place::getLon).toArray()));
+            ps.setArray(9, connection.createArrayOf("varchar", places.stream().map(Place::getTimeZone).toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public void merge(String duplicateId, String canonicalId, String alias) {
+        jdbcTemplate.update("UPDATE sensor SET place_id = ? WHERE place_id = ?", canonicalId, duplicateId);
+
+        // the aggregate triggers move the running sum and count along with the records
+        jdbcTemplate.update("""
+                INSERT INTO place_history (place_id, temperature, condition, created_at, updated_at)
+                SELECT ?, d.temperature, d.condition, d.created_at, d.updated_at
+                FROM place_history d
+                WHERE d.place_id = ?
+                AND NOT EXISTS (
+                    SELECT 1 FROM place_history c
+                    WHERE c.place_id = ?
+                    AND c.updated_at >= date_trunc('hour', d.updated_at)
+                    AND c.updated_at < date_trunc('hour', d.updated_at) + interval '1 hour'
+                )
+                """, canonicalId, duplicateId, canonicalId);
+        jdbcTemplate.update("DELETE FROM place_history WHERE place_id = ?", duplicateId);
+
+        jdbcTemplate.update("UPDATE place_alias SET place_id = ? WHERE place_id = ?", canonicalId, duplicateId);
+        jdbcTemplate.update("""
+                INSERT INTO place_alias (alias, place_id) VALUES (?, ?)
+                ON CONFLICT (alias) DO UPDATE SET place_id = EXCLUDED.place_id
+                """, alias, canonicalId);
+
+        jdbcTemplate.update("DELETE FROM place WHERE id = ?", duplicateId);
+    }
+}
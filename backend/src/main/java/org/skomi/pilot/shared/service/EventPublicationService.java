@@ -0,0 +1,108 @@
+package org.skomi.pilot.shared.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.skomi.pilot.shared.model.EventPublication;
+import org.skomi.pilot.shared.publisher.DurableEventPublisher;
+import org.skomi.pilot.shared.repository.EventPublicationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers incomplete durable event publications again. On startup and then every {@code events.retry.delay}
+ * the publications whose last delivery attempt is older than {@code events.retry.min-age} are claimed and
+ * delivered again, up to {@code events.retry.max-attempts} attempts. Deliveries still running are kept renewed by
+ * {@link DurableEventPublisher}, so they are not claimed. Completed publications are removed after
+ * {@code events.completed.retention}.
+ * <p>
+ * The number of incomplete publications is exposed as {@code events.incomplete}.
+ */
+@Slf4j
+@Service
+public class EventPublicationService {
+
+    private static final String CLEANUP_JOB = "event-publication-cleanup";
+
+    private final EventPublicationRepository eventPublicationRepository;
+    private final DurableEventPublisher durableEventPublisher;
+    private final LeaseJobRunner leaseJobRunner;
+    private final AtomicLong incomplete = new AtomicLong();
+
+    @Value("${events.retry.batch-size:100}")
+    private int batchSize;
+
+    @Value("${events.retry.min-age:PT5M}")
+    private Duration minAge;
+
+    @Value("${events.retry.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${events.completed.retention:P1D}")
+    private Duration retention;
+
+    public EventPublicationService(EventPublicationRepository eventPublicationRepository,
+                                   DurableEventPublisher durableEventPublisher, LeaseJobRunner leaseJobRunner,
+                                   MeterRegistry meterRegistry) {
+        this.eventPublicationRepository = eventPublicationRepository;
+        this.durableEventPublisher = durableEventPublisher;
+        this.leaseJobRunner = leaseJobRunner;
+        Gauge.builder("events.incomplete", incomplete, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Replays the publications left incomplete when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayOnStartup() {
+        int replayed = retryIncomplete();
+        if (replayed > 0) {
+            log.info("Replayed {} incomplete event publications on startup.", replayed);
+        }
+    }
+
+    /**
+     * Claims the due incomplete publications and delivers them again.
+     *
+     * @return the number of publications delivered again
+     */
+    @Scheduled(initialDelayString = "${events.retry.delay:PT1M}", fixedDelayString = "${events.retry.delay:PT1M}")
+    public int retryIncomplete() {
+        try {
+            List<EventPublication> publications =
+                    eventPublicationRepository.claimIncomplete(batchSize, minAge.toSeconds(), maxAttempts);
+            int redelivered = (int) publications.stream().filter(durableEventPublisher::redeliver).count();
+            if (!publications.isEmpty()) {
+                log.warn("Delivering {} incomplete event publications again.", redelivered);
+            }
+            incomplete.set(eventPublicationRepository.countIncomplete());
+            return redelivered;
+        } catch (DataAccessException e) {
+            log.warn("Failed to retry incomplete event publications: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Removes the old completed publications, on a single instance.
+     */
+    @Scheduled(cron = "${events.completed.cleanup-cron:0 45 3 * * *}")
+    public void cleanupCompleted() {
+        leaseJobRunner.submit(CLEANUP_JOB, Instant.now(), Duration.ofDays(1), () -> {
+            int removed = eventPublicationRepository.deleteCompletedBefore(
+                    Instant.now().minus(retention).atOffset(ZoneOffset.UTC));
+            log.info("Removed {} event publications completed more than {} ago.", removed, retention);
+        });
+    }
+}
@@ -1,6 +1,11 @@
 package org.skomi.pilot.shared.service;
 
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.skomi.pilot.shared.bulkhead.Bulkhead;
+import org.skomi.pilot.shared.bulkhead.BulkheadRegistry;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
@@ -12,14 +17,24 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.Base64;
 import java.util.Iterator;
 
 @Service
+@RequiredArgsConstructor
 public class ImageProcessor {
 
+    private final OutboundHttpClientFactory outboundHttpClientFactory;
+    private final BulkheadRegistry bulkheadRegistry;
+    private RestTemplate restTemplate;
+    private Bulkhead bulkhead;
+
+    @PostConstruct
+    void init() {
+        restTemplate = outboundHttpClientFactory.restTemplate("avatar");
+        bulkhead = bulkheadRegistry.get("avatar");
+    }
+
     /**
      * Retrieves an avatar image from the specified URL and converts it into a Base64-encoded string
      * with a "data:image/jpeg;base64," prefix.
@@ -29,24 +44,16 @@ public class ImageProcessor {
      * @throws Exception if an error occurs while fetching or processing the image
      */
     public String getAvatarFromUrl(String imageUrl) throws Exception {
-        // Connect to URL and get input stream
-        URL url = new URL(imageUrl);
-        try (InputStream inputStream = url.openStream()) {
-            // Read bytes into buffer
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            byte[] buffer = new byte[4096];
-            int bytesRead;
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-
-            // Convert to base64
-            byte[] imageBytes = outputStream.toByteArray();
-            String base64String = Base64.getEncoder().encodeToString(imageBytes);
-
-            // Add JPEG data URI prefix
-            return "data:image/jpeg;base64," + base64String;
+        byte[] imageBytes = bulkhead.call(() -> restTemplate.getForObject(imageUrl, byte[].class));
+        if (imageBytes == null) {
+            throw new IOException("No avatar image at " + imageUrl);
         }
+
+        // Convert to base64
+        String base64String = Base64.getEncoder().encodeToString(imageBytes);
+
+        // Add JPEG data URI prefix
+        return "data:image/jpeg;base64," + base64String;
     }
 
     /**
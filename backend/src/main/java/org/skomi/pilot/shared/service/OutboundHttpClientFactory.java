@@ -0,0 +1,156 @@
+package org.skomi.pilot.shared.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the clients of outbound HTTP calls. Every target, such as {@code weatherapi} or {@code email}, gets its own
+ * pool of keep-alive connections, so a slow target cannot exhaust the connections of another. Responses are
+ * requested gzip-compressed and decompressed transparently.
+ * <p>
+ * A target is configured by {@code outbound.http.<target>.*}, settings a target leaves out are taken from
+ * {@code outbound.http.default.*}:
+ * <ul>
+ *     <li>{@code connect-timeout} to establish a connection,</li>
+ *     <li>{@code response-timeout} to wait for the response data,</li>
+ *     <li>{@code pool-timeout} to wait for a free connection of the pool,</li>
+ *     <li>{@code max-connections} and {@code max-connections-per-host} held by the pool,</li>
+ *     <li>{@code idle-timeout} after which idle connections are closed.</li>
+ * </ul>
+ * Calls are timed by {@code http.outbound.requests} tagged with the target, host, method and status, failed calls
+ * are counted by {@code http.outbound.errors} tagged with the target, host and the status class or exception. The
+ * connections of each pool are exposed as {@code http.outbound.pool.leased} and {@code http.outbound.pool.pending}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboundHttpClientFactory {
+
+    private static final String PREFIX = "outbound.http.";
+    private static final String DEFAULT_TARGET = "default";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CloseableHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a RestTemplate sending its requests over the connection pool of the target.
+     *
+     * @param target the name of the target, its settings are read from {@code outbound.http.<target>.*}
+     * @return the RestTemplate
+     */
+    public RestTemplate restTemplate(String target) {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(clients.computeIfAbsent(target, this::createClient));
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(metricsInterceptor(target));
+        return restTemplate;
+    }
+
+    @PreDestroy
+    void close() {
+        clients.forEach((target, client) -> {
+            try {
+                client.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the HTTP client of target {}: {}", target, e.getMessage());
+            }
+        });
+    }
+
+    private CloseableHttpClient createClient(String target) {
+        Duration connectTimeout = setting(target, "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        Duration responseTimeout = setting(target, "response-timeout", Duration.class, Duration.ofSeconds(10));
+        Duration poolTimeout = setting(target, "pool-timeout", Duration.class, Duration.ofSeconds(1));
+        Duration idleTimeout = setting(target, "idle-timeout", Duration.class, Duration.ofSeconds(30));
+        int maxConnections = setting(target, "max-connections", Integer.class, 20);
+        int maxConnectionsPerHost = setting(target, "max-connections-per-host", Integer.class, 10);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(responseTimeout))
+                        .build())
+                .build();
+        Gauge.builder("http.outbound.pool.leased", connectionManager, pool -> pool.getTotalStats().getLeased())
+                .tag("target", target)
+                .register(meterRegistry);
+        Gauge.builder("http.outbound.pool.pending", connectionManager, pool -> pool.getTotalStats().getPending())
+                .tag("target", target)
+                .register(meterRegistry);
+
+        log.info("Outbound HTTP target {}: {} connections, {} per host, connect timeout {}, response timeout {}.",
+                target, maxConnections, maxConnectionsPerHost, connectTimeout, responseTimeout);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(poolTimeout))
+                        .setResponseTimeout(Timeout.of(responseTimeout))
+                        .build())
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    private <T> T setting(String target, String name, Class<T> type, T defaultValue) {
+        T value = environment.getProperty(PREFIX + target + "." + name, type);
+        return Objects.requireNonNullElseGet(value,
+                () -> environment.getProperty(PREFIX + DEFAULT_TARGET + "." + name, type, defaultValue));
+    }
+
+    private ClientHttpRequestInterceptor metricsInterceptor(String target) {
+        return (request, body, execution) -> {
+            String host = Objects.requireNonNullElse(request.getURI().getHost(), "none");
+            long start = System.nanoTime();
+            String status = "IO_ERROR";
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                int code = response.getStatusCode().value();
+                status = String.valueOf(code);
+                if (code >= 400) {
+                    countError(target, host, code / 100 + "xx");
+                }
+                return response;
+            } catch (IOException e) {
+                countError(target, host, e.getClass().getSimpleName());
+                throw e;
+            } finally {
+                Timer.builder("http.outbound.requests")
+                        .tags("target", target, "host", host, "method", request.getMethod().name(), "status", status)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private void countError(String target, String host, String reason) {
+        meterRegistry.counter("http.outbound.errors", "target", target, "host", host, "reason", reason).increment();
+    }
+}
@@ -0,0 +1,88 @@
+package org.skomi.pilot.shared.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Maintains the monthly partitions of the place history, on a single instance. Partitions are created
+ * {@code place.history.premake-months} months ahead, so new records never land in the default partition, and
+ * partitions of months older than {@code place.history.retention-months} are dropped whole instead of deleting
+ * their records one by one. Hourly rollups of the dropped months are deleted with them, daily rollups are kept.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaceHistoryPartitionService {
+
+    private static final String PARTITION_JOB = "place-history-partitions";
+
+    private final PlaceHistoryRepository placeHistoryRepository;
+    private final LeaseJobRunner leaseJobRunner;
+
+    @Value("${place.history.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${place.history.retention-months:24}")
+    private int retentionMonths;
+
+    /**
+     * Maintains the partitions on startup, so an instance started after a long pause does not wait for the schedule.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        scheduleMaintenance();
+    }
+
+    /**
+     * Maintains the partitions once a day, on a single instance.
+     */
+    @Scheduled(cron = "${place.history.partition-cron:0 15 2 * * *}")
+    public void scheduleMaintenance() {
+        leaseJobRunner.submit(PARTITION_JOB, Instant.now(), Duration.ofDays(1), this::maintain);
+    }
+
+    /**
+     * Creates the partitions of the current and the coming months and drops the partitions past the retention.
+     * A retention of zero months keeps the history forever.
+     */
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int month = 0; month <= premakeMonths; month++) {
+            if (placeHistoryRepository.createPartition(current.plusMonths(month))) {
+                log.info("Created the place history partition of {}.", current.plusMonths(month));
+            }
+        }
+
+        if (retentionMonths <= 0) {
+            return;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        placeHistoryRepository.findPartitions().stream()
+                .filter(month -> month.isBefore(oldestKept))
+                .forEach(month -> log.info("Dropped the place history partition of {} with {} records.",
+                        month, placeHistoryRepository.dropPartition(month)));
+
+        OffsetDateTime cutoff = oldestKept.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        int deleted = placeHistoryRepository.deleteBefore(cutoff);
+        if (deleted > 0) {
+            log.info("Deleted {} place history records older than {} from the default partition.", deleted, oldestKept);
+        }
+        int rollups = placeHistoryRepository.deleteHourlyRollupsBefore(cutoff);
+        if (rollups > 0) {
+            log.info("Deleted {} hourly place history rollups older than {}.", rollups, oldestKept);
+        }
+    }
+}
@@ -2,14 +2,26 @@ package org.skomi.pilot.shared.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.HistoryResolution;
+import org.skomi.pilot.shared.model.HourlyTemperature;
 import org.skomi.pilot.shared.model.PlaceHistory;
+import org.skomi.pilot.shared.model.PlaceReading;
+import org.skomi.pilot.shared.model.PlaceTemperatureStats;
 import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing place history records.
@@ -21,23 +33,63 @@ public class PlaceHistoryService {
 
     private final PlaceHistoryRepository placeHistoryRepository;
 
+    @Value("${place.history.backfill-days:7}")
+    private int backfillDays;
+
+    @Value("${place.history.min-hours:20}")
+    private int minHours;
+
+    @Value("${place.history.rollup.raw-max-range:PT6H}")
+    private Duration rawMaxRange;
+
+    @Value("${place.history.rollup.hourly-max-range:P14D}")
+    private Duration hourlyMaxRange;
+
+    @Value("${place.history.latest-window:P7D}")
+    private Duration latestWindow;
+
     /**
-     * Saves place history records from a list of places.
+     * Saves a list of place history records.
      *
-     * @param places the list of places to create history records from
+     * @param placeHistories the list of place histories to save
      */
-    public void saveAllFromPlaces(List<Place> places) {
-        List<PlaceHistory> placeHistories = places.stream().map(PlaceHistory::new).toList();
+    public void saveAll(List<PlaceHistory> placeHistories) {
         placeHistoryRepository.saveAll(placeHistories);
     }
 
     /**
-     * Saves a list of place history records.
+     * Saves the hourly temperatures of a place for the hours its history does not contain yet.
      *
-     * @param placeHistories the list of place histories to save
+     * @param placeId the ID of the place
+     * @param hours   the hourly temperatures of the place
      */
-    public void saveAll(List<PlaceHistory> placeHistories) {
-        placeHistoryRepository.saveAll(placeHistories);
+    public void insertMissingHours(String placeId, List<HourlyTemperature> hours) {
+        if (hours.isEmpty()) {
+            return;
+        }
+        int inserted = placeHistoryRepository.insertMissingHours(placeId, hours);
+        log.info("Filled {} of {} received hours in the history of place {}.", inserted, hours.size(), placeId);
+    }
+
+    /**
+     * Finds the past days, up to {@code place.history.backfill-days} back, on which the history of the place has
+     * fewer than {@code place.history.min-hours} hours. Days are counted in the time zone of the place, as the
+     * weather history is provided.
+     *
+     * @param placeId the ID of the place
+     * @return the days with gaps in ascending order
+     */
+    public List<LocalDate> findDaysWithGaps(String placeId) {
+        return placeHistoryRepository.findDaysWithGaps(placeId, backfillDays, minHours);
+    }
+
+    /**
+     * Finds the places whose history has gaps on any of the past {@code place.history.backfill-days} days.
+     *
+     * @return the ids of the places with gaps
+     */
+    public List<String> findPlacesWithGaps() {
+        return placeHistoryRepository.findPlacesWithGaps(backfillDays, minHours);
     }
 
     /**
@@ -59,6 +111,118 @@ public class PlaceHistoryService {
         return placeHistoryRepository.findAllByPlaceId(placeId);
     }
 
+    /**
+     * Finds the latest readings of each of the places. The readings are looked up within the last
+     * {@code place.history.latest-window} first, which reads only the partitions of the recent months. Places with
+     * fewer readings in the window are looked up again in their whole history.
+     *
+     * @param placeIds the ids of the places
+     * @param count    the number of readings per place
+     * @return a map of place ids to their latest readings, the newest first, places without history are omitted
+     */
+    public Map<String, List<PlaceReading>> findLatestReadings(Collection<String> placeIds, int count) {
+        Map<String, List<PlaceReading>> readings = placeHistoryRepository
+                .findLatestReadings(placeIds, count, OffsetDateTime.now().minus(latestWindow))
+                .stream()
+                .collect(Collectors.groupingBy(PlaceReading::placeId));
+
+        List<String> incomplete = placeIds.stream()
+                .distinct()
+                .filter(placeId -> readings.getOrDefault(placeId, List.of()).size() < count)
+                .toList();
+        if (!incomplete.isEmpty()) {
+            placeHistoryRepository.findLatestReadings(incomplete, count, null)
+                    .stream()
+                    .collect(Collectors.groupingBy(PlaceReading::placeId))
+                    .forEach(readings::put);
+        }
+        return readings;
+    }
+
+    /**
+     * Finds the difference between the highest and the lowest temperature of each place since the given time.
+     *
+     * @param placeIds the ids of the places
+     * @param since    the beginning of the time window
+     * @return a map of place ids to their temperature deltas, places without records in the window are omitted
+     */
+    public Map<String, Double> findTemperatureDeltas(Collection<String> placeIds, OffsetDateTime since) {
+        return findTemperatureStats(placeIds, since, OffsetDateTime.now())
+                .stream()
+                .collect(Collectors.groupingBy(PlaceTemperatureStats::placeId, Collectors.teeing(
+                        Collectors.mapping(PlaceTemperatureStats::maxTemperature,
+                                Collectors.maxBy(Comparator.naturalOrder())),
+                        Collectors.mapping(PlaceTemperatureStats::minTemperature,
+                                Collectors.minBy(Comparator.naturalOrder())),
+                        (max, min) -> max.orElseThrow() - min.orElseThrow())));
+    }
+
+    /**
+     * Finds the temperature statistics of the places for the current day. The day is taken from the clock of the
+     * database, which also stamps the history records.
+     *
+     * @param placeIds the ids of the places
+     * @return the statistics of the buckets of the current day, ordered by place and time
+     */
+    public List<PlaceTemperatureStats> findTodayTemperatureStats(Collection<String> placeIds) {
+        if (placeIds.isEmpty()) {
+            return List.of();
+        }
+        return findTemperatureStats(placeIds, placeHistoryRepository.findStartOfDay(0),
+                placeHistoryRepository.findStartOfDay(1));
+    }
+
+    /**
+     * Finds the temperature statistics of the places within the range. Ranges up to
+     * {@code place.history.rollup.raw-max-range} are read from the single readings, ranges up to
+     * {@code place.history.rollup.hourly-max-range} from the hourly rollups and longer ranges from the daily rollups.
+     * The parts of the range not covering a whole bucket are read at the next finer resolution, so the statistics
+     * cover exactly the range.
+     *
+     * @param placeIds the ids of the places
+     * @param from     the beginning of the range, inclusive
+     * @param to       the end of the range, exclusive
+     * @return the statistics of the buckets, of varying lengths, ordered by place and time
+     */
+    public List<PlaceTemperatureStats> findTemperatureStats(Collection<String> placeIds, OffsetDateTime from,
+                                                            OffsetDateTime to) {
+        if (placeIds.isEmpty() || !from.isBefore(to)) {
+            return List.of();
+        }
+        Duration range = Duration.between(from, to);
+        HistoryResolution resolution = range.compareTo(rawMaxRange) <= 0 ? HistoryResolution.RAW
+                : range.compareTo(hourlyMaxRange) <= 0 ? HistoryResolution.HOURLY
+                : HistoryResolution.DAILY;
+
+        List<PlaceTemperatureStats> stats = new ArrayList<>(findTemperatureStats(resolution, placeIds, from, to));
+        stats.sort(Comparator.comparing(PlaceTemperatureStats::placeId)
+                .thenComparing(PlaceTemperatureStats::bucket));
+        return stats;
+    }
+
+    private List<PlaceTemperatureStats> findTemperatureStats(HistoryResolution resolution, Collection<String> placeIds,
+                                                             OffsetDateTime from, OffsetDateTime to) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        if (resolution == HistoryResolution.RAW) {
+            return placeHistoryRepository.findRawTemperatureStats(placeIds, from, to);
+        }
+
+        OffsetDateTime start = resolution.ceil(from);
+        OffsetDateTime end = resolution.floor(to);
+        if (!start.isBefore(end)) {
+            return findTemperatureStats(resolution.finer(), placeIds, from, to);
+        }
+        List<PlaceTemperatureStats> stats = new ArrayList<>(
+                findTemperatureStats(resolution.finer(), placeIds, from, start));
+        stats.addAll(resolution == HistoryResolution.HOURLY
+                ? placeHistoryRepository.findHourlyTemperatureStats(placeIds, start, end)
+                : placeHistoryRepository.findDailyTemperatureStats(placeIds, start, end));
+        stats.addAll(findTemperatureStats(resolution.finer(), placeIds, end, to));
+        return stats;
+    }
+
     /**
      * Finds a place history record by its ID.
      *
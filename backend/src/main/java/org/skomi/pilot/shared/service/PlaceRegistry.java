@@ -0,0 +1,167 @@
+package org.skomi.pilot.shared.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceAlias;
+import org.skomi.pilot.shared.repository.PlaceAliasRepository;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of canonical places. User-entered place names are resolved by their normalized name to the place
+ * they were registered for, so differently written names of a place share it.
+ * <p>
+ * Once the weather provider resolves the location of a place, the place claims the geo cell of
+ * {@code place.geo.cell-size} degrees containing it. A place whose cell is already represented by another place is
+ * merged into that place, so all sensors in a cell share one weather fetch and one history series. Merged places
+ * are counted by {@code place.merged}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaceRegistry {
+
+    private final PlaceRepository placeRepository;
+    private final PlaceAliasRepository placeAliasRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${place.geo.enabled:true}")
+    private boolean geoEnabled;
+
+    @Value("${place.geo.cell-size:0.05}")
+    private double cellSize;
+
+    /**
+     * Normalizes a place name by stripping accents, trimming and collapsing whitespace and lower-casing it.
+     *
+     * @param name the place name
+     * @return the normalized name
+     */
+    public static String key(String name) {
+        return Normalizer.normalize(Objects.requireNonNullElse(name, ""), Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "")
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolves user-entered place names to the ids of their canonical places.
+     *
+     * @param names the place names
+     * @return a map of the names to place ids, names without a registered place map to the trimmed name
+     */
+    public Map<String, String> resolveAll(Collection<String> names) {
+        List<String> keys = names.stream().filter(Objects::nonNull).map(PlaceRegistry::key)
+                .filter(key -> !key.isEmpty()).distinct().toList();
+        Map<String, String> placeIds = keys.isEmpty() ? Map.of() : placeAliasRepository.findByAliases(keys).stream()
+                .collect(Collectors.toMap(PlaceAlias::getAlias, PlaceAlias::getPlaceId));
+
+        Map<String, String> resolved = new HashMap<>();
+        names.stream().filter(Objects::nonNull).distinct().forEach(name ->
+                resolved.put(name, placeIds.getOrDefault(key(name), name.trim().replaceAll("\\s+", " "))));
+        return resolved;
+    }
+
+    /**
+     * Registers the normalized name of a new place as its alias.
+     *
+     * @param placeId the id of the place
+     */
+    public void register(String placeId) {
+        placeAliasRepository.insertIfAbsent(key(placeId), placeId);
+    }
+
+    /**
+     * Returns the geo cell containing the location.
+     *
+     * @param lat the latitude
+     * @param lon the longitude
+     * @return the geo cell
+     */
+    public String geoCell(double lat, double lon) {
+        return (long) Math.floor(lat / cellSize) + ":" + (long) Math.floor(lon / cellSize);
+    }
+
+    /**
+     * Collapses places with fetched weather data onto their canonical places. Places without a geo cell claim the
+     * cell of their location or are merged into the place representing it. The weather data of a merged place,
+     * or of a place merged meanwhile, is carried over to its canonical place.
+     *
+     * @param places places with fetched weather data
+     * @return the canonical places with the weather data, without duplicates
+     */
+    public List<Place> collapse(List<Place> places) {
+        if (places.isEmpty()) {
+            return places;
+        }
+        Map<String, String> cells = new HashMap<>();
+        placeRepository.findCells(places.stream().map(Place::getId).toList())
+                .forEach(cell -> cells.put(cell.id(), Objects.requireNonNullElse(cell.geoCell(), "")));
+
+        // places no longer stored were merged meanwhile
+        List<String> merged = places.stream().map(Place::getId).filter(id -> !cells.containsKey(id)).toList();
+        Map<String, String> canonicalIds = new HashMap<>(merged.isEmpty() ? Map.of() : resolveAll(merged));
+
+        if (geoEnabled) {
+            places.stream()
+                    .filter(place -> "".equals(cells.get(place.getId())))
+                    .filter(place -> place.getLat() != null && place.getLon() != null)
+                    .forEach(place -> claimOrMerge(place).ifPresent(canonicalId ->
+                            canonicalIds.put(place.getId(), canonicalId)));
+        }
+
+        Map<String, Place> canonical = new LinkedHashMap<>();
+        places.stream().filter(place -> !canonicalIds.containsKey(place.getId()))
+                .forEach(place -> canonical.put(place.getId(), place));
+        places.stream().filter(place -> canonicalIds.containsKey(place.getId())).forEach(place -> {
+            String canonicalId = canonicalIds.get(place.getId());
+            if (cells.containsKey(canonicalId) || placeRepository.existsById(canonicalId)) {
+                place.setId(canonicalId);
+                canonical.putIfAbsent(canonicalId, place);
+            }
+        });
+        return List.copyOf(canonical.values());
+    }
+
+    /**
+     * Claims the geo cell of the place, or merges the place into the place representing the cell.
+     *
+     * @param place the place with a resolved location
+     * @return the id of the canonical place if the place was merged
+     */
+    private Optional<String> claimOrMerge(Place place) {
+        String cell = geoCell(place.getLat(), place.getLon());
+        try {
+            if (placeRepository.claimGeoCell(place.getId(), cell) == 1) {
+                return Optional.empty();
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Geo cell {} claimed concurrently: {}", cell, e.getMessage());
+        }
+
+        Optional<String> canonicalId = placeRepository.findIdByGeoCell(cell)
+                .filter(id -> !id.equals(place.getId()));
+        canonicalId.ifPresent(id -> {
+            placeRepository.merge(place.getId(), id, key(place.getId()));
+            meterRegistry.counter("place.merged").increment();
+            log.info("Merged place {} into place {} representing geo cell {}.", place.getId(), id, cell);
+        });
+        return canonicalId;
+    }
+}
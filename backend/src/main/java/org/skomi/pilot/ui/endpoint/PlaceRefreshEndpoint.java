@@ -0,0 +1,43 @@
+package org.skomi.pilot.ui.endpoint;
+
+import lombok.RequiredArgsConstructor;
+import org.skomi.pilot.ui.model.PlaceRefreshPlan;
+import org.skomi.pilot.ui.service.PlaceRefreshPlanner;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint exposing the refresh cadence and the next due time of every place.
+ */
+@Component
+@Endpoint(id = "placerefresh")
+@RequiredArgsConstructor
+public class PlaceRefreshEndpoint {
+
+    private final PlaceRefreshPlanner placeRefreshPlanner;
+
+    /**
+     * Lists the refresh plans of all places ordered by the time they are due.
+     *
+     * @return a list of refresh plans
+     */
+    @ReadOperation
+    public List<PlaceRefreshPlan> plans() {
+        return placeRefreshPlanner.getPlans();
+    }
+
+    /**
+     * Returns the refresh plan of a single place.
+     *
+     * @param placeId the id of the place
+     * @return the refresh plan, or {@code null} (404) when the place has not been refreshed yet
+     */
+    @ReadOperation
+    public PlaceRefreshPlan plan(@Selector String placeId) {
+        return placeRefreshPlanner.getPlan(placeId).orElse(null);
+    }
+}
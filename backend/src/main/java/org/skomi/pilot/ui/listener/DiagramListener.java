@@ -1,57 +1,113 @@
 package org.skomi.pilot.ui.listener;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.event.DurableEventListener;
 import org.skomi.pilot.shared.event.PlaceActualWeatherDataEvent;
+import org.skomi.pilot.shared.event.PlacePrefetchRequestedEvent;
+import org.skomi.pilot.shared.event.PlaceWeatherDataHistoryEvent;
 import org.skomi.pilot.shared.event.RefreshAllPlacesEvent;
 import org.skomi.pilot.shared.event.WsckSessionOpenedEvent;
 import org.skomi.pilot.shared.model.Place;
-import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
+import org.skomi.pilot.shared.model.PlaceFetchKind;
+import org.skomi.pilot.shared.pipeline.PipelineStage;
+import org.skomi.pilot.shared.pipeline.PipelineStageFactory;
+import org.skomi.pilot.shared.service.PlaceRegistry;
+import org.skomi.pilot.ui.service.PlaceFetchTaskService;
+import org.skomi.pilot.ui.service.PlaceRefreshService;
 import org.skomi.pilot.ui.service.PlaceService;
+import org.skomi.pilot.ui.service.SensorProcessor;
 import org.skomi.pilot.ui.service.SensorUpdateDistributor;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class DiagramListener {
 
-    private final DiagramEventPublisher diagramEventPublisher;
     private final SensorUpdateDistributor sensorUpdateDistributor;
     private final PlaceService placeService;
+    private final PlaceRefreshService placeRefreshService;
+    private final PipelineStageFactory pipelineStageFactory;
+    private final PlaceFetchTaskService placeFetchTaskService;
+    private final PlaceRegistry placeRegistry;
+    private final SensorProcessor sensorProcessor;
+
+    private PipelineStage<Place> placeStage;
+
+    @PostConstruct
+    void init() {
+        placeStage = pipelineStageFactory.create("ui", Place::getId, this::savePlaces);
+    }
 
     /**
-     * Handles the RefreshAllPlacesEvent by retrieving all Place entities from the database
-     * and triggering a request for weather data updates for these places through the DiagramEventPublisher.
+     * Handles the RefreshAllPlacesEvent by retrieving the Place entities of the requested bucket
+     * and triggering a request for weather data updates for these places.
      *
-     * @param event the event indicating that all places should be refreshed and their sensor data updated
+     * @param event the event indicating which bucket of places should be refreshed and their sensor data updated
      */
     @EventListener
     private void updateSensorData(RefreshAllPlacesEvent event) {
-        List<Place> places = placeService.findAll();
-        log.info("Updating sensor data.");
-        diagramEventPublisher.requestWeatherDataForPlaces(places);
+        placeRefreshService.refreshBucket(event.getBucket(), event.getBucketCount());
     }
 
     /**
-     * Handles the PlaceActualWeatherDataEvent by updating the average temperature for each Place,
-     * saving the updated Place entities, and redistributing the updates to all users who own sensors
-     * associated with the given Places.
+     * Handles the PlaceActualWeatherDataEvent by queueing the updated Place entities to the place stage
+     * and waiting until they are saved.
      *
      * @param event the event containing the list of Place entities whose data needs to be updated
      */
-    @EventListener
-    private void updatePlaces(PlaceActualWeatherDataEvent event) {
+    @DurableEventListener
+    public void updatePlaces(PlaceActualWeatherDataEvent event) {
+        placeStage.submitAll(event.getPlaces()).join();
+    }
+
+    /**
+     * Saves the updated Place entities along with their history records, loads their current average temperature,
+     * which already includes the new records, and redistributes the updates to all users who own sensors associated
+     * with the given Places. Places whose weather could not be fetched are only marked as stale, so their last known
+     * weather data is kept and served.
+     *
+     * @param places a micro-batch of Place entities whose data needs to be updated
+     */
+    private void savePlaces(List<Place> places) {
+        Map<Boolean, List<Place>> placesByStale = places.stream().collect(Collectors.partitioningBy(Place::isStale));
+        // places in the geo cell of another place are merged into it and carry their weather data over
+        List<Place> freshPlaces = placeRegistry.collapse(placesByStale.get(false));
+
+        placeService.saveWeather(freshPlaces);
+
         // set average temp for every sensor
-        event.getPlaces().forEach(place -> place.setAverageTemperature(placeService.countPlaceAvg(place)));
+        placeService.refreshAverageTemperatures(freshPlaces);
 
-        placeService.saveAll(event.getPlaces());
+        List<Place> stalePlaces = placeService.markStale(placesByStale.get(true));
 
         // send to all current users
-        sensorUpdateDistributor.redistributeUpdateToAllUsersOwningSensorsWithPlace(event.getPlaces());
+        sensorUpdateDistributor.redistributeUpdateToAllUsersOwningSensorsWithPlace(
+                Stream.concat(freshPlaces.stream(), stalePlaces.stream()).toList());
+
+        // places with weather data no longer wait for it
+        placeFetchTaskService.complete(freshPlaces.stream().map(Place::getId).toList(), PlaceFetchKind.ACTUAL);
+    }
+
+    /**
+     * Handles the PlaceWeatherDataHistoryEvent by removing the queued history fetch of the place
+     * once all gaps in its history have been received. An incomplete history is fetched again.
+     *
+     * @param event the event containing the place and its historical temperatures
+     */
+    @DurableEventListener
+    public void onPlaceHistoryReceived(PlaceWeatherDataHistoryEvent event) {
+        if (event.isComplete()) {
+            placeFetchTaskService.complete(List.of(event.getPlace()), PlaceFetchKind.HISTORY);
+        }
     }
 
     /**
@@ -66,4 +122,15 @@ public class DiagramListener {
         log.info("User {} will retrieve sensor data on open.", event.getUserEmail());
         sensorUpdateDistributor.findAndSendToUserAllItsSensors(event.getUserEmail());
     }
+
+    /**
+     * Handles the PlacePrefetchRequestedEvent, which is triggered when a user picks a place in the city search,
+     * by queueing the prefetch of its weather data.
+     *
+     * @param event the event containing the name of the picked place
+     */
+    @EventListener
+    public void onPlacePrefetchRequested(PlacePrefetchRequestedEvent event) {
+        sensorProcessor.prefetchPlace(event.getPlace());
+    }
 }
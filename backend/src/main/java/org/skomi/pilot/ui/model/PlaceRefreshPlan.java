@@ -0,0 +1,13 @@
+package org.skomi.pilot.ui.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public record PlaceRefreshPlan(
+        String placeId,
+        PlaceRefreshReason reason,
+        Duration cadence,
+        Instant lastRefreshAt,
+        Instant nextDueAt
+) {
+}
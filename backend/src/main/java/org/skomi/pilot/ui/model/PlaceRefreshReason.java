@@ -0,0 +1,23 @@
+package org.skomi.pilot.ui.model;
+
+/**
+ * Reason why a place is refreshed at its current cadence.
+ */
+public enum PlaceRefreshReason {
+    /**
+     * A user owning a sensor on the place is connected.
+     */
+    WATCHED,
+    /**
+     * The temperature of the place changed significantly in the recent window.
+     */
+    VOLATILE,
+    /**
+     * Nothing special about the place, refreshed once per refresh period.
+     */
+    DEFAULT,
+    /**
+     * Nobody is watching the place and its temperature did not move.
+     */
+    FLAT
+}
@@ -3,9 +3,11 @@ package org.skomi.pilot.ui.publisher;
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.event.GetPlaceWeatherDataEvent;
 import org.skomi.pilot.shared.event.GetPlaceWeatherDataHistoryEvent;
+import org.skomi.pilot.shared.event.PlaceWeatherPrefetchEvent;
 import org.skomi.pilot.shared.event.WsckSensorUpdateDataEvent;
 import org.skomi.pilot.shared.model.Place;
 import org.skomi.pilot.shared.model.SensorWithData;
+import org.skomi.pilot.shared.publisher.DurableEventPublisher;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +18,7 @@ import java.util.List;
 public class DiagramEventPublisher {
 
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final DurableEventPublisher durableEventPublisher;
 
     /**
      * Publishes an event to request weather data for the provided list of sensors.
@@ -23,8 +26,8 @@ public class DiagramEventPublisher {
      * @param places the list of sensors for which weather data is to be requested
      */
     public void requestWeatherDataForPlaces(List<Place> places) {
-        GetPlaceWeatherDataEvent event = new GetPlaceWeatherDataEvent(this, places);
-        applicationEventPublisher.publishEvent(event);
+        GetPlaceWeatherDataEvent event = new GetPlaceWeatherDataEvent(places);
+        durableEventPublisher.publish(event);
     }
 
     /**
@@ -33,7 +36,17 @@ public class DiagramEventPublisher {
      * @param placeId the unique identifier of the place for which historical weather data is to be requested
      */
     public void requestWeatherDataHistoryForPlace(String placeId) {
-        GetPlaceWeatherDataHistoryEvent event = new GetPlaceWeatherDataHistoryEvent(this, placeId);
+        GetPlaceWeatherDataHistoryEvent event = new GetPlaceWeatherDataHistoryEvent(placeId);
+        durableEventPublisher.publish(event);
+    }
+
+    /**
+     * Publishes an event to prefetch the weather data of a place not stored yet into the weather caches.
+     *
+     * @param placeId the id of the place
+     */
+    public void requestWeatherPrefetchForPlace(String placeId) {
+        PlaceWeatherPrefetchEvent event = new PlaceWeatherPrefetchEvent(this, placeId);
         applicationEventPublisher.publishEvent(event);
     }
 
@@ -2,21 +2,24 @@ package org.skomi.pilot.ui.service;
 
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.model.DashboardKpisDto;
-import org.skomi.pilot.shared.model.PlaceHistory;
+import org.skomi.pilot.shared.model.PlaceTemperatureStats;
 import org.skomi.pilot.shared.model.SensorWithData;
-import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
 import org.skomi.pilot.shared.repository.SensorRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DashboardKpiService {
 
-    private final PlaceHistoryRepository placeHistoryRepository;
+    private final PlaceHistoryService placeHistoryService;
     private final SensorRepository sensorRepository;
 
     /**
@@ -30,20 +33,26 @@ public class DashboardKpiService {
      * information about the lowest temperature recorded
      */
     public DashboardKpisDto getKpis(UUID userId) {
-        Optional<PlaceHistory> highestTemp = placeHistoryRepository.findHighestTemperatureToday(userId);
-        Optional<PlaceHistory> lowestTemp = placeHistoryRepository.findLowestTemperatureToday(userId);
         List<SensorWithData> sensors = sensorRepository.getAllAssociatedToUser(userId);
+        Set<String> placeIds = sensors.stream()
+                .map(SensorWithData::getPlace)
+                .filter(place -> place != null && !place.isBlank())
+                .collect(Collectors.toSet());
         long activeSensors = sensors.stream().filter(sensorWithData -> sensorWithData.getPlace() != null && !sensorWithData.getPlace().isBlank()).count();
         long inactiveSensors = sensors.size() - activeSensors;
 
+        List<PlaceTemperatureStats> stats = placeHistoryService.findTodayTemperatureStats(placeIds);
+        Optional<PlaceTemperatureStats> highestTemp = stats.stream()
+                .max(Comparator.comparing(PlaceTemperatureStats::maxTemperature));
+        Optional<PlaceTemperatureStats> lowestTemp = stats.stream()
+                .min(Comparator.comparing(PlaceTemperatureStats::minTemperature));
+
         return new DashboardKpisDto(
                 activeSensors,
                 inactiveSensors,
-                highestTemp.filter(temp -> temp.getTemperature() != null)
-                        .map(DashboardKpisDto.TemperatureKpiDto::new)
+                highestTemp.map(temp -> new DashboardKpisDto.TemperatureKpiDto(temp.placeId(), temp.maxTemperature()))
                         .orElse(new DashboardKpisDto.TemperatureKpiDto()),
-                lowestTemp.filter(temp -> temp.getTemperature() != null)
-                        .map(DashboardKpisDto.TemperatureKpiDto::new)
+                lowestTemp.map(temp -> new DashboardKpisDto.TemperatureKpiDto(temp.placeId(), temp.minTemperature()))
                         .orElse(new DashboardKpisDto.TemperatureKpiDto())
         );
     }
@@ -7,15 +7,17 @@ import org.skomi.pilot.shared.model.DashboardSensorTemperatureDto;
 import org.skomi.pilot.shared.model.Plc;
 import org.skomi.pilot.shared.repository.PlcRepository;
 import org.skomi.pilot.shared.repository.SensorPLCRepository;
-import org.skomi.pilot.shared.repository.SensorRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
 import org.skomi.pilot.ui.model.DashboardPlcWithSensorsDto;
 import org.skomi.pilot.ui.model.DashboardSensorDto;
 import org.skomi.pilot.ui.model.DashboardTemperatureDto;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -23,8 +25,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DashboardPlcService {
 
+    private static final int LATEST_TEMPERATURES = 10;
+
     private final PlcRepository plcRepository;
-    private final SensorRepository sensorRepository;
+    private final PlaceHistoryService placeHistoryService;
     private final SensorPLCRepository sensorPLCRepository;
 
     /**
@@ -51,8 +55,7 @@ public class DashboardPlcService {
     public DashboardPlcWithSensorsDto getPlcTemperaturesMeasuredOnSensors(UUID plcId, UUID userId) {
         Plc plc = plcRepository.findById(plcId).orElseThrow();
         List<ConnectedSensorDTO> connectedSensorsOnPorts = sensorPLCRepository.findAllConnectedSensorsOnUserPlc(userId, plcId);
-        List<UUID> sensorIds = connectedSensorsOnPorts.stream().map(ConnectedSensorDTO::id).distinct().toList();
-        var temperaturesMap = getPlcTemperaturesMeasuredOnSensor(sensorIds);
+        var temperaturesMap = getPlcTemperaturesMeasuredOnSensor(connectedSensorsOnPorts);
 
         List<DashboardSensorDto> sensors = connectedSensorsOnPorts.stream().map(
                 connectedSensor -> new DashboardSensorDto(
@@ -94,20 +97,24 @@ public class DashboardPlcService {
 
     /**
      * Retrieves a mapping of sensors to their respective temperature measurements.
-     * For each sensor UUID provided in the input list, this method fetches the latest
-     * temperature readings associated with that sensor and groups them by sensor ID.
+     * The latest temperature readings of the places of all the given sensors are fetched at once
+     * and assigned to every sensor located in the place.
      *
-     * @param sensorIds a list of unique identifiers representing the sensors for which
-     *                  temperature measurements are to be retrieved; if the list is empty,
-     *                  a placeholder ID is used to ensure method execution
+     * @param sensors the connected sensors for which temperature measurements are to be retrieved
      * @return a map where the key is the sensor ID (UUID) and the value is a list of
      *         {@link DashboardSensorTemperatureDto} objects, each representing a sensor's
-     *         temperature readings and their associated metadata
+     *         temperature readings and their associated metadata, the newest first
      */
-    public Map<UUID, List<DashboardSensorTemperatureDto>> getPlcTemperaturesMeasuredOnSensor(List<UUID> sensorIds) {
-        if (sensorIds.isEmpty()) sensorIds = List.of(UUID.fromString("00000000-0000-0000-0000-000000000000"));
-        return sensorRepository.findSensorTemperaturesBySensorIds(sensorIds)
-                .stream()
-                .collect(Collectors.groupingBy(DashboardSensorTemperatureDto::sensorId));
+    public Map<UUID, List<DashboardSensorTemperatureDto>> getPlcTemperaturesMeasuredOnSensor(
+            List<ConnectedSensorDTO> sensors) {
+        var readings = placeHistoryService.findLatestReadings(
+                sensors.stream().map(ConnectedSensorDTO::place).filter(Objects::nonNull).toList(), LATEST_TEMPERATURES);
+        return sensors.stream()
+                .filter(sensor -> readings.containsKey(sensor.place()))
+                .collect(Collectors.toMap(ConnectedSensorDTO::id, sensor -> readings.get(sensor.place())
+                        .stream()
+                        .map(reading -> new DashboardSensorTemperatureDto(
+                                sensor.id(), Date.from(reading.updatedAt().toInstant()), reading.temperature()))
+                        .toList(), (first, second) -> first));
     }
-}
+}
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.skomi.pilot.shared.service.UserService;
 import org.skomi.pilot.ui.model.DiagramDTO;
 import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,12 +34,14 @@ public class DiagramService {
     private final UserPlcRepository userPlcRepository;
 
     /**
-     * Saves or updates diagram data.
+     * Saves or updates diagram data. The weather of new places is fetched in the background, the diagram
+     * is committed together with the queued fetches without waiting for the weather provider.
      *
      * @param userEmail the email of the authenticated user
      * @param diagram       the diagram data to save
      * @return saved DiagramDataDto
      */
+    @Transactional
     public DiagramDTO saveDiagramData(String userEmail, DiagramDTO diagram) {
         // get the user
         User user = userService.findUserByEmail(userEmail)
@@ -0,0 +1,120 @@
+package org.skomi.pilot.ui.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceFetchKind;
+import org.skomi.pilot.shared.model.PlaceFetchTask;
+import org.skomi.pilot.shared.repository.PlaceFetchTaskRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
+import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable queue of weather fetches for places. Saving a diagram only queues the fetches of its new places,
+ * the queue is polled in the background and the fetched data reaches the users over the WebSocket.
+ * <p>
+ * A polled task is leased for {@code place.fetch.lease} and stays queued until its data arrives. A task whose
+ * data does not arrive in time is claimed again, up to {@code place.fetch.max-attempts} times.
+ * <p>
+ * Once a day the history fetches of the places with gaps in their recent history are queued as well.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaceFetchTaskService {
+
+    private static final String GAP_SCAN_JOB = "place-history-gap-scan";
+
+    private final PlaceFetchTaskRepository placeFetchTaskRepository;
+    private final DiagramEventPublisher diagramEventPublisher;
+    private final PlaceHistoryService placeHistoryService;
+    private final LeaseJobRunner leaseJobRunner;
+
+    @Value("${place.fetch.batch-size:50}")
+    private int batchSize;
+
+    @Value("${place.fetch.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${place.fetch.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Queues a fetch of the place, unless the same fetch is already queued.
+     *
+     * @param placeId the id of the place
+     * @param kind    what is to be fetched for the place
+     */
+    public void enqueue(String placeId, PlaceFetchKind kind) {
+        placeFetchTaskRepository.enqueue(placeId, kind.name());
+    }
+
+    /**
+     * Removes the tasks of the places whose data has arrived.
+     *
+     * @param placeIds the ids of the places
+     * @param kind     what has been fetched for the places
+     */
+    public void complete(Collection<String> placeIds, PlaceFetchKind kind) {
+        if (!placeIds.isEmpty()) {
+            placeFetchTaskRepository.complete(placeIds, kind.name());
+        }
+    }
+
+    /**
+     * Claims the due tasks and requests their fetches.
+     */
+    @Scheduled(fixedDelayString = "${place.fetch.poll-delay:PT1S}")
+    public void poll() {
+        List<PlaceFetchTask> tasks = placeFetchTaskRepository.claim(batchSize, lease.toSeconds(), maxAttempts);
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        log.info("Claimed {} place fetch tasks.", tasks.size());
+
+        tasks.stream()
+                .filter(task -> task.getKind() == PlaceFetchKind.HISTORY)
+                .forEach(task -> diagramEventPublisher.requestWeatherDataHistoryForPlace(task.getPlaceId()));
+
+        List<Place> places = tasks.stream()
+                .filter(task -> task.getKind() == PlaceFetchKind.ACTUAL)
+                .map(task -> new Place(task.getPlaceId()))
+                .toList();
+        if (!places.isEmpty()) {
+            diagramEventPublisher.requestWeatherDataForPlaces(places);
+        }
+    }
+
+    /**
+     * Drops the tasks that could not be fetched within the allowed attempts.
+     */
+    @Scheduled(fixedDelayString = "${place.fetch.cleanup-delay:PT10M}")
+    public void dropAbandoned() {
+        int dropped = placeFetchTaskRepository.deleteAbandoned(maxAttempts);
+        if (dropped > 0) {
+            log.warn("Dropped {} place fetch tasks after {} attempts.", dropped, maxAttempts);
+        }
+    }
+
+    /**
+     * Queues the history fetches of the places with gaps in their history, on a single instance.
+     */
+    @Scheduled(cron = "${place.history.gap-scan-cron:0 30 1 * * *}")
+    public void scanHistoryGaps() {
+        leaseJobRunner.submit(GAP_SCAN_JOB, Instant.now(), Duration.ofDays(1), () -> {
+            List<String> placeIds = placeHistoryService.findPlacesWithGaps();
+            placeIds.forEach(placeId -> enqueue(placeId, PlaceFetchKind.HISTORY));
+            log.info("Queued history fetches of {} places with gaps in their history.", placeIds.size());
+        });
+    }
+}
@@ -0,0 +1,160 @@
+package org.skomi.pilot.ui.service;
+
+import lombok.RequiredArgsConstructor;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceRefreshSchedule;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.skomi.pilot.ui.model.PlaceRefreshPlan;
+import org.skomi.pilot.ui.model.PlaceRefreshReason;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the refresh cadence of every place. Places watched by a connected user or with a recent large
+ * temperature change are refreshed more often than the refresh period, places nobody watches and whose
+ * temperature does not move are refreshed less often.
+ * <p>
+ * The plans are stored with the places, so an instance taking over the lease of the refresh job continues them.
+ */
+@Service
+@RequiredArgsConstructor
+public class PlaceRefreshPlanner {
+
+    /**
+     * Ticks never fire at exactly the same millisecond, a place due within this tolerance is refreshed right away.
+     */
+    private static final Duration DUE_TOLERANCE = Duration.ofSeconds(30);
+
+    private final PlaceRepository placeRepository;
+
+    @Value("${sensor.data.refresh.period:PT1H}")
+    private Duration defaultCadence;
+
+    @Value("${sensor.data.refresh.cadence.hot:PT10M}")
+    private Duration hotCadence;
+
+    @Value("${sensor.data.refresh.cadence.cold:PT3H}")
+    private Duration coldCadence;
+
+    @Value("${sensor.data.refresh.volatility.window:PT3H}")
+    private Duration volatilityWindow;
+
+    @Value("${sensor.data.refresh.volatility.volatile-delta:2.0}")
+    private double volatileDelta;
+
+    @Value("${sensor.data.refresh.volatility.flat-delta:0.5}")
+    private double flatDelta;
+
+    /**
+     * Shortens the plans of the watched places, so they are refreshed at the hot cadence from their last refresh.
+     *
+     * @param watchedPlaceIds the ids of places with a sensor owned by a connected user
+     */
+    public void watch(Collection<String> watchedPlaceIds) {
+        if (!watchedPlaceIds.isEmpty()) {
+            placeRepository.watch(watchedPlaceIds, PlaceRefreshReason.WATCHED.name(), hotCadence.toSeconds());
+        }
+    }
+
+    /**
+     * Selects the places that should be refreshed now. These are the places of the current bucket that have
+     * not been planned yet, together with all planned places of any bucket that are due.
+     *
+     * @param bucket      the bucket being refreshed, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     * @param now         the time of the refresh
+     * @return the places to be refreshed
+     */
+    public List<Place> selectDue(int bucket, int bucketCount, Instant now) {
+        return placeRepository.findDueInBucket(bucket, Math.max(bucketCount, 1), toDateTime(now.plus(DUE_TOLERANCE)));
+    }
+
+    /**
+     * Plans the next refresh of the places that are being refreshed now.
+     *
+     * @param placeIds        the ids of the places being refreshed
+     * @param watchedPlaceIds the ids of places with a sensor owned by a connected user
+     * @param deltas          the temperature delta of the places within the volatility window
+     * @param now             the time of the refresh
+     */
+    public void plan(Collection<String> placeIds, Set<String> watchedPlaceIds, Map<String, Double> deltas, Instant now) {
+        Map<PlaceRefreshReason, List<String>> placeIdsByReason = placeIds.stream()
+                .collect(Collectors.groupingBy(placeId ->
+                        resolveReason(watchedPlaceIds.contains(placeId), deltas.get(placeId))));
+        placeIdsByReason.forEach((reason, ids) -> placeRepository.plan(
+                ids, reason.name(), toDateTime(now), toDateTime(now.plus(cadenceOf(reason)))));
+    }
+
+    /**
+     * Returns the beginning of the window in which temperature deltas are evaluated.
+     *
+     * @param now the time of the refresh
+     * @return the beginning of the volatility window
+     */
+    public Instant volatilityWindowStart(Instant now) {
+        return now.minus(volatilityWindow);
+    }
+
+    /**
+     * Returns all current plans ordered by the time they are due.
+     *
+     * @return a list of refresh plans
+     */
+    public List<PlaceRefreshPlan> getPlans() {
+        return placeRepository.findRefreshSchedules().stream()
+                .map(this::toPlan)
+                .toList();
+    }
+
+    /**
+     * Returns the plan of a single place.
+     *
+     * @param placeId the id of the place
+     * @return the plan of the place, if the place has been refreshed already
+     */
+    public Optional<PlaceRefreshPlan> getPlan(String placeId) {
+        return placeRepository.findRefreshSchedule(placeId).map(this::toPlan);
+    }
+
+    private PlaceRefreshPlan toPlan(PlaceRefreshSchedule schedule) {
+        PlaceRefreshReason reason = PlaceRefreshReason.valueOf(schedule.refreshReason());
+        return new PlaceRefreshPlan(schedule.id(), reason, cadenceOf(reason),
+                schedule.lastRefreshAt().toInstant(), schedule.nextDueAt().toInstant());
+    }
+
+    private OffsetDateTime toDateTime(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+
+    private PlaceRefreshReason resolveReason(boolean watched, Double delta) {
+        if (watched) {
+            return PlaceRefreshReason.WATCHED;
+        }
+        if (delta != null && delta >= volatileDelta) {
+            return PlaceRefreshReason.VOLATILE;
+        }
+        if (delta != null && delta < flatDelta) {
+            return PlaceRefreshReason.FLAT;
+        }
+        return PlaceRefreshReason.DEFAULT;
+    }
+
+    private Duration cadenceOf(PlaceRefreshReason reason) {
+        return switch (reason) {
+            case WATCHED, VOLATILE -> hotCadence;
+            case FLAT -> coldCadence;
+            case DEFAULT -> defaultCadence;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.skomi.pilot.ui.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
+import org.skomi.pilot.websocket.service.WebSocketMessageService;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Refreshes weather data of places bucket by bucket and records the size and duration of every bucket.
+ * Which places are actually refreshed is decided by the {@link PlaceRefreshPlanner}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaceRefreshService {
+
+    private static final String BUCKET_TAG = "bucket";
+
+    private final PlaceService placeService;
+    private final PlaceRefreshPlanner placeRefreshPlanner;
+    private final WebSocketMessageService webSocketMessageService;
+    private final DiagramEventPublisher diagramEventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Requests new weather data for the places of the given bucket that are due, together with the due places
+     * of other buckets refreshed at a shorter cadence.
+     *
+     * @param bucket      the bucket to be refreshed, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     */
+    public void refreshBucket(int bucket, int bucketCount) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String bucketTag = String.valueOf(bucket);
+        Instant now = Instant.now();
+
+        int bucketSize = placeService.countInBucket(bucket, bucketCount);
+        meterRegistry.summary("place.refresh.bucket.size", BUCKET_TAG, bucketTag).record(bucketSize);
+
+        Set<String> watchedPlaceIds = placeService.findPlaceIdsOwnedByUsers(webSocketMessageService.getConnectedUsers());
+        placeRefreshPlanner.watch(watchedPlaceIds);
+
+        List<Place> places = placeRefreshPlanner.selectDue(bucket, bucketCount, now);
+        List<String> placeIds = places.stream().map(Place::getId).toList();
+        Map<String, Double> deltas = placeService.findTemperatureDeltas(placeIds, placeRefreshPlanner.volatilityWindowStart(now));
+        placeRefreshPlanner.plan(placeIds, watchedPlaceIds, deltas, now);
+
+        meterRegistry.summary("place.refresh.due.size", BUCKET_TAG, bucketTag).record(places.size());
+        log.info("Updating sensor data of {} due places, {} places in bucket {}/{}.",
+                places.size(), bucketSize, bucket, bucketCount);
+
+        if (!places.isEmpty()) {
+            diagramEventPublisher.requestWeatherDataForPlaces(places);
+        }
+
+        sample.stop(meterRegistry.timer("place.refresh.bucket.duration", BUCKET_TAG, bucketTag));
+    }
+}
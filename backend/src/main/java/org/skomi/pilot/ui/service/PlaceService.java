@@ -2,15 +2,17 @@ package org.skomi.pilot.ui.service;
 
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.model.Place;
-import org.skomi.pilot.shared.model.PlaceHistory;
 import org.skomi.pilot.shared.repository.PlaceRepository;
 import org.skomi.pilot.shared.service.PlaceHistoryService;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -21,39 +23,94 @@ public class PlaceService {
     private final PlaceHistoryService placeHistoryService;
 
     /**
-     * Calculates the average temperature of a given sensor, including the latest recorded temperature
-     * and historical temperatures from its associated sensor history records.
+     * Loads the current average temperature of the given places. The average is kept by the database
+     * from the running sum and count of all temperatures in the place history, so reading it costs
+     * a single query regardless of how much history has accumulated.
      *
-     * @param place the sensor for which the average temperature is to be calculated
-     * @return the average temperature as a Double, or 0.0 if no temperatures are available
+     * @param places the places whose average temperature is to be refreshed
      */
-    public Double countPlaceAvg(Place place) {
-        List<PlaceHistory> sensors = placeHistoryService.findAllById(place.getId());
-        Set<Double> sensorTemps = sensors.stream().map(PlaceHistory::getTemperature).collect(java.util.stream.Collectors.toSet());
-        sensorTemps.add(place.getTemperature());
+    public void refreshAverageTemperatures(List<Place> places) {
+        if (places.isEmpty()) {
+            return;
+        }
+        Map<String, Double> averages = new HashMap<>();
+        placeRepository.findAllById(places.stream().map(Place::getId).toList())
+                .forEach(place -> averages.put(place.getId(), place.getAverageTemperature()));
+        places.forEach(place -> place.setAverageTemperature(averages.get(place.getId())));
+    }
 
-        double average = sensorTemps.stream()
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
 
-        return BigDecimal.valueOf(average)
-                .setScale(2, RoundingMode.HALF_UP)
-                .doubleValue();
+    /**
+     * Saves the fetched weather data of the places and records it in their history. Places and their history
+     * records are written by one statement, so a refresh never leaves them out of sync.
+     *
+     * @param places the places with fetched weather data
+     */
+    public void saveWeather(List<Place> places) {
+        placeRepository.saveWeather(places);
     }
 
-
     /**
-     * Saves all the provided Place entities to the repository.
+     * Marks the places whose weather could not be fetched as stale and loads their last known weather data.
      *
-     * @param places the list of Place entities to be saved
+     * @param places the places whose weather could not be fetched
+     * @return the places as stored, with their last known weather data
      */
-    public void saveAll(List<Place> places) {
-        placeRepository.saveAll(places);
+    public List<Place> markStale(List<Place> places) {
+        if (places.isEmpty()) {
+            return List.of();
+        }
+        List<String> placeIds = places.stream().map(Place::getId).toList();
+        placeRepository.markStale(placeIds);
+        return findAllById(placeIds);
     }
 
     public List<Place> findAll() {
         return (List<Place>) placeRepository.findAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts the places assigned to the given refresh bucket.
+     *
+     * @param bucket      the bucket to count, from {@code 0} to {@code bucketCount - 1}
+     * @param bucketCount the number of buckets the places are split into
+     * @return the number of places in the bucket
+     */
+    public int countInBucket(int bucket, int bucketCount) {
+        return placeRepository.countInBucket(bucket, Math.max(bucketCount, 1));
+    }
+
+    /**
+     * Retrieves the places with the given ids.
+     *
+     * @param placeIds the ids of the places
+     * @return a list of the places found
+     */
+    public List<Place> findAllById(Collection<String> placeIds) {
+        return (List<Place>) placeRepository.findAllById(placeIds);
+    }
+
+    /**
+     * Retrieves the ids of all places with a sensor owned by any of the given users.
+     *
+     * @param userEmails the emails of the users
+     * @return a set of place ids
+     */
+    public Set<String> findPlaceIdsOwnedByUsers(Collection<String> userEmails) {
+        if (userEmails.isEmpty()) {
+            return Set.of();
+        }
+        return Set.copyOf(placeRepository.findPlaceIdsOwnedByUsers(userEmails));
+    }
+
+    /**
+     * Finds the difference between the highest and the lowest temperature of each place since the given time.
+     *
+     * @param placeIds the ids of the places
+     * @param since    the beginning of the time window
+     * @return a map of place ids to their temperature deltas
+     */
+    public Map<String, Double> findTemperatureDeltas(Collection<String> placeIds, Instant since) {
+        return placeHistoryService.findTemperatureDeltas(placeIds, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+    }
+}
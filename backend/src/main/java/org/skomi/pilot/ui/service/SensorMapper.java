@@ -2,10 +2,13 @@ package org.skomi.pilot.ui.service;
 
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.model.Sensor;
+import org.skomi.pilot.shared.service.PlaceRegistry;
 import org.skomi.pilot.ui.model.SensorDTO;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -16,18 +19,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SensorMapper {
 
+    private final PlaceRegistry placeRegistry;
+
     /**
-     * Maps a list of SensorDTO to a list of Sensor entities.
+     * Maps a list of SensorDTO to a list of Sensor entities. The entered place names are resolved
+     * to their canonical places.
      *
      * @param sensorDtos the list of SensorDTOs to map
      * @return a list of mapped Sensor entities
      */
     List<Sensor> mapToSensors(List<SensorDTO> sensorDtos) {
+        Map<String, String> placeIds = placeRegistry.resolveAll(
+                sensorDtos.stream().map(SensorDTO::place).filter(Objects::nonNull).toList());
         return sensorDtos.stream()
                 .map(dto -> {
                     Sensor sensor = new Sensor();
                     sensor.setId(dto.id() != null ? dto.id() : UUID.randomUUID());
-                    sensor.setPlaceId(dto.place());
+                    sensor.setPlaceId(dto.place() != null ? placeIds.get(dto.place()) : null);
                     return sensor;
                 })
                 .collect(Collectors.toList());
@@ -2,10 +2,11 @@ package org.skomi.pilot.ui.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceFetchKind;
 import org.skomi.pilot.shared.model.Sensor;
 import org.skomi.pilot.shared.model.SensorWithData;
 import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.skomi.pilot.shared.service.PlaceRegistry;
 import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -16,14 +17,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SensorProcessor {
 
-    private final PlaceService placeService;
     private final PlaceRepository placeRepository;
+    private final PlaceFetchTaskService placeFetchTaskService;
+    private final PlaceRegistry placeRegistry;
     private final DiagramEventPublisher diagramEventPublisher;
 
     /**
      * Processes the given sensor by retrieving or updating data for its associated place.
      * If the place data exists, it populates the returned SensorWithData object with the current conditions.
-     * Otherwise, it creates a new place record and requests updated data for the place.
+     * Otherwise, it creates a new place record and queues fetches of its data, which reach the user over
+     * the WebSocket once fetched.
      *
      * @param sensor the sensor whose associated data and place are to be processed
      * @return a SensorWithData object containing the sensor's ID, place, temperature, condition, and average temperature
@@ -39,19 +42,22 @@ public class SensorProcessor {
                 place -> {
                     sensorWithData.setTemperature(place.getTemperature());
                     sensorWithData.setCondition(place.getCondition());
-                    sensorWithData.setAverageTemperature(placeService.countPlaceAvg(place));
+                    sensorWithData.setAverageTemperature(place.getAverageTemperature());
+                    sensorWithData.setUpdatedAt(place.getUpdatedAt());
+                    sensorWithData.setStale(place.isStale());
                 },
                 // else create new place
                 // new created sensors are not included in immediate response
                 // new created sensors will be sent to user when data is ready
                 () -> {
                     placeRepository.upsert(sensor.getPlaceId());
+                    placeRegistry.register(sensor.getPlaceId());
 
                     // need to fill last 10 temperatures from history
-                    callForNewPlaceHistoryData(sensor.getPlaceId());
+                    placeFetchTaskService.enqueue(sensor.getPlaceId(), PlaceFetchKind.HISTORY);
 
                     // set as waiting for new data it will be sent when received
-                    callForNewPlaceData(sensor);
+                    placeFetchTaskService.enqueue(sensor.getPlaceId(), PlaceFetchKind.ACTUAL);
                 }
         );
 
@@ -60,25 +66,20 @@ public class SensorProcessor {
     }
 
     /**
-     * Requests new weather data for the specified sensor's associated place.
+     * Prefetches the weather data of a place picked in the city search, so it is ready once a sensor is placed
+     * there. A place already known is left as it is, otherwise its weather data is fetched into the weather caches
+     * only. The place itself is created once a sensor is placed there, so searching alone never adds a place
+     * to the refresh.
      *
-     * @param sensor the sensor whose associated place requires new weather data
+     * @param placeName the name of the picked place
      */
-    private void callForNewPlaceData(Sensor sensor) {
-        Place place = new Place(sensor.getPlaceId());
+    public void prefetchPlace(String placeName) {
+        String placeId = placeRegistry.resolveAll(List.of(placeName)).get(placeName);
+        if (placeId == null || placeId.isEmpty() || placeRepository.existsById(placeId)) {
+            return;
+        }
 
-        log.info("Call for places new weather data: {}.", place);
-        diagramEventPublisher.requestWeatherDataForPlaces(List.of(place));
-    }
-
-    /**
-     * Requests historical weather data for a specified place.
-     *
-     * @param placeId the unique identifier of the place for which historical weather data is requested
-     */
-    private void callForNewPlaceHistoryData(String placeId) {
-
-        log.info("Call for places new weather history data: {}.", placeId);
-        diagramEventPublisher.requestWeatherDataHistoryForPlace(placeId);
+        diagramEventPublisher.requestWeatherPrefetchForPlace(placeId);
+        log.info("Prefetching weather data of place {}.", placeId);
     }
 }
@@ -5,10 +5,10 @@ import org.skomi.pilot.shared.model.ConnectedPlcDTO;
 import org.skomi.pilot.shared.model.SensorWithData;
 import org.skomi.pilot.shared.model.User;
 import org.skomi.pilot.shared.model.UserSensor;
-import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
 import org.skomi.pilot.shared.repository.PlcRepository;
 import org.skomi.pilot.shared.repository.SensorRepository;
 import org.skomi.pilot.shared.repository.UserSensorRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
 import org.skomi.pilot.shared.service.UserService;
 import org.skomi.pilot.ui.model.SensorTableResponse;
 import org.skomi.pilot.ui.model.TableResponse;
@@ -17,7 +17,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,11 +27,13 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class SensorTableService {
 
+    private static final int LATEST_RECORDS = 10;
+
     private final UserSensorRepository userSensorRepository;
     private final UserService userService;
     private final SensorRepository sensorRepository;
     private final PlcRepository plcRepository;
-    private final PlaceHistoryRepository placeHistoryRepository;
+    private final PlaceHistoryService placeHistoryService;
 
     /**
      * Retrieves a paginated list of sensors associated with a specific user identified by their email.
@@ -49,11 +53,13 @@ public class SensorTableService {
         sensorIds = sensorIds.isEmpty() ? List.of(UUID.fromString("00000000-0000-0000-0000-000000000000")) : sensorIds;
         List<SensorWithData> sensors = sensorRepository.findAllWithDataById(sensorIds);
         TableResponse<SensorTableResponse> response = new TableResponse<>();
+        Map<String, List<TemperatureRecordDTO>> temperatureRecords =
+                getLastTenTemperatureRecords(sensors.stream().map(SensorWithData::getPlace).toList());
 
         List<SensorTableResponse> sensorTableData = sensors.stream().map(sensor -> new SensorTableResponse(
                 sensor,
                 getConnectedPlcs(user.get().getId(), sensor.getId()),
-                getLastTenTemperatureRecords(sensor.getPlace())
+                temperatureRecords.getOrDefault(sensor.getPlace(), List.of())
         )).toList();
 
         response.setSize(userSensors.getSize());
@@ -75,17 +81,20 @@ public class SensorTableService {
     }
 
     /**
-     * Retrieves the last ten temperature records for a specific sensor.
+     * Retrieves the last ten temperature records of each of the places, fetched at once for all of them.
      *
-     * @param placeId the unique identifier of the sensor for which the last ten temperature records are to be retrieved
-     * @return a list of {@code TemperatureRecordDTO} containing the temperature values and their corresponding timestamps
+     * @param placeIds the ids of the places of the sensors
+     * @return a map of place ids to {@code TemperatureRecordDTO} lists containing the temperature values and their
+     * corresponding timestamps, the newest first
      */
-    public List<TemperatureRecordDTO> getLastTenTemperatureRecords(String placeId) {
-        return placeHistoryRepository
-                .findLatest10BySensorId(placeId)
-                .stream()
-                .filter(history -> history.getTemperature() != null)
-                .map(history -> new TemperatureRecordDTO(history.getTemperature(), history.getUpdatedAt().toInstant()))
-                .toList();
+    public Map<String, List<TemperatureRecordDTO>> getLastTenTemperatureRecords(List<String> placeIds) {
+        Map<String, List<TemperatureRecordDTO>> records = new HashMap<>();
+        placeHistoryService.findLatestReadings(placeIds, LATEST_RECORDS).forEach((placeId, readings) ->
+                records.put(placeId, readings.stream()
+                        .filter(reading -> reading.temperature() != null)
+                        .map(reading -> new TemperatureRecordDTO(reading.temperature(),
+                                reading.updatedAt().toInstant()))
+                        .toList()));
+        return records;
     }
 }
\ No newline at end of file
@@ -53,6 +53,9 @@ public class SensorUpdateDistributor {
 
         List<Sensor> sensorsOnPlace = sensorRepository.findByPlace(place.getId());
         List<UUID> sensorIds = sensorsOnPlace.stream().map(Sensor::getId).toList();
+        if (sensorIds.isEmpty()) {
+            return;
+        }
 
         List<UserSensor> userSensors = userSensorRepository.findAllBySensorIds(sensorIds);
         Map<UUID, List<SensorWithData>> userSensorsMap = userSensors.stream()
@@ -62,7 +65,9 @@ public class SensorUpdateDistributor {
                                 place.getId(),
                                 place.getTemperature(),
                                 place.getAverageTemperature(),
-                                place.getCondition()), Collectors.toList())
+                                place.getCondition(),
+                                place.getUpdatedAt(),
+                                place.isStale()), Collectors.toList())
                 ));
 
         userSensorsMap.keySet().forEach(userEmail ->
@@ -1,5 +1,7 @@
 package org.skomi.pilot.weatherapi.config;
 
+import org.skomi.pilot.shared.service.OutboundHttpClientFactory;
+import org.skomi.pilot.weatherapi.service.WeatherStandIn;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -7,8 +9,17 @@ import org.springframework.web.client.RestTemplate;
 @Configuration
 public class RestTemplateConfig {
 
+    /**
+     * RestTemplate of the weather provider calls, sent over the pooled connections of the {@code weatherapi} target.
+     * Unless the provider is called live, its calls are answered or recorded by the stand-in, still timed as
+     * outbound calls.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(OutboundHttpClientFactory outboundHttpClientFactory, WeatherStandIn weatherStandIn) {
+        RestTemplate restTemplate = outboundHttpClientFactory.restTemplate("weatherapi");
+        if (weatherStandIn.getMode() != WeatherStandIn.Mode.LIVE) {
+            restTemplate.getInterceptors().add(weatherStandIn);
+        }
+        return restTemplate;
     }
 }
@@ -0,0 +1,30 @@
+package org.skomi.pilot.weatherapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Bulk weather request listing several locations")
+public class BulkWeatherRequestDto {
+    @Schema(description = "Locations to fetch the weather for")
+    private List<Location> locations;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Location {
+        @Schema(description = "Query of the location", example = "Prague")
+        private String q;
+
+        @JsonProperty("custom_id")
+        @Schema(description = "Identifier returned with the result of the location", example = "0")
+        private String customId;
+    }
+}
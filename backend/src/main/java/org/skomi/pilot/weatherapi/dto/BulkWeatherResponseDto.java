@@ -0,0 +1,48 @@
+package org.skomi.pilot.weatherapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Bulk weather response with a result for every requested location")
+public class BulkWeatherResponseDto {
+    @Schema(description = "Results of the requested locations")
+    private List<Item> bulk;
+
+    @Data
+    public static class Item {
+        @Schema(description = "Result of a single location")
+        private Query query;
+    }
+
+    @Data
+    public static class Query {
+        @JsonAlias("custom_id")
+        @Schema(description = "Identifier sent with the location", example = "0")
+        private String customId;
+
+        @Schema(description = "Query of the location", example = "Prague")
+        private String q;
+
+        @Schema(description = "Location details, missing when the location was not found")
+        private LocationDto location;
+
+        @Schema(description = "Current weather conditions, missing when the location was not found")
+        private CurrentWeatherDto current;
+
+        @Schema(description = "Error of the location, present when the location was not found")
+        private Error error;
+    }
+
+    @Data
+    public static class Error {
+        @Schema(description = "Error code", example = "1006")
+        private Integer code;
+
+        @Schema(description = "Error message", example = "No matching location found.")
+        private String message;
+    }
+}
@@ -7,9 +7,11 @@ import lombok.Data;
 @Data
 @Schema(description = "Current weather conditions")
 public class CurrentWeatherDto {
+    @JsonAlias("last_updated_epoch")
     @Schema(description = "Last update time in epoch format")
     private Long lastUpdatedEpoch;
 
+    @JsonAlias("last_updated")
     @Schema(description = "Last update time in readable format", example = "2025-03-15 13:00")
     private String lastUpdated;
 
@@ -1,20 +1,27 @@
 package org.skomi.pilot.weatherapi.listener;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.event.DurableEventListener;
 import org.skomi.pilot.shared.event.GetPlaceWeatherDataEvent;
 import org.skomi.pilot.shared.event.GetPlaceWeatherDataHistoryEvent;
+import org.skomi.pilot.shared.event.PlaceWeatherPrefetchEvent;
 import org.skomi.pilot.shared.model.Place;
-import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
+import org.skomi.pilot.shared.pipeline.PipelineStage;
+import org.skomi.pilot.shared.pipeline.PipelineStageFactory;
 import org.skomi.pilot.weatherapi.publisher.WeatherApiEventPublisher;
 import org.skomi.pilot.weatherapi.service.RestWeatherService;
+import org.skomi.pilot.weatherapi.service.SingleFlightRegistry;
+import org.skomi.pilot.weatherapi.service.WeatherFetchService;
+import org.skomi.pilot.weatherapi.service.WeatherHistoryService;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
@@ -22,55 +29,117 @@ import java.util.List;
 public class WeatherApiEventListener {
 
     private final WeatherApiEventPublisher weatherApiEventPublisher;
+    private final WeatherHistoryService weatherHistoryService;
+    private final PlaceHistoryService placeHistoryService;
+    private final WeatherFetchService weatherFetchService;
+    private final PipelineStageFactory pipelineStageFactory;
+    private final SingleFlightRegistry singleFlightRegistry;
     private final RestWeatherService restWeatherService;
 
+    private PipelineStage<Place> weatherStage;
+    private PipelineStage<String> historyStage;
+    private PipelineStage<String> prefetchStage;
+
+    @PostConstruct
+    void init() {
+        weatherStage = pipelineStageFactory.create("weatherapi", Place::getId, this::fetchWeather);
+        historyStage = pipelineStageFactory.create("weatherapi-history", place -> place,
+                places -> places.forEach(this::fetchWeatherHistory));
+        prefetchStage = pipelineStageFactory.create("weatherapi-prefetch", place -> place,
+                places -> places.forEach(this::prefetchWeather));
+    }
+
     /**
-     * Handles the `GetPlaceWeatherDataEvent` by fetching weather data for a list of places
-     * and publishing an event with updated weather data for those places.
+     * Handles the `GetPlaceWeatherDataEvent` by queueing the places to the weather stage, which fetches
+     * their weather data and publishes an event with the updated places. Places already queued or being
+     * fetched are not queued again, the pending fetch delivers their weather data. Returns once the weather data
+     * of all places has been published, so the request is delivered again if the application stops before.
      *
      * @param event the event containing a list of places for which weather data needs to be retrieved
      */
-    @EventListener
-    private void handleWeatherRequestEvent(GetPlaceWeatherDataEvent event) {
-        List<Place> placesWithWeatherData = new ArrayList<>();
+    @DurableEventListener
+    public void handleWeatherRequestEvent(GetPlaceWeatherDataEvent event) {
+        CompletableFuture.allOf(event.getPlaces().stream()
+                        .map(place -> singleFlightRegistry.join("actual", place.getId(), () -> weatherStage.submit(place))
+                                .result())
+                        .toArray(CompletableFuture[]::new))
+                .join();
+    }
 
-        event.getPlaces().forEach(place -> {
+    /**
+     * Fetches weather data for a micro-batch of places and publishes an event with the updated places.
+     *
+     * @param places the places for which weather data needs to be retrieved
+     */
+    private void fetchWeather(List<Place> places) {
+        List<Place> placesWithWeatherData = weatherFetchService.fetchActualWeather(places);
 
-            try {
-                WeatherApiResponseDto responseDto = restWeatherService.getActualWeather(place.getId());
+        weatherApiEventPublisher.sendWeatherDataEvent(placesWithWeatherData);
+    }
 
-                place.setCondition(responseDto.getCurrent().getCondition().getText());
-                place.setTemperature(responseDto.getCurrent().getTempC());
-                place.setContinent(responseDto.getLocation().getTzId().split("/")[0]);
-            } catch (Exception e) {
+    /**
+     * Handles the `GetPlaceWeatherDataHistoryEvent` by queueing the place to the history stage, which fetches
+     * the hours missing in its history and publishes an event with them.
+     * Requests for a place whose history is already being fetched are dropped, so the history is stored once.
+     *
+     * @param event the event containing the details of the place for which
+     *              historical weather data needs to be retrieved
+     */
+    @DurableEventListener
+    public void handleWeatherHistory(GetPlaceWeatherDataHistoryEvent event) {
+        singleFlightRegistry.join("history", event.getPlace(), () -> historyStage.submit(event.getPlace()))
+                .result()
+                .join();
+    }
 
-                place.setCondition(null);
-                place.setTemperature(null);
-                place.setContinent(null);
-            }
+    /**
+     * Fetches the hourly weather history of the past days missing in the history of a place and publishes an event
+     * with its temperatures. A place without gaps gets an empty, complete event.
+     *
+     * @param place the name of the place
+     */
+    private void fetchWeatherHistory(String place) {
+        List<LocalDate> days = placeHistoryService.findDaysWithGaps(place);
+        if (days.isEmpty()) {
+            weatherApiEventPublisher.sendWeatherDataHistoryEvent(place, List.of(), true);
+            return;
+        }
 
-            placesWithWeatherData.add(place);
+        WeatherHistoryService.History history = weatherHistoryService.getHistory(place, days);
 
-            log.info("Received weather data for place {}, {}", place.getId(), place.getTemperature());
-        });
+        log.info("Received {} hours of weather history for place {} on {} days with gaps, complete: {}",
+                history.hours().size(), place, days.size(), history.complete());
 
-        weatherApiEventPublisher.sendWeatherDataEvent(placesWithWeatherData);
+        weatherApiEventPublisher.sendWeatherDataHistoryEvent(place, history.hours(), history.complete());
     }
 
     /**
-     * Handles the `GetPlaceWeatherDataHistoryEvent` by fetching historical weather data
-     * for a specific place and publishing an event with the temperature data for the specified place.
+     * Handles the `PlaceWeatherPrefetchEvent` by queueing the place to the prefetch stage without waiting for it.
+     * A prefetch not fitting into the queue is dropped, the data is fetched anyway once a sensor is placed there.
      *
-     * @param event the event containing the details of the place for which
-     *              historical weather data needs to be retrieved
+     * @param event the event containing the name of the place to prefetch
      */
     @EventListener
-    private void handleWeatherHistory(GetPlaceWeatherDataHistoryEvent event) {
-        String yesterday = LocalDate.now().minusDays(1).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        List<Double> temperatures = restWeatherService.getHistoricalTemperatures(event.getPlace(), yesterday);
+    public void handleWeatherPrefetch(PlaceWeatherPrefetchEvent event) {
+        prefetchStage.submit(event.getPlace());
+    }
 
-        log.info("Received weather history for place {}, {}", event.getPlace(), temperatures);
+    /**
+     * Fetches the actual weather and the history of the past days of a place into the caches, without publishing
+     * them, as the place is not stored yet.
+     *
+     * @param place the name of the place
+     */
+    private void prefetchWeather(String place) {
+        try {
+            restWeatherService.getActualWeather(place);
+        } catch (RuntimeException e) {
+            log.info("Weather data of place {} not prefetched: {}", place, e.getMessage());
+        }
 
-        weatherApiEventPublisher.sendWeatherDataHistoryEvent(temperatures, event.getPlace());
+        List<LocalDate> days = placeHistoryService.findDaysWithGaps(place);
+        WeatherHistoryService.History history = weatherHistoryService.getHistory(place, days);
+        log.info("Prefetched {} hours of weather history for place {}, complete: {}",
+                history.hours().size(), place, history.complete());
     }
 }
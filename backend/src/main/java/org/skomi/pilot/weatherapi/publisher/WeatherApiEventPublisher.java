@@ -4,8 +4,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.shared.event.PlaceActualWeatherDataEvent;
 import org.skomi.pilot.shared.event.PlaceWeatherDataHistoryEvent;
+import org.skomi.pilot.shared.model.HourlyTemperature;
 import org.skomi.pilot.shared.model.Place;
-import org.springframework.context.ApplicationEventPublisher;
+import org.skomi.pilot.shared.publisher.DurableEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,29 +16,30 @@ import java.util.List;
 @RequiredArgsConstructor
 public class WeatherApiEventPublisher {
 
-    private final ApplicationEventPublisher applicationEventPublisher;
+    private final DurableEventPublisher durableEventPublisher;
 
     /**
      * Publishes an event containing the weather data of the specified places.
      * The event is created using the provided list of `Place` objects and
-     * dispatched using the `ApplicationEventPublisher`.
+     * published durably using the `DurableEventPublisher`.
      *
      * @param sensors the list of places for which the weather data is included in the event
      */
     public void sendWeatherDataEvent(List<Place> sensors) {
-        PlaceActualWeatherDataEvent event = new PlaceActualWeatherDataEvent(this, sensors);
-        applicationEventPublisher.publishEvent(event);
+        PlaceActualWeatherDataEvent event = new PlaceActualWeatherDataEvent(sensors);
+        durableEventPublisher.publish(event);
     }
 
     /**
      * Publishes an event containing the historical weather data for a specific place.
-     * The event includes a list of temperature values and the name of the place.
+     * The event includes the hourly temperatures with their times and the name of the place.
      *
-     * @param temperatures the list of temperature values representing the historical weather data
-     * @param place the name of the place for which the historical weather data is being published
+     * @param place    the name of the place for which the historical weather data is being published
+     * @param hours    the hourly temperatures filling the gaps in the history of the place
+     * @param complete whether the hours of all days with gaps were received
      */
-    public void sendWeatherDataHistoryEvent(List<Double> temperatures, String place) {
-        PlaceWeatherDataHistoryEvent event = new PlaceWeatherDataHistoryEvent(this, place, temperatures);
-        applicationEventPublisher.publishEvent(event);
+    public void sendWeatherDataHistoryEvent(String place, List<HourlyTemperature> hours, boolean complete) {
+        PlaceWeatherDataHistoryEvent event = new PlaceWeatherDataHistoryEvent(place, hours, complete);
+        durableEventPublisher.publish(event);
     }
 }
@@ -1,21 +1,38 @@
 package org.skomi.pilot.weatherapi.service;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.bulkhead.Bulkhead;
+import org.skomi.pilot.shared.bulkhead.BulkheadRegistry;
+import org.skomi.pilot.shared.exception.BulkheadRejectedException;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
+/**
+ * Calls the weather provider. Every call runs in the {@code weatherapi} bulkhead, a call rejected by the bulkhead
+ * is rethrown as {@link BulkheadRejectedException}, other errors as {@link RestClientException}.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RestTemplateService {
 
     private final RestTemplate restTemplate;
+    private final BulkheadRegistry bulkheadRegistry;
+    private Bulkhead bulkhead;
+
+    @PostConstruct
+    void init() {
+        bulkhead = bulkheadRegistry.get("weatherapi");
+    }
 
     /**
      * Makes a POST request with a generic request body and returns a generic response
@@ -49,17 +66,19 @@ public class RestTemplateService {
         log.debug("Request body: {}", requestBody);
 
         try {
-            ResponseEntity<R> response = restTemplate.exchange(
+            ResponseEntity<R> response = bulkhead.call(() -> restTemplate.exchange(
                     builder.toUriString(),
                     HttpMethod.POST,
                     requestEntity,
                     responseType
-            );
+            ));
 
             log.debug("Response status: {}", response.getStatusCode());
             log.debug("Response body: {}", response.getBody());
 
             return response.getBody();
+        } catch (BulkheadRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error making POST request to {}: {}", url, e.getMessage(), e);
             throw new RestClientException("Failed to make POST request", e);
@@ -98,14 +117,16 @@ public class RestTemplateService {
         HttpEntity<T> requestEntity = new HttpEntity<>(requestBody, requestHeaders);
 
         try {
-            ResponseEntity<R> response = restTemplate.exchange(
+            ResponseEntity<R> response = bulkhead.call(() -> restTemplate.exchange(
                     builder.toUriString(),
                     HttpMethod.POST,
                     requestEntity,
                     responseType
-            );
+            ));
 
             return response.getBody();
+        } catch (BulkheadRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error making POST request to {}: {}", url, e.getMessage(), e);
             throw new RestClientException("Failed to make POST request", e);
@@ -143,22 +164,98 @@ public class RestTemplateService {
         String uriString = builder.toUriString();
 
         try {
-            ResponseEntity<R> response = restTemplate.exchange(
+            ResponseEntity<R> response = bulkhead.call(() -> restTemplate.exchange(
                     uriString,
                     HttpMethod.GET,
                     requestEntity,
                     responseType
-            );
+            ));
 
-            log.info("GET request: {}", builder.toUriString());
-            log.info("GET response: {}", response.getBody());
+            log.debug("GET request to {} returned {}", url, response.getStatusCode());
             return response.getBody();
+        } catch (BulkheadRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error making GET request to {}: {}", url, e.getMessage(), e);
             throw new RestClientException("Failed to make GET request", e);
         }
     }
 
+    /**
+     * Makes a GET request and reads the response body as it streams in, without binding it first
+     *
+     * @param url         The URL to send the request to
+     * @param reader      The reader of the response body
+     * @param headers     Optional additional headers
+     * @param queryParams Optional query parameters
+     * @param <R>         The type of the response
+     * @return The response object
+     */
+    public <R> R get(String url,
+                    BodyReader<R> reader,
+                    HttpHeaders headers,
+                    Map<String, String> queryParams) {
+
+        HttpHeaders requestHeaders = headers != null ? headers : new HttpHeaders();
+        return execute(url, HttpMethod.GET, new HttpEntity<>(requestHeaders), reader, queryParams);
+    }
+
+    /**
+     * Makes a POST request with a generic request body and reads the response body as it streams in
+     *
+     * @param url         The URL to send the request to
+     * @param requestBody The request body object
+     * @param reader      The reader of the response body
+     * @param headers     Optional additional headers
+     * @param queryParams Optional query parameters
+     * @param <T>         The type of the request body
+     * @param <R>         The type of the response
+     * @return The response object
+     */
+    public <T, R> R post(String url,
+                        T requestBody,
+                        BodyReader<R> reader,
+                        HttpHeaders headers,
+                        Map<String, String> queryParams) {
+
+        HttpEntity<T> requestEntity = new HttpEntity<>(requestBody, getHttpHeaders(headers));
+        return execute(url, HttpMethod.POST, requestEntity, reader, queryParams);
+    }
+
+    private <R> R execute(String url,
+                          HttpMethod method,
+                          HttpEntity<?> requestEntity,
+                          BodyReader<R> reader,
+                          Map<String, String> queryParams) {
+
+        UriComponentsBuilder builder = getUriComponentsBuilder(url, queryParams);
+        log.debug("Making {} request to: {}", method, url);
+
+        try {
+            return bulkhead.call(() -> restTemplate.execute(
+                    builder.toUriString(),
+                    method,
+                    restTemplate.httpEntityCallback(requestEntity),
+                    response -> reader.read(response.getBody())
+            ));
+        } catch (BulkheadRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error making {} request to {}: {}", method, url, e.getMessage(), e);
+            throw new RestClientException("Failed to make " + method + " request", e);
+        }
+    }
+
+    /**
+     * Reader of a response body, reading it as it streams in
+     *
+     * @param <R> The type of the response
+     */
+    @FunctionalInterface
+    public interface BodyReader<R> {
+        R read(InputStream body) throws IOException;
+    }
+
     /**
      * Custom exception for REST client errors
      */
@@ -1,8 +1,11 @@
 package org.skomi.pilot.weatherapi.service;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.skomi.pilot.weatherapi.dto.HistoricalWeatherResponseDto;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherRequestDto;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherResponseDto;
 import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +13,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
 import java.text.Normalizer;
+import java.time.LocalDate;
 import java.util.*;
 
 @Slf4j
@@ -18,37 +22,137 @@ import java.util.*;
 public class RestWeatherService {
 
     private final RestTemplateService restTemplateService;
+    private final WeatherCircuitBreaker weatherCircuitBreaker;
+    private final WeatherResponseCache weatherResponseCache;
+    private final WeatherProviderClient weatherProviderClient;
+    private final WeatherResponseParser weatherResponseParser;
 
-    @Value("${weatherapi.key:noKey}")
-    private String apiKey;
-
-    @Value("${weatherapi.base-url:https://api.weatherapi.com/v1}")
-    private String baseUrl;
+    @Getter
+    @Value("${weatherapi.bulk.batch-size:50}")
+    private int bulkBatchSize;
 
     /**
-     * Fetches the current weather information for the specified city.
+     * Fetches the current weather information for the specified city. A response cached by this or another
+     * instance is returned without calling the provider until the provider publishes its next update.
      *
      * @param city The name of the city for which the current weather data is to be fetched.
      * @return A WeatherApiResponseDto object containing the place details and current weather conditions.
+     * @throws WeatherProviderUnavailableException if the circuit of the weather provider is open
      */
     public WeatherApiResponseDto getActualWeather(String city) {
-        String url = baseUrl + "/current.json";
-
-        // Set up query parameters
-        Map<String, String> queryParams = new HashMap<>();
-        queryParams.put("q", stripAccents(city));
-        queryParams.put("key", apiKey);
+        return weatherResponseCache.get(city, () -> fetchActualWeather(city));
+    }
 
+    private WeatherApiResponseDto fetchActualWeather(String city) {
         // Set up headers
         HttpHeaders headers = new HttpHeaders();
         headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
 
-        return restTemplateService.get(
-                url,
-                WeatherApiResponseDto.class,
-                headers,
-                queryParams
-        );
+        return weatherCircuitBreaker.execute(() -> weatherProviderClient.call("current", provider -> {
+            // Set up query parameters
+            Map<String, String> queryParams = new HashMap<>();
+            queryParams.put("q", stripAccents(city));
+            queryParams.put("key", provider.apiKey());
+
+            return restTemplateService.get(
+                    provider.baseUrl() + "/current.json",
+                    weatherResponseParser::parseCurrent,
+                    headers,
+                    queryParams
+            );
+        }));
+    }
+
+    /**
+     * Fetches the current weather information for several cities using bulk requests. The cities are split
+     * into batches of at most {@code weatherapi.bulk.batch-size} locations, one request per batch. Only cities
+     * without a cached response are requested.
+     *
+     * @param cities the names of the cities for which the current weather data is to be fetched
+     * @return a map of city names to their weather data, cities the provider could not resolve are omitted
+     */
+    public Map<String, WeatherApiResponseDto> getActualWeatherBulk(List<String> cities) {
+        return weatherResponseCache.getAll(cities, this::fetchActualWeatherBulk);
+    }
+
+    private Map<String, WeatherApiResponseDto> fetchActualWeatherBulk(List<String> cities) {
+        Map<String, WeatherApiResponseDto> weather = new HashMap<>();
+        for (int from = 0; from < cities.size(); from += bulkBatchSize) {
+            weather.putAll(getActualWeatherBatch(cities.subList(from, Math.min(from + bulkBatchSize, cities.size()))));
+        }
+        return weather;
+    }
+
+    /**
+     * Fetches the current weather information for a single batch of cities. Every location is sent with
+     * its index in the batch as custom id, which is used to match the results back to the cities.
+     *
+     * @param cities the names of the cities in the batch
+     * @return a map of city names to their weather data
+     */
+    private Map<String, WeatherApiResponseDto> getActualWeatherBatch(List<String> cities) {
+        List<BulkWeatherRequestDto.Location> locations = new ArrayList<>();
+        for (int i = 0; i < cities.size(); i++) {
+            locations.add(new BulkWeatherRequestDto.Location(stripAccents(cities.get(i)), String.valueOf(i)));
+        }
+
+        BulkWeatherResponseDto response = weatherCircuitBreaker.execute(() -> weatherProviderClient.call("bulk",
+                provider -> {
+                    // Set up query parameters
+                    Map<String, String> queryParams = new HashMap<>();
+                    queryParams.put("q", "bulk");
+                    queryParams.put("key", provider.apiKey());
+
+                    // Set up headers, a hedged call sends its own
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+
+                    return restTemplateService.post(
+                            provider.baseUrl() + "/current.json",
+                            new BulkWeatherRequestDto(locations),
+                            weatherResponseParser::parseBulk,
+                            headers,
+                            queryParams
+                    );
+                }));
+
+        Map<String, WeatherApiResponseDto> weather = new HashMap<>();
+        if (response == null || response.getBulk() == null) {
+            return weather;
+        }
+
+        response.getBulk().stream()
+                .map(BulkWeatherResponseDto.Item::getQuery)
+                .filter(query -> query != null && query.getError() == null && query.getCurrent() != null)
+                .forEach(query -> cityOf(cities, query.getCustomId()).ifPresent(city -> {
+                    WeatherApiResponseDto responseDto = new WeatherApiResponseDto();
+                    responseDto.setLocation(query.getLocation());
+                    responseDto.setCurrent(query.getCurrent());
+                    weather.put(city, responseDto);
+                }));
+        return weather;
+    }
+
+    /**
+     * Matches a result of a bulk request back to its city by the custom id it was sent with. A result with a missing
+     * or unknown custom id is skipped, so the rest of the batch is kept.
+     *
+     * @param cities   the names of the cities in the batch
+     * @param customId the custom id of the result
+     * @return the name of the city, or empty if the custom id does not match any city of the batch
+     */
+    private Optional<String> cityOf(List<String> cities, String customId) {
+        try {
+            int index = Integer.parseInt(String.valueOf(customId));
+            if (index >= 0 && index < cities.size()) {
+                return Optional.of(cities.get(index));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        log.warn("Skipping bulk weather result with unknown custom id {} in a batch of {} cities.", customId,
+                cities.size());
+        return Optional.empty();
     }
 
     /**
@@ -66,51 +170,40 @@ public class RestWeatherService {
 
 
     /**
-     * Fetches historical weather data for a given city on a specified date,
-     * and returns the temperatures for the first 10 hours from the forecast.
+     * Fetches the hourly weather history of a city for a range of days. A range longer than a day is sent as a
+     * single request, which the provider supports on paid plans only.
      *
      * @param city the city name (e.g., Prague)
-     * @param date the date in yyyy-MM-dd format (e.g., 2025-04-17)
-     * @return a list of Double values representing the first 10 hourly temperatures
+     * @param from the first day of the range
+     * @param to   the last day of the range, inclusive
+     * @return a map of the received days to all their hourly temperatures, days the provider did not return are omitted
+     * @throws WeatherProviderUnavailableException if the circuit of the weather provider is open
      */
-    public List<Double> getHistoricalTemperatures(String city, String date) {
-        String url = baseUrl + "/history.json";
-
-        // Set up query parameters
-        Map<String, String> queryParams = new HashMap<>();
-        queryParams.put("q", stripAccents(city));
-        queryParams.put("dt", date);
-        queryParams.put("key", apiKey);
-
+    public Map<LocalDate, List<HourlyTemperature>> getHistoricalHours(String city, LocalDate from, LocalDate to) {
         // Set up headers
         HttpHeaders headers = new HttpHeaders();
         headers.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
 
         // Call the history API endpoint
-        HistoricalWeatherResponseDto response = null;
-        try {
-            response = restTemplateService.get(
-                    url,
-                    HistoricalWeatherResponseDto.class,
-                    headers,
-                    queryParams
-            );
-        } catch (Exception e) {
-            log.error("Error fetching historical weather data for {} on {}. Ignoring.", city, date);
-        }
-
-        List<Double> temperatures = new ArrayList<>();
-        if (response != null &&
-            response.getForecast() != null &&
-            response.getForecast().getForecastday() != null &&
-            !response.getForecast().getForecastday().isEmpty()) {
-
-            List<HistoricalWeatherResponseDto.Hour> hours = response.getForecast().getForecastday().getFirst().getHour();
-            for (int i = 0; i < Math.min(10, hours.size()); i++) {
-                temperatures.add(hours.get(i).getTemp_c());
-            }
-        }
-        return temperatures;
+        Map<LocalDate, List<HourlyTemperature>> days = weatherCircuitBreaker.execute(() -> weatherProviderClient.call("history",
+                provider -> {
+                    // Set up query parameters
+                    Map<String, String> queryParams = new HashMap<>();
+                    queryParams.put("q", stripAccents(city));
+                    queryParams.put("dt", from.toString());
+                    if (to.isAfter(from)) {
+                        queryParams.put("end_dt", to.toString());
+                    }
+                    queryParams.put("key", provider.apiKey());
+
+                    return restTemplateService.get(
+                            provider.baseUrl() + "/history.json",
+                            weatherResponseParser::parseHistory,
+                            headers,
+                            queryParams
+                    );
+                }));
+
+        return days == null ? new TreeMap<>() : days;
     }
-
 }
@@ -0,0 +1,80 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent weather requests. The first request for a key starts the call and becomes the leader,
+ * requests for the same key arriving while the call is in flight attach to its pending result instead of starting
+ * a call of their own. Once the call completes, the next request for the key starts a new one.
+ * <p>
+ * Leaders and coalesced requests are counted by {@code weatherapi.singleflight.requests}, tagged with the kind
+ * of the request and the result, and the number of calls in flight is exposed as {@code weatherapi.singleflight.inflight}.
+ */
+@Service
+public class SingleFlightRegistry {
+
+    private static final String KIND_TAG = "kind";
+    private static final String RESULT_TAG = "result";
+
+    private final Map<String, CompletableFuture<?>> flights = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("weatherapi.singleflight.inflight", flights, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Starts the call for the key, or attaches to the call already in flight for it.
+     *
+     * @param kind the kind of the request, for example {@code actual} or {@code history}
+     * @param key  the key of the request, usually the place id
+     * @param call starts the call and returns its pending result, invoked only by the leader
+     * @param <T>  the type of the result
+     * @return the flight the request has been attached to
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flight<T> join(String kind, String key, Supplier<CompletableFuture<T>> call) {
+        String flightKey = kind + ":" + key;
+        CompletableFuture<T> pending = new CompletableFuture<>();
+
+        CompletableFuture<?> existing = flights.putIfAbsent(flightKey, pending);
+        if (existing != null) {
+            meterRegistry.counter("weatherapi.singleflight.requests", KIND_TAG, kind, RESULT_TAG, "coalesced").increment();
+            return new Flight<>((CompletableFuture<T>) existing, false);
+        }
+
+        meterRegistry.counter("weatherapi.singleflight.requests", KIND_TAG, kind, RESULT_TAG, "leader").increment();
+        try {
+            call.get().whenComplete((result, error) -> {
+                flights.remove(flightKey, pending);
+                if (error != null) {
+                    pending.completeExceptionally(error);
+                } else {
+                    pending.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            flights.remove(flightKey, pending);
+            pending.completeExceptionally(e);
+        }
+        return new Flight<>(pending, true);
+    }
+
+    /**
+     * A request attached to a call.
+     *
+     * @param result the pending result of the call
+     * @param leader {@code true} if the request started the call, {@code false} if it was coalesced
+     * @param <T>    the type of the result
+     */
+    public record Flight<T>(CompletableFuture<T> result, boolean leader) {
+    }
+}
@@ -0,0 +1,203 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates responses of the weather provider for any place without calling it. A place gets a location derived
+ * from a hash of its name, near one of a few regions, and temperatures following the season and the time of day
+ * of that location, so the same place reads the same weather in every run.
+ */
+final class SyntheticWeather {
+
+    private record Region(String tzId, double lat, double lon) {
+    }
+
+    private record Condition(String text, int code) {
+    }
+
+    private record Place(String name, Region region, double lat, double lon, long seed) {
+    }
+
+    private static final List<Region> REGIONS = List.of(
+            new Region("Europe/Prague", 50.1, 14.4),
+            new Region("Europe/London", 51.5, -0.1),
+            new Region("Europe/Madrid", 40.4, -3.7),
+            new Region("America/New_York", 40.7, -74.0),
+            new Region("America/Sao_Paulo", -23.5, -46.6),
+            new Region("Asia/Tokyo", 35.7, 139.7),
+            new Region("Asia/Kolkata", 22.6, 88.4),
+            new Region("Africa/Cairo", 30.0, 31.2),
+            new Region("Australia/Sydney", -33.9, 151.2));
+
+    private static final List<Condition> DRY = List.of(
+            new Condition("Sunny", 1000),
+            new Condition("Partly cloudy", 1003),
+            new Condition("Cloudy", 1006),
+            new Condition("Overcast", 1009));
+
+    private static final Condition RAIN = new Condition("Light rain", 1183);
+    private static final Condition SNOW = new Condition("Light snow", 1213);
+
+    // the provider publishes the current weather every 15 minutes
+    private static final Duration UPDATE_INTERVAL = Duration.ofMinutes(15);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Generates the response of {@code /current.json}.
+     *
+     * @param query the queried place
+     * @param now   the time of the request
+     * @return the response body
+     */
+    byte[] current(String query, Instant now) {
+        Place place = place(query);
+        Instant updated = Instant.ofEpochSecond(now.getEpochSecond()
+                - now.getEpochSecond() % UPDATE_INTERVAL.toSeconds());
+        return write(generator -> {
+            generator.writeStartObject();
+            writeLocation(generator, place, now);
+            generator.writeObjectFieldStart("current");
+            generator.writeNumberField("last_updated_epoch", updated.getEpochSecond());
+            writeWeather(generator, place, updated);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Generates the response of {@code /history.json}, all 24 hours of every day of the range.
+     *
+     * @param query the queried place
+     * @param from  the first day of the range
+     * @param to    the last day of the range, inclusive
+     * @param now   the time of the request
+     * @return the response body
+     */
+    byte[] history(String query, LocalDate from, LocalDate to, Instant now) {
+        Place place = place(query);
+        return write(generator -> {
+            generator.writeStartObject();
+            writeLocation(generator, place, now);
+            generator.writeObjectFieldStart("forecast");
+            generator.writeArrayFieldStart("forecastday");
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                Instant midnight = day.atStartOfDay().toInstant(ZoneOffset.UTC);
+                generator.writeStartObject();
+                generator.writeStringField("date", day.toString());
+                generator.writeNumberField("date_epoch", midnight.getEpochSecond());
+                generator.writeArrayFieldStart("hour");
+                for (int hour = 0; hour < 24; hour++) {
+                    Instant time = midnight.plus(hour, ChronoUnit.HOURS);
+                    generator.writeStartObject();
+                    generator.writeNumberField("time_epoch", time.getEpochSecond());
+                    writeWeather(generator, place, time);
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        });
+    }
+
+    private void writeLocation(JsonGenerator generator, Place place, Instant now) throws IOException {
+        generator.writeObjectFieldStart("location");
+        generator.writeStringField("name", place.name());
+        generator.writeNumberField("lat", place.lat());
+        generator.writeNumberField("lon", place.lon());
+        generator.writeStringField("tz_id", place.region().tzId());
+        generator.writeNumberField("localtime_epoch", now.getEpochSecond());
+        generator.writeEndObject();
+    }
+
+    private void writeWeather(JsonGenerator generator, Place place, Instant time) throws IOException {
+        double temperature = temperature(place, time);
+        Condition condition = condition(place, time, temperature);
+        generator.writeNumberField("temp_c", temperature);
+        generator.writeObjectFieldStart("condition");
+        generator.writeStringField("text", condition.text());
+        generator.writeNumberField("code", condition.code());
+        generator.writeEndObject();
+    }
+
+    private Place place(String query) {
+        String name = query == null || query.isBlank() ? "Unknown" : query.strip();
+        long seed = mix(name.toLowerCase(Locale.ROOT).hashCode());
+        Region region = REGIONS.get((int) Math.floorMod(seed, (long) REGIONS.size()));
+        // places spread within about 3 degrees around the centre of their region
+        double lat = round(region.lat() + (unit(seed, 1) - 0.5) * 6, 2);
+        double lon = round(region.lon() + (unit(seed, 2) - 0.5) * 6, 2);
+        return new Place(name, region, lat, lon, seed);
+    }
+
+    /**
+     * Mean temperature of the latitude, a seasonal swing coldest in late January (July in the south), a daily swing
+     * warmest at 15:00 local solar time and up to a degree of noise per hour.
+     */
+    private double temperature(Place place, Instant time) {
+        long hours = time.getEpochSecond() / 3_600;
+        double dayOfYear = time.atOffset(ZoneOffset.UTC).getDayOfYear();
+        double localHour = Math.floorMod(hours, 24L) + place.lon() / 15;
+        double mean = 28 - 0.45 * Math.abs(place.lat());
+        double season = -Math.cos(2 * Math.PI * (dayOfYear - 20) / 365.25) * Math.signum(place.lat())
+                * 0.25 * Math.abs(place.lat());
+        double day = 5 * Math.sin(2 * Math.PI * (localHour - 9) / 24);
+        double noise = (unit(place.seed(), hours) - 0.5) * 2;
+        return round(mean + season + day + noise, 1);
+    }
+
+    private Condition condition(Place place, Instant time, double temperature) {
+        // the condition changes every 6 hours
+        double chance = unit(place.seed() ^ 0x5DEECE66DL, time.getEpochSecond() / 21_600);
+        if (chance < 0.2) {
+            return temperature < 1 ? SNOW : RAIN;
+        }
+        return DRY.get((int) ((chance - 0.2) / 0.8 * DRY.size()));
+    }
+
+    private byte[] write(JsonWriter writer) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+        try (JsonGenerator generator = jsonFactory.createGenerator(body)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return body.toByteArray();
+    }
+
+    private static double unit(long seed, long index) {
+        return (mix(seed + index * 0x9E3779B97F4A7C15L) >>> 11) * 0x1.0p-53;
+    }
+
+    // the finalizer of SplitMix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static double round(double value, int decimals) {
+        double scale = Math.pow(10, decimals);
+        return Math.round(value * scale) / scale;
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -0,0 +1,170 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.exception.BulkheadRejectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of the weather provider. After {@code weatherapi.circuit.failure-threshold} consecutive
+ * failures the circuit opens and calls are rejected right away for {@code weatherapi.circuit.open-duration}. Then
+ * the circuit becomes half-open and lets a single probe call through, which closes the circuit on success and opens
+ * it again on failure.
+ * <p>
+ * Client errors other than {@code 429 Too Many Requests}, for example an unknown city, prove the provider is
+ * reachable and are not counted as failures. Calls rejected by the bulkhead of the provider never reach it and
+ * neither close nor open the circuit, the bulkhead timeout is longer than the response timeout, so a slow provider
+ * fails its calls by the response timeout first. A call ended by interrupting its thread, because its caller gave up
+ * waiting for it, counts as a single failure.
+ * <p>
+ * The state is exposed as {@code weatherapi.circuit.state} (0 closed, 1 half-open, 2 open), rejected calls are
+ * counted by {@code weatherapi.circuit.rejected}.
+ */
+@Slf4j
+@Service
+public class WeatherCircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private enum Outcome {
+        ANSWERED, FAILED, NOT_REACHED
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weatherapi.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${weatherapi.circuit.open-duration:PT30S}")
+    private Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt = Instant.EPOCH;
+    private boolean probeInFlight;
+
+    public WeatherCircuitBreaker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("weatherapi.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call if the circuit permits it and records its outcome. A call that never reached the provider,
+     * because the bulkhead rejected it or it ended with an error, only frees the probe of a half-open circuit.
+     *
+     * @param call the call to the weather provider
+     * @param <T>  the type of the result
+     * @return the result of the call
+     * @throws WeatherProviderUnavailableException if the circuit is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!tryAcquirePermission()) {
+            throw new WeatherProviderUnavailableException("Weather provider circuit is open.");
+        }
+        Outcome outcome = Outcome.NOT_REACHED;
+        try {
+            T result = call.get();
+            outcome = Outcome.ANSWERED;
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            switch (outcome) {
+                case ANSWERED -> onSuccess();
+                case FAILED -> onFailure();
+                case NOT_REACHED -> releaseProbe();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a call may be made now. A half-open circuit permits a single probe at a time.
+     *
+     * @return {@code true} if the call may be made
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && !Instant.now().isBefore(openedAt.plus(openDuration))) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        meterRegistry.counter("weatherapi.circuit.rejected").increment();
+        return false;
+    }
+
+    /**
+     * Records a call the provider answered, closing a half-open circuit. An open circuit stays open until its probe
+     * is let through.
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a call that did not reach the provider. The probe of a half-open circuit is freed for the next call,
+     * the state and the consecutive failures are kept.
+     */
+    public synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    /**
+     * Records a failed call, opening the circuit after too many consecutive failures or a failed probe.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = Instant.now();
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private Outcome outcomeOf(RuntimeException e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return Outcome.FAILED;
+        }
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof BulkheadRejectedException) {
+                return Outcome.NOT_REACHED;
+            }
+            if (cause instanceof HttpClientErrorException clientError) {
+                return clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                        ? Outcome.FAILED : Outcome.ANSWERED;
+            }
+            cause = cause.getCause();
+        }
+        return Outcome.FAILED;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Weather provider circuit {} -> {} after {} consecutive failures.", state, next, consecutiveFailures);
+        state = next;
+    }
+}
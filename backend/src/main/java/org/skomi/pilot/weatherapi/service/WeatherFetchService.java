@@ -0,0 +1,234 @@
+package org.skomi.pilot.weatherapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.weatherapi.dto.CurrentWeatherDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fetches the actual weather of places. Places are fetched in batches on virtual threads with at most
+ * {@code weatherapi.fetch.max-concurrency} calls in flight across all concurrent fetches, every call limited by
+ * {@code weatherapi.fetch.timeout}. A call given up on by its timeout holds its permit until it really ends, so calls
+ * hanging in the HTTP client never push the calls in flight past its connections.
+ * A batch is a single place, or up to {@code weatherapi.bulk.batch-size} places sent in one bulk request
+ * when {@code weatherapi.bulk.enabled} is set.
+ * <p>
+ * Places whose weather could not be fetched keep their last known weather and are marked as stale. Timed out
+ * calls are interrupted and count once as failures of the {@link WeatherCircuitBreaker}, while its circuit is open
+ * no calls are made.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeatherFetchService {
+
+    private final RestWeatherService restWeatherService;
+
+    /**
+     * Runs the calls themselves. Kept apart from the fetching tasks, so a call that does not react to
+     * interruption never holds up the end of a fetch. Every submitted call runs, so it always releases its permit.
+     */
+    private final ExecutorService callExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${weatherapi.fetch.parallel:true}")
+    private boolean parallel;
+
+    @Value("${weatherapi.fetch.max-concurrency:16}")
+    private int maxConcurrency;
+
+    @Value("${weatherapi.fetch.timeout:PT10S}")
+    private Duration timeout;
+
+    @Value("${weatherapi.bulk.enabled:false}")
+    private boolean bulkEnabled;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Fetches the actual weather of the given places and fills it into them. Places whose weather could not be
+     * fetched keep their weather data and are marked as stale.
+     *
+     * @param places the places to fetch the weather for
+     * @return the same places, in the same order, filled with the weather data
+     */
+    public List<Place> fetchActualWeather(List<Place> places) {
+        List<List<Place>> batches = partition(places, bulkEnabled ? restWeatherService.getBulkBatchSize() : 1);
+
+        if (!parallel || batches.size() <= 1) {
+            batches.forEach(batch -> fillPlaces(batch, fetch(batch)));
+            return places;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            batches.forEach(batch -> executor.submit(() -> fillPlaces(batch, fetchLimited(batch))));
+        }
+        return places;
+    }
+
+    /**
+     * Fetches the weather of a batch of places once a permit is available, waiting at most the configured timeout
+     * for the permit and for the response. The permit is released by the call itself once it ends.
+     *
+     * @param batch the places to fetch the weather for
+     * @return a map of place ids to their weather, empty if it could not be fetched in time
+     */
+    private Map<String, WeatherApiResponseDto> fetchLimited(List<Place> batch) {
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Weather data for places {} not requested, {} calls in flight for {}.",
+                        placeIds(batch), maxConcurrency, timeout);
+                return Map.of();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Map.of();
+        }
+
+        CompletableFuture<Map<String, WeatherApiResponseDto>> call = new CompletableFuture<>();
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        try {
+            callExecutor.execute(() -> {
+                worker.set(Thread.currentThread());
+                try {
+                    call.complete(fetch(batch));
+                } catch (Throwable e) {
+                    call.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        try {
+            return call.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // the interrupted call records its failure in the circuit breaker itself
+            interrupt(worker.get());
+            log.warn("Weather data for places {} not received within {}.", placeIds(batch), timeout);
+        } catch (ExecutionException e) {
+            log.warn("Weather data for places {} not received: {}", placeIds(batch), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            interrupt(worker.get());
+            Thread.currentThread().interrupt();
+        }
+        return Map.of();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        callExecutor.shutdownNow();
+    }
+
+    private void interrupt(Thread worker) {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Fetches the weather of a batch of places, using a bulk request when enabled.
+     *
+     * @param batch the places to fetch the weather for
+     * @return a map of place ids to their weather, places that could not be fetched are omitted
+     */
+    private Map<String, WeatherApiResponseDto> fetch(List<Place> batch) {
+        List<String> placeIds = placeIds(batch);
+        try {
+            if (bulkEnabled) {
+                return restWeatherService.getActualWeatherBulk(placeIds);
+            }
+
+            Map<String, WeatherApiResponseDto> weather = new HashMap<>();
+            placeIds.forEach(placeId -> weather.put(placeId, restWeatherService.getActualWeather(placeId)));
+            return weather;
+        } catch (Exception e) {
+            log.warn("Weather data for places {} not received: {}", placeIds, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void fillPlaces(List<Place> batch, Map<String, WeatherApiResponseDto> weather) {
+        batch.forEach(place -> fillPlace(place, weather.get(place.getId())));
+    }
+
+    /**
+     * Fills the weather data into the place. Missing or incomplete responses keep the last known weather data
+     * of the place and mark it as stale.
+     *
+     * @param place       the place to be filled
+     * @param responseDto the weather of the place, may be {@code null}
+     */
+    private void fillPlace(Place place, WeatherApiResponseDto responseDto) {
+        try {
+            String condition = responseDto.getCurrent().getCondition().getText();
+            Double temperature = responseDto.getCurrent().getTempC();
+            String continent = responseDto.getLocation().getTzId().split("/")[0];
+
+            place.setCondition(condition);
+            place.setTemperature(temperature);
+            place.setContinent(continent);
+            place.setLat(responseDto.getLocation().getLat());
+            place.setLon(responseDto.getLocation().getLon());
+            place.setTimeZone(responseDto.getLocation().getTzId());
+            place.setUpdatedAt(readingTime(responseDto.getCurrent()));
+            place.setStale(false);
+            log.info("Received weather data for place {}, {}", place.getId(), place.getTemperature());
+        } catch (Exception e) {
+            place.setStale(true);
+            log.info("Keeping last known weather data for place {} from {}", place.getId(), place.getUpdatedAt());
+        }
+    }
+
+    /**
+     * Returns the time the provider took the reading, so a reading served again, from the cache or by the provider,
+     * is recognized as already recorded. Falls back to the current time when the provider does not send it.
+     *
+     * @param current the current weather of the place
+     * @return the time of the reading
+     */
+    private OffsetDateTime readingTime(CurrentWeatherDto current) {
+        return current.getLastUpdatedEpoch() == null ? OffsetDateTime.now()
+                : OffsetDateTime.ofInstant(Instant.ofEpochSecond(current.getLastUpdatedEpoch()), ZoneOffset.UTC);
+    }
+
+    private List<String> placeIds(List<Place> places) {
+        return places.stream().map(Place::getId).toList();
+    }
+
+    private List<List<Place>> partition(List<Place> places, int batchSize) {
+        List<List<Place>> batches = new ArrayList<>();
+        for (int from = 0; from < places.size(); from += batchSize) {
+            batches.add(places.subList(from, Math.min(from + batchSize, places.size())));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,134 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.shared.model.WeatherHistoryCacheEntry;
+import org.skomi.pilot.shared.repository.WeatherHistoryCacheRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Provides the hourly weather history of places for whole days. Past days are cached per place and day in the
+ * {@code weather_history_cache} table, so every day of a place is fetched from the provider once, whichever
+ * instance asks for it. Days missing in the cache are fetched in ranges of consecutive days, at most
+ * {@code weatherapi.history.max-days-per-request} days per request.
+ * <p>
+ * Days are counted by {@code weatherapi.history.days} tagged with the source, {@code cache} or {@code provider}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WeatherHistoryService {
+
+    private static final TypeReference<List<HourlyTemperature>> HOURS = new TypeReference<>() {
+    };
+
+    /**
+     * Hourly temperatures of the requested days.
+     *
+     * @param hours    the hourly temperatures of the received days
+     * @param complete whether all requested days were received
+     */
+    public record History(List<HourlyTemperature> hours, boolean complete) {
+    }
+
+    private final RestWeatherService restWeatherService;
+    private final WeatherHistoryCacheRepository weatherHistoryCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weatherapi.history.max-days-per-request:1}")
+    private int maxDaysPerRequest;
+
+    /**
+     * Returns the hourly history of a place for the given days, from the cache or from the provider.
+     *
+     * @param place the name of the place
+     * @param days  the days
+     * @return the hourly temperatures of the days ordered by time
+     */
+    public History getHistory(String place, List<LocalDate> days) {
+        String placeKey = WeatherResponseCache.key(place);
+        Map<LocalDate, List<HourlyTemperature>> history = new TreeMap<>();
+
+        for (WeatherHistoryCacheEntry entry : weatherHistoryCacheRepository.findByPlaceKeyAndDays(placeKey, days)) {
+            try {
+                history.put(entry.getDay(), objectMapper.readValue(entry.getHours(), HOURS));
+            } catch (JsonProcessingException e) {
+                log.warn("Ignoring unreadable weather history of {} on {}: {}", placeKey, entry.getDay(), e.getMessage());
+            }
+        }
+        meterRegistry.counter("weatherapi.history.days", "source", "cache").increment(history.size());
+
+        List<LocalDate> missing = days.stream().filter(day -> !history.containsKey(day)).sorted().toList();
+        for (List<LocalDate> range : ranges(missing)) {
+            try {
+                Map<LocalDate, List<HourlyTemperature>> fetched =
+                        restWeatherService.getHistoricalHours(place, range.getFirst(), range.getLast());
+                fetched.forEach((day, hours) -> {
+                    if (range.contains(day) && !hours.isEmpty()) {
+                        history.put(day, hours);
+                        store(placeKey, day, hours);
+                    }
+                });
+                meterRegistry.counter("weatherapi.history.days", "source", "provider").increment(fetched.size());
+            } catch (RuntimeException e) {
+                log.error("Error fetching weather history of {} from {} to {}: {}", place, range.getFirst(),
+                        range.getLast(), e.getMessage());
+            }
+        }
+
+        List<HourlyTemperature> hours = history.values().stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(HourlyTemperature::time))
+                .toList();
+        return new History(hours, history.keySet().containsAll(days));
+    }
+
+    /**
+     * Splits sorted days into ranges of consecutive days of at most {@code weatherapi.history.max-days-per-request}.
+     *
+     * @param days the sorted days
+     * @return the ranges
+     */
+    List<List<LocalDate>> ranges(List<LocalDate> days) {
+        List<List<LocalDate>> ranges = new ArrayList<>();
+        List<LocalDate> range = new ArrayList<>();
+        for (LocalDate day : days) {
+            if (!range.isEmpty() && (!range.getLast().plusDays(1).equals(day) || range.size() >= maxDaysPerRequest)) {
+                ranges.add(range);
+                range = new ArrayList<>();
+            }
+            range.add(day);
+        }
+        if (!range.isEmpty()) {
+            ranges.add(range);
+        }
+        return ranges;
+    }
+
+    private void store(String placeKey, LocalDate day, List<HourlyTemperature> hours) {
+        // the current day is still changing
+        if (!day.isBefore(LocalDate.now(ZoneOffset.UTC))) {
+            return;
+        }
+        try {
+            weatherHistoryCacheRepository.upsert(placeKey, day, objectMapper.writeValueAsString(hours));
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to cache weather history of {} on {}: {}", placeKey, day, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.skomi.pilot.weatherapi.service;
+
+/**
+ * An endpoint of the weather provider API, either the primary one or a secondary one answering the same requests.
+ *
+ * @param name    the name used in logs and metrics
+ * @param baseUrl the base URL of the API
+ * @param apiKey  the API key of the endpoint
+ */
+public record WeatherProvider(String name, String baseUrl, String apiKey) {
+}
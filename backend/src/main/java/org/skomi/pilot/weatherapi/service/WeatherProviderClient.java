@@ -0,0 +1,260 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Sends the requests to the weather provider. With a secondary endpoint configured in
+ * {@code weatherapi.secondary.base-url}, a request the primary endpoint has not answered within the 95th percentile
+ * of its recent latencies is hedged: the same request is sent to the secondary endpoint, the first successful
+ * response wins and the other call is cancelled.
+ * <p>
+ * Hedges are paid from a budget, every primary call adds {@code weatherapi.hedge.budget} of a hedge up to
+ * {@code weatherapi.hedge.burst} hedges, so hedging adds at most that share of calls.
+ * <p>
+ * Calls are timed by {@code weatherapi.provider.latency} tagged with the provider, operation and outcome. Hedges
+ * are counted by {@code weatherapi.hedge.requests} tagged with the result, {@code sent}, {@code won} or
+ * {@code skipped} when the budget was spent, and their share of primary calls is exposed as {@code weatherapi.hedge.rate}.
+ */
+@Slf4j
+@Service
+public class WeatherProviderClient {
+
+    private record Response<T>(WeatherProvider provider, T value) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("weather-call-", 0).factory());
+    private final Map<String, LatencyWindow> primaryLatencies = new ConcurrentHashMap<>();
+    private final AtomicLong primaryCalls = new AtomicLong();
+    private final AtomicLong hedgedCalls = new AtomicLong();
+
+    @Value("${weatherapi.base-url:https://api.weatherapi.com/v1}")
+    private String baseUrl;
+
+    @Value("${weatherapi.key:noKey}")
+    private String apiKey;
+
+    @Value("${weatherapi.secondary.base-url:}")
+    private String secondaryBaseUrl;
+
+    @Value("${weatherapi.secondary.key:}")
+    private String secondaryApiKey;
+
+    @Value("${weatherapi.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${weatherapi.hedge.budget:0.05}")
+    private double budget;
+
+    @Value("${weatherapi.hedge.burst:5}")
+    private double burst;
+
+    @Value("${weatherapi.hedge.min-delay:PT0.05S}")
+    private Duration minDelay;
+
+    @Value("${weatherapi.hedge.initial-delay:PT2S}")
+    private Duration initialDelay;
+
+    @Value("${weatherapi.hedge.window:200}")
+    private int window;
+
+    @Value("${weatherapi.hedge.min-samples:20}")
+    private int minSamples;
+
+    private WeatherProvider primary;
+    private WeatherProvider secondary;
+    private double hedgeTokens;
+
+    public WeatherProviderClient(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("weatherapi.hedge.rate", this, client -> client.primaryCalls.get() == 0 ? 0
+                        : (double) client.hedgedCalls.get() / client.primaryCalls.get())
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        primary = new WeatherProvider("primary", baseUrl, apiKey);
+        if (!secondaryBaseUrl.isBlank()) {
+            secondary = new WeatherProvider("secondary", secondaryBaseUrl,
+                    secondaryApiKey.isBlank() ? apiKey : secondaryApiKey);
+            log.info("Weather requests are hedged to {} when {} is slow.", secondaryBaseUrl, baseUrl);
+        }
+        hedgeTokens = burst;
+    }
+
+    /**
+     * Sends a request to the primary endpoint, hedged to the secondary endpoint when the primary is slow.
+     *
+     * @param operation the name of the operation, latencies are tracked per operation
+     * @param request   the request, sent to the given endpoint
+     * @param <T>       the type of the response
+     * @return the first successful response
+     * @throws RuntimeException the failure of the last failed call when no call succeeded
+     */
+    public <T> T call(String operation, Function<WeatherProvider, T> request) {
+        primaryCalls.incrementAndGet();
+        addHedgeBudget();
+        if (secondary == null || !hedgeEnabled) {
+            return timed(primary, operation, request);
+        }
+
+        CompletableFuture<Response<T>> result = new CompletableFuture<>();
+        // calls whose result is not known yet, the result fails once none is left
+        AtomicInteger pending = new AtomicInteger(1);
+        Future<?> primaryCall = executor.submit(() -> attempt(primary, operation, request, result, pending));
+        Future<?> secondaryCall = null;
+        try {
+            try {
+                return result.get(hedgeDelay(operation).toNanos(), TimeUnit.NANOSECONDS).value();
+            } catch (TimeoutException e) {
+                if (!tryHedge()) {
+                    meterRegistry.counter("weatherapi.hedge.requests", "result", "skipped").increment();
+                } else if (pending.getAndIncrement() > 0) {
+                    hedgedCalls.incrementAndGet();
+                    meterRegistry.counter("weatherapi.hedge.requests", "result", "sent").increment();
+                    secondaryCall = executor.submit(() -> attempt(secondary, operation, request, result, pending));
+                }
+                Response<T> response = result.get();
+                if (response.provider() == secondary) {
+                    meterRegistry.counter("weatherapi.hedge.requests", "result", "won").increment();
+                }
+                return response.value();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WeatherProviderUnavailableException("Interrupted while waiting for the weather provider.");
+        } finally {
+            primaryCall.cancel(true);
+            if (secondaryCall != null) {
+                secondaryCall.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the delay after which a request of the operation is hedged, the 95th percentile of the recent
+     * latencies of the primary endpoint, or {@code weatherapi.hedge.initial-delay} until enough calls were made.
+     *
+     * @param operation the name of the operation
+     * @return the hedge delay, at least {@code weatherapi.hedge.min-delay}
+     */
+    Duration hedgeDelay(String operation) {
+        LatencyWindow latencies = primaryLatencies.get(operation);
+        if (latencies == null || latencies.size() < minSamples) {
+            return initialDelay;
+        }
+        Duration p95 = Duration.ofNanos(latencies.percentile(0.95));
+        return p95.compareTo(minDelay) < 0 ? minDelay : p95;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void attempt(WeatherProvider provider, String operation, Function<WeatherProvider, T> request,
+                             CompletableFuture<Response<T>> result, AtomicInteger pending) {
+        try {
+            result.complete(new Response<>(provider, timed(provider, operation, request)));
+        } catch (RuntimeException e) {
+            if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            } else {
+                log.debug("Call to weather provider {} failed, waiting for the other call: {}", provider.name(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    private <T> T timed(WeatherProvider provider, String operation, Function<WeatherProvider, T> request) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return request.apply(provider);
+        } catch (RuntimeException e) {
+            outcome = Thread.currentThread().isInterrupted() ? "cancelled" : "failure";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (provider == primary) {
+                // a cancelled call took at least as long, leaving it out would hide the slow calls
+                primaryLatencies.computeIfAbsent(operation, key -> new LatencyWindow(window)).record(elapsed);
+            }
+            Timer.builder("weatherapi.provider.latency")
+                    .tags("provider", provider.name(), "operation", operation, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void addHedgeBudget() {
+        hedgeTokens = Math.min(burst, hedgeTokens + budget);
+    }
+
+    private synchronized boolean tryHedge() {
+        if (hedgeTokens < 1) {
+            return false;
+        }
+        hedgeTokens--;
+        return true;
+    }
+
+    /**
+     * The latest latencies of calls in a ring buffer.
+     */
+    static class LatencyWindow {
+
+        private final long[] latencies;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.latencies = new long[capacity];
+        }
+
+        synchronized void record(long latency) {
+            latencies[next] = latency;
+            next = (next + 1) % latencies.length;
+            size = Math.min(size + 1, latencies.length);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+        }
+    }
+}
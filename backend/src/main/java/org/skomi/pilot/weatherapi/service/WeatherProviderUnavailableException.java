@@ -0,0 +1,11 @@
+package org.skomi.pilot.weatherapi.service;
+
+/**
+ * Thrown when a call to the weather provider is rejected because its circuit is open.
+ */
+public class WeatherProviderUnavailableException extends RuntimeException {
+
+    public WeatherProviderUnavailableException(String message) {
+        super(message);
+    }
+}
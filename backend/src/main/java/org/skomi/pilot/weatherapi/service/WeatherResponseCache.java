@@ -0,0 +1,282 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.shared.model.WeatherCacheEntry;
+import org.skomi.pilot.shared.repository.WeatherCacheRepository;
+import org.skomi.pilot.shared.service.PlaceRegistry;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the current weather of places with two tiers. Every instance keeps recent responses in
+ * memory and all instances share the responses through the unlogged {@code weather_cache} table, so a place is
+ * fetched from the provider once per provider update no matter which instance asks for it.
+ * <p>
+ * A response is valid until the provider publishes the next update, that is {@code weatherapi.cache.update-interval}
+ * after its {@code last_updated_epoch}, bounded by {@code weatherapi.cache.min-ttl} and {@code weatherapi.cache.max-ttl}.
+ * Places are keyed by their lower-case name without accents, so {@code Plzeň} and {@code plzen} share an entry.
+ * <p>
+ * Lookups are counted by {@code weatherapi.cache.requests} tagged with the tier and the result, the overall hit ratio
+ * is exposed as {@code weatherapi.cache.hit.ratio}, the size of both tiers as {@code weatherapi.cache.size} and the
+ * time to live of stored responses as {@code weatherapi.cache.ttl}.
+ */
+@Slf4j
+@Service
+public class WeatherResponseCache {
+
+    private record CachedResponse(WeatherApiResponseDto response, Instant expiresAt) {
+    }
+
+    private final WeatherCacheRepository weatherCacheRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${weatherapi.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${weatherapi.cache.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${weatherapi.cache.update-interval:PT15M}")
+    private Duration updateInterval;
+
+    @Value("${weatherapi.cache.min-ttl:PT1M}")
+    private Duration minTtl;
+
+    @Value("${weatherapi.cache.max-ttl:PT15M}")
+    private Duration maxTtl;
+
+    @Value("${weatherapi.cache.default-ttl:PT5M}")
+    private Duration defaultTtl;
+
+    private final AtomicLong sharedSize = new AtomicLong();
+
+    private Cache<String, CachedResponse> local;
+    private Counter localHits;
+    private Counter localMisses;
+    private Counter sharedHits;
+    private Counter sharedMisses;
+    private DistributionSummary ttl;
+
+    public WeatherResponseCache(WeatherCacheRepository weatherCacheRepository, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.weatherCacheRepository = weatherCacheRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        localHits = requests("local", "hit");
+        localMisses = requests("local", "miss");
+        sharedHits = requests("shared", "hit");
+        sharedMisses = requests("shared", "miss");
+        ttl = DistributionSummary.builder("weatherapi.cache.ttl")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("weatherapi.cache.hit.ratio", this, WeatherResponseCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("weatherapi.cache.size", local, Cache::estimatedSize)
+                .tag("tier", "local")
+                .register(meterRegistry);
+        Gauge.builder("weatherapi.cache.size", sharedSize, AtomicLong::get)
+                .tag("tier", "shared")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached current weather of the place, loading and caching it on a miss.
+     *
+     * @param place  the name of the place
+     * @param loader fetches the weather of the place from the provider
+     * @return the weather of the place, {@code null} if the loader returned none
+     */
+    public WeatherApiResponseDto get(String place, Supplier<WeatherApiResponseDto> loader) {
+        return getAll(List.of(place), places -> {
+            WeatherApiResponseDto response = loader.get();
+            return response == null ? Map.of() : Map.of(place, response);
+        }).get(place);
+    }
+
+    /**
+     * Returns the cached current weather of the places. Places missing in both tiers are loaded at once and cached.
+     *
+     * @param places the names of the places
+     * @param loader fetches the weather of the given places from the provider, places it cannot resolve are omitted
+     * @return a map of place names to their weather data, places without weather data are omitted
+     */
+    public Map<String, WeatherApiResponseDto> getAll(List<String> places,
+                                                     Function<List<String>, Map<String, WeatherApiResponseDto>> loader) {
+        if (!enabled) {
+            return loader.apply(places);
+        }
+
+        Map<String, WeatherApiResponseDto> weather = new HashMap<>();
+        Map<String, List<String>> missing = new LinkedHashMap<>();
+        for (String place : places) {
+            String key = key(place);
+            CachedResponse cached = local.getIfPresent(key);
+            if (cached != null) {
+                localHits.increment();
+                weather.put(place, cached.response());
+            } else {
+                localMisses.increment();
+                missing.computeIfAbsent(key, k -> new ArrayList<>()).add(place);
+            }
+        }
+        if (missing.isEmpty()) {
+            return weather;
+        }
+
+        for (WeatherCacheEntry entry : findShared(missing.keySet())) {
+            WeatherApiResponseDto response = read(entry.getResponse());
+            if (response != null) {
+                local.put(entry.getPlaceKey(), new CachedResponse(response, entry.getExpiresAt().toInstant()));
+                missing.remove(entry.getPlaceKey()).forEach(place -> weather.put(place, response));
+                sharedHits.increment();
+            }
+        }
+        if (missing.isEmpty()) {
+            return weather;
+        }
+        sharedMisses.increment(missing.size());
+
+        List<String> toLoad = missing.values().stream().map(List::getFirst).toList();
+        loader.apply(toLoad).forEach((place, response) -> {
+            String key = key(place);
+            put(key, response);
+            missing.getOrDefault(key, List.of(place)).forEach(samePlace -> weather.put(samePlace, response));
+        });
+        return weather;
+    }
+
+    /**
+     * Removes expired responses from the shared tier and refreshes its size.
+     */
+    @Scheduled(fixedDelayString = "${weatherapi.cache.cleanup-delay:PT5M}")
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int removed = weatherCacheRepository.deleteExpired();
+            sharedSize.set(weatherCacheRepository.countValid());
+            log.debug("Removed {} expired weather responses, {} remain.", removed, sharedSize.get());
+        } catch (DataAccessException e) {
+            log.warn("Failed to remove expired weather responses: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Computes when a response stops being valid, which is when the provider publishes its next update.
+     *
+     * @param response the response of the provider
+     * @return the time the response expires
+     */
+    Instant expiresAt(WeatherApiResponseDto response) {
+        Instant now = Instant.now();
+        Long lastUpdatedEpoch = response.getCurrent() == null ? null : response.getCurrent().getLastUpdatedEpoch();
+        Instant expiresAt = lastUpdatedEpoch == null
+                ? now.plus(defaultTtl)
+                : Instant.ofEpochSecond(lastUpdatedEpoch).plus(updateInterval);
+
+        Instant earliest = now.plus(minTtl);
+        Instant latest = now.plus(maxTtl);
+        return expiresAt.isBefore(earliest) ? earliest : expiresAt.isAfter(latest) ? latest : expiresAt;
+    }
+
+    /**
+     * Normalizes the name of a place to its cache key.
+     *
+     * @param place the name of the place
+     * @return the lower-case name without accents and surrounding or repeated whitespace
+     */
+    static String key(String place) {
+        return PlaceRegistry.key(place);
+    }
+
+    private void put(String key, WeatherApiResponseDto response) {
+        Instant expiresAt = expiresAt(response);
+        ttl.record(Duration.between(Instant.now(), expiresAt).toSeconds());
+        local.put(key, new CachedResponse(response, expiresAt));
+        try {
+            weatherCacheRepository.upsert(key, objectMapper.writeValueAsString(response),
+                    expiresAt.atOffset(ZoneOffset.UTC));
+        } catch (JsonProcessingException | DataAccessException e) {
+            log.warn("Failed to share the weather response of {}: {}", key, e.getMessage());
+        }
+    }
+
+    private List<WeatherCacheEntry> findShared(Collection<String> keys) {
+        try {
+            return weatherCacheRepository.findValid(keys);
+        } catch (DataAccessException e) {
+            log.warn("Failed to read shared weather responses: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private WeatherApiResponseDto read(String json) {
+        try {
+            return objectMapper.readValue(json, WeatherApiResponseDto.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable shared weather response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Counter requests(String tier, String result) {
+        return Counter.builder("weatherapi.cache.requests")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private double hitRatio() {
+        double lookups = localHits.count() + localMisses.count();
+        return lookups == 0 ? 0 : (localHits.count() + sharedHits.count()) / lookups;
+    }
+}
@@ -0,0 +1,315 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherResponseDto;
+import org.skomi.pilot.weatherapi.dto.CurrentWeatherDto;
+import org.skomi.pilot.weatherapi.dto.LocationDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.skomi.pilot.weatherapi.dto.WeatherConditionDto;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the responses of the weather provider with a streaming parser. Only the fields stored with a place are
+ * read, everything else, such as wind, pressure or the astronomy of a day, is skipped without being bound.
+ */
+@Service
+public class WeatherResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Reads the response of the current weather of a place.
+     *
+     * @param body the response body
+     * @return the location and the current weather, null for an empty body
+     * @throws IOException if the body is not valid JSON
+     */
+    public WeatherApiResponseDto parseCurrent(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parser.nextToken() == null ? null : readResponse(parser);
+        }
+    }
+
+    /**
+     * Reads the response of a bulk request of the current weather of several places.
+     *
+     * @param body the response body
+     * @return the results of the requested locations, null for an empty body
+     * @throws IOException if the body is not valid JSON
+     */
+    public BulkWeatherResponseDto parseBulk(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            BulkWeatherResponseDto response = new BulkWeatherResponseDto();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("bulk") && parser.currentToken() == JsonToken.START_ARRAY) {
+                    List<BulkWeatherResponseDto.Item> items = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        items.add(readBulkItem(parser));
+                    }
+                    response.setBulk(items);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Reads the response of the hourly weather history of a place.
+     *
+     * @param body the response body
+     * @return a map of the returned days to their hourly temperatures
+     * @throws IOException if the body is not valid JSON
+     */
+    public Map<LocalDate, List<HourlyTemperature>> parseHistory(InputStream body) throws IOException {
+        Map<LocalDate, List<HourlyTemperature>> days = new TreeMap<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return days;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("forecast") && parser.currentToken() == JsonToken.START_OBJECT) {
+                    readForecast(parser, days);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return days;
+    }
+
+    private WeatherApiResponseDto readResponse(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        WeatherApiResponseDto response = new WeatherApiResponseDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "location" -> response.setLocation(readLocation(parser));
+                case "current" -> response.setCurrent(readCurrent(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private BulkWeatherResponseDto.Item readBulkItem(JsonParser parser) throws IOException {
+        BulkWeatherResponseDto.Item item = new BulkWeatherResponseDto.Item();
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return item;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("query") && parser.currentToken() == JsonToken.START_OBJECT) {
+                item.setQuery(readBulkQuery(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return item;
+    }
+
+    private BulkWeatherResponseDto.Query readBulkQuery(JsonParser parser) throws IOException {
+        BulkWeatherResponseDto.Query query = new BulkWeatherResponseDto.Query();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "custom_id" -> query.setCustomId(readText(parser));
+                case "q" -> query.setQ(readText(parser));
+                case "location" -> query.setLocation(readLocation(parser));
+                case "current" -> query.setCurrent(readCurrent(parser));
+                case "error" -> query.setError(readError(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return query;
+    }
+
+    private BulkWeatherResponseDto.Error readError(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        BulkWeatherResponseDto.Error error = new BulkWeatherResponseDto.Error();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "code" -> error.setCode(readLong(parser) instanceof Long code ? code.intValue() : null);
+                case "message" -> error.setMessage(readText(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return error;
+    }
+
+    private LocationDto readLocation(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        LocationDto location = new LocationDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "name" -> location.setName(readText(parser));
+                case "lat" -> location.setLat(readDouble(parser));
+                case "lon" -> location.setLon(readDouble(parser));
+                case "tz_id" -> location.setTzId(readText(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return location;
+    }
+
+    private CurrentWeatherDto readCurrent(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        CurrentWeatherDto current = new CurrentWeatherDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "last_updated_epoch" -> current.setLastUpdatedEpoch(readLong(parser));
+                case "temp_c" -> current.setTempC(readDouble(parser));
+                case "condition" -> current.setCondition(readCondition(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return current;
+    }
+
+    private WeatherConditionDto readCondition(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        WeatherConditionDto condition = new WeatherConditionDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("text")) {
+                condition.setText(readText(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return condition;
+    }
+
+    private void readForecast(JsonParser parser, Map<LocalDate, List<HourlyTemperature>> days) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("forecastday") && parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    readForecastDay(parser, days);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readForecastDay(JsonParser parser, Map<LocalDate, List<HourlyTemperature>> days) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        String date = null;
+        List<HourlyTemperature> hours = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals("date")) {
+                date = readText(parser);
+            } else if (field.equals("hour") && parser.currentToken() == JsonToken.START_ARRAY) {
+                hours = new ArrayList<>(24);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    HourlyTemperature hour = readHour(parser);
+                    if (hour != null) {
+                        hours.add(hour);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (date != null && hours != null) {
+            days.put(LocalDate.parse(date), hours);
+        }
+    }
+
+    private HourlyTemperature readHour(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Long timeEpoch = null;
+        Double temperature = null;
+        String condition = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "time_epoch" -> timeEpoch = readLong(parser);
+                case "temp_c" -> temperature = readDouble(parser);
+                case "condition" -> {
+                    WeatherConditionDto conditionDto = readCondition(parser);
+                    condition = conditionDto == null ? null : conditionDto.getText();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return timeEpoch == null ? null
+                : new HourlyTemperature(Instant.ofEpochSecond(timeEpoch).atOffset(ZoneOffset.UTC), temperature, condition);
+    }
+
+    private String readText(JsonParser parser) throws IOException {
+        String value = parser.currentToken().isScalarValue() ? parser.getValueAsString() : null;
+        parser.skipChildren();
+        return value;
+    }
+
+    private Double readDouble(JsonParser parser) throws IOException {
+        Double value = parser.currentToken().isNumeric() ? parser.getDoubleValue() : null;
+        parser.skipChildren();
+        return value;
+    }
+
+    private Long readLong(JsonParser parser) throws IOException {
+        Long value = parser.currentToken().isNumeric() ? parser.getValueAsLong() : null;
+        parser.skipChildren();
+        return value;
+    }
+}
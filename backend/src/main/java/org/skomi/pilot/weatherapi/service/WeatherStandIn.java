@@ -0,0 +1,301 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stands in for the weather provider, so the refresh flow can be load-tested without network and without spending
+ * provider quota. Sits in front of the calls of the weather RestTemplate, so everything above the HTTP client, the
+ * bulkhead, circuit breaker, hedging and parsing, runs as against the real provider. The mode is set by
+ * {@code weatherapi.stand-in.mode}:
+ * <ul>
+ *     <li>{@code live} calls the provider, the stand-in is not installed,</li>
+ *     <li>{@code record} calls the provider and stores its successful responses in {@code weatherapi.stand-in.directory},
+ *     the results of bulk requests per place,</li>
+ *     <li>{@code replay} answers with the stored responses, places without one get a synthetic response,</li>
+ *     <li>{@code synthetic} answers with generated responses only.</li>
+ * </ul>
+ * Both replay and synthetic answers are delayed by a log-normal latency with the configured median and 99th
+ * percentile, and fail with {@code weatherapi.stand-in.error-status} at {@code weatherapi.stand-in.error-rate}.
+ * Answers are counted by {@code weatherapi.stand-in.responses} tagged with the endpoint and the source,
+ * {@code recorded}, {@code synthetic} or {@code error}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WeatherStandIn implements ClientHttpRequestInterceptor {
+
+    public enum Mode {
+        LIVE, RECORD, REPLAY, SYNTHETIC
+    }
+
+    private static final String CURRENT = "current";
+    private static final String BULK = "bulk";
+    private static final String HISTORY = "history";
+
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double P99_Z = 2.326;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final SyntheticWeather syntheticWeather = new SyntheticWeather();
+
+    @Getter
+    @Value("${weatherapi.stand-in.mode:live}")
+    private Mode mode;
+
+    @Value("${weatherapi.stand-in.directory:weather-recordings}")
+    private Path directory;
+
+    @Value("${weatherapi.stand-in.latency.median:PT0S}")
+    private Duration latencyMedian;
+
+    @Value("${weatherapi.stand-in.latency.p99:PT0S}")
+    private Duration latencyP99;
+
+    @Value("${weatherapi.stand-in.error-rate:0}")
+    private double errorRate;
+
+    @Value("${weatherapi.stand-in.error-status:503}")
+    private int errorStatus;
+
+    @PostConstruct
+    void init() {
+        if (mode != Mode.LIVE) {
+            log.warn("Weather provider stand-in in {} mode, recordings in {}, latency median {} p99 {}, error rate {}.",
+                    mode, directory.toAbsolutePath(), latencyMedian, latencyP99, errorRate);
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Map<String, String> query = queryOf(request);
+        String endpoint = endpointOf(request, query);
+        if (mode == Mode.LIVE || mode == Mode.RECORD && endpoint == null) {
+            return execution.execute(request, body);
+        }
+        if (mode == Mode.RECORD) {
+            return record(endpoint, query, request, body, execution);
+        }
+
+        delay();
+        if (endpoint == null) {
+            return respond(HttpStatus.NOT_FOUND, error(1005, "API request url is invalid."));
+        }
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            count(endpoint, "error");
+            return respond(HttpStatusCode.valueOf(errorStatus), error(9999, "Internal application error."));
+        }
+
+        Instant now = Instant.now();
+        byte[] payload = switch (endpoint) {
+            case BULK -> bulk(body, now);
+            case HISTORY -> history(query, now);
+            default -> current(query.get("q"), now);
+        };
+        return respond(HttpStatus.OK, payload);
+    }
+
+    private ClientHttpResponse record(String endpoint, Map<String, String> query, HttpRequest request, byte[] body,
+                                      ClientHttpRequestExecution execution) throws IOException {
+        ClientHttpResponse response = execution.execute(request, body);
+        HttpStatusCode status = response.getStatusCode();
+        byte[] payload;
+        try (response) {
+            payload = response.getBody().readAllBytes();
+        }
+        if (status.is2xxSuccessful()) {
+            switch (endpoint) {
+                case BULK -> recordBulk(payload);
+                case HISTORY -> store(historyFile(query), payload);
+                default -> store(currentFile(query.get("q")), payload);
+            }
+        }
+        return respond(status, payload);
+    }
+
+    private void recordBulk(byte[] payload) throws IOException {
+        JsonNode results = objectMapper.readTree(payload).path("bulk");
+        for (JsonNode item : results) {
+            JsonNode result = item.path("query");
+            if (result.hasNonNull("location") && result.hasNonNull("current") && !result.hasNonNull("error")) {
+                ObjectNode current = objectMapper.createObjectNode();
+                current.set("location", result.get("location"));
+                current.set("current", result.get("current"));
+                store(currentFile(result.path("q").asText()), objectMapper.writeValueAsBytes(current));
+            }
+        }
+    }
+
+    private byte[] bulk(byte[] body, Instant now) throws IOException {
+        BulkWeatherRequestDto request = objectMapper.readValue(body, BulkWeatherRequestDto.class);
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode results = response.putArray("bulk");
+        for (BulkWeatherRequestDto.Location location : request.getLocations()) {
+            ObjectNode result = (ObjectNode) objectMapper.readTree(current(location.getQ(), now));
+            result.put("custom_id", location.getCustomId());
+            result.put("q", location.getQ());
+            results.addObject().set("query", result);
+        }
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private byte[] current(String place, Instant now) throws IOException {
+        byte[] recorded = mode == Mode.REPLAY ? load(currentFile(place)) : null;
+        count(CURRENT, recorded != null ? "recorded" : "synthetic");
+        return recorded != null ? recorded : syntheticWeather.current(place, now);
+    }
+
+    private byte[] history(Map<String, String> query, Instant now) throws IOException {
+        byte[] recorded = mode == Mode.REPLAY ? load(historyFile(query)) : null;
+        count(HISTORY, recorded != null ? "recorded" : "synthetic");
+        if (recorded != null) {
+            return recorded;
+        }
+        LocalDate from = LocalDate.parse(query.get("dt"));
+        LocalDate to = query.containsKey("end_dt") ? LocalDate.parse(query.get("end_dt")) : from;
+        return syntheticWeather.history(query.get("q"), from, to, now);
+    }
+
+    private Path currentFile(String place) {
+        return directory.resolve(CURRENT).resolve(fileName(place) + ".json");
+    }
+
+    private Path historyFile(Map<String, String> query) {
+        String from = query.get("dt");
+        return directory.resolve(HISTORY).resolve(fileName(query.get("q")) + "_" + from + "_"
+                + query.getOrDefault("end_dt", from) + ".json");
+    }
+
+    private String fileName(String place) {
+        return URLEncoder.encode(place == null ? "" : place.strip().toLowerCase(Locale.ROOT), StandardCharsets.UTF_8);
+    }
+
+    private void store(Path file, byte[] payload) throws IOException {
+        Files.createDirectories(file.getParent());
+        // written next to the file first, so a replay running meanwhile never reads a partial recording
+        Path partial = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".partial");
+        Files.write(partial, payload);
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] load(Path file) throws IOException {
+        return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+    }
+
+    private void delay() throws IOException {
+        if (latencyMedian.isZero()) {
+            return;
+        }
+        double sigma = latencyP99.compareTo(latencyMedian) > 0
+                ? Math.log((double) latencyP99.toNanos() / latencyMedian.toNanos()) / P99_Z
+                : 0;
+        long nanos = (long) (latencyMedian.toNanos() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while simulating the latency of the weather provider.", e);
+        }
+    }
+
+    private String endpointOf(HttpRequest request, Map<String, String> query) {
+        String path = request.getURI().getPath();
+        if (path.endsWith("/current.json")) {
+            return BULK.equals(query.get("q")) ? BULK : CURRENT;
+        }
+        return path.endsWith("/history.json") ? HISTORY : null;
+    }
+
+    private Map<String, String> queryOf(HttpRequest request) {
+        Map<String, String> query = new HashMap<>();
+        UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().forEach((name, values) -> {
+            if (!values.isEmpty() && values.getFirst() != null) {
+                query.put(name, UriUtils.decode(values.getFirst(), StandardCharsets.UTF_8));
+            }
+        });
+        return query;
+    }
+
+    private byte[] error(int code, String message) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.putObject("error").put("code", code).put("message", message);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private void count(String endpoint, String source) {
+        meterRegistry.counter("weatherapi.stand-in.responses", "endpoint", endpoint, "source", source).increment();
+    }
+
+    private ClientHttpResponse respond(HttpStatusCode status, byte[] payload) {
+        return new StandInResponse(status, payload);
+    }
+
+    private record StandInResponse(HttpStatusCode status, byte[] payload) implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus known = HttpStatus.resolve(status.value());
+            return known == null ? "" : known.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(payload.length);
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(payload);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package org.skomi.pilot.websocket.listener;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.skomi.pilot.shared.event.WsckSensorUpdateDataEvent;
+import org.skomi.pilot.shared.pipeline.PipelineStage;
+import org.skomi.pilot.shared.pipeline.PipelineStageFactory;
 import org.skomi.pilot.websocket.service.WebSocketMessageService;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * Listens for events
  */
@@ -14,17 +19,34 @@ import org.springframework.stereotype.Service;
 public class WebsocketEventListener {
 
     private final WebSocketMessageService webSocketMessageService;
+    private final PipelineStageFactory pipelineStageFactory;
+
+    private PipelineStage<WsckSensorUpdateDataEvent> updateStage;
+
+    @PostConstruct
+    void init() {
+        updateStage = pipelineStageFactory.create("websocket", WsckSensorUpdateDataEvent::getUser, this::sendUpdates);
+    }
 
     /**
-     * Handles the `WsckSensorUpdateDataEvent` by sending sensor data through a WebSocket
-     * to a specific user.
+     * Handles the `WsckSensorUpdateDataEvent` by queueing it to the update stage, which sends the sensor data
+     * through a WebSocket to a specific user.
      *
      * @param event the event containing the user identifier and the list of sensors to be sent
      */
     @EventListener
     public void handleUpdateDataEvent(WsckSensorUpdateDataEvent event) {
-        webSocketMessageService.sendToUser(event.getUser(),
+        updateStage.submit(event);
+    }
+
+    /**
+     * Sends the sensor data of a micro-batch of update events, in their order, to their users.
+     *
+     * @param events the events containing the user identifier and the list of sensors to be sent
+     */
+    private void sendUpdates(List<WsckSensorUpdateDataEvent> events) {
+        events.forEach(event -> webSocketMessageService.sendToUser(event.getUser(),
                 WsckSensorUpdateDataEvent.MESSAGE_TYPE,
-                event.getSensors());
+                event.getSensors()));
     }
 }
@@ -6,20 +6,24 @@ import jakarta.websocket.Session;
 import lombok.extern.slf4j.Slf4j;
 import org.skomi.pilot.websocket.model.WebSocketContent;
 import org.skomi.pilot.websocket.model.WebSocketMessage;
+import org.springframework.modulith.NamedInterface;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing WebSocket connections and sending messages to users.
  * This service handles maintaining an active user session registry, sending
  * messages to individual users as well as managing session lifecycle events.
  */
+@NamedInterface("WebSocketMessageService")
 @Slf4j
 @Service
 public class WebSocketMessageService {
@@ -86,6 +90,18 @@ public class WebSocketMessageService {
         userSessions.remove(email);
     }
 
+    /**
+     * Returns the emails of all users that currently have an open WebSocket session.
+     *
+     * @return a set of emails of the connected users
+     */
+    public Set<String> getConnectedUsers() {
+        return userSessions.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && entry.getValue().isOpen())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
     /**
      * Sends a WebSocket message to a specific user if their session is active.
      *
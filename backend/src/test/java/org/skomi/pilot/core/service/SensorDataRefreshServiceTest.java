@@ -0,0 +1,88 @@
+package org.skomi.pilot.core.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.core.publisher.CoreEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class SensorDataRefreshServiceTest {
+
+    @Mock
+    private CoreEventPublisher coreEventPublisher;
+
+    @InjectMocks
+    private SensorDataRefreshService sensorDataRefreshService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sensorDataRefreshService, "refreshPeriod", Duration.ofHours(1));
+        ReflectionTestUtils.setField(sensorDataRefreshService, "bucketCount", 12);
+    }
+
+    /**
+     * Tests that the bucket of the current five-minute slot is refreshed.
+     */
+    @Test
+    void shouldRefreshBucketOfCurrentSlot() {
+        // given
+        Instant now = Instant.parse("2025-01-01T10:17:30Z");
+
+        // when
+        sensorDataRefreshService.refreshSensorsAt(now);
+
+        // then
+        then(coreEventPublisher).should(times(1)).callForRefreshSensors(3, 12);
+    }
+
+    /**
+     * Tests that a slot is refreshed only once when the tick fires more often than the slots change.
+     */
+    @Test
+    void shouldRefreshEverySlotOnlyOnce() {
+        // given
+        Instant first = Instant.parse("2025-01-01T10:15:00Z");
+        Instant second = Instant.parse("2025-01-01T10:16:00Z");
+        Instant third = Instant.parse("2025-01-01T10:20:00Z");
+
+        // when
+        sensorDataRefreshService.refreshSensorsAt(first);
+        sensorDataRefreshService.refreshSensorsAt(second);
+        sensorDataRefreshService.refreshSensorsAt(third);
+
+        // then
+        then(coreEventPublisher).should(times(2)).callForRefreshSensors(anyInt(), anyInt());
+        then(coreEventPublisher).should().callForRefreshSensors(3, 12);
+        then(coreEventPublisher).should().callForRefreshSensors(4, 12);
+    }
+
+    /**
+     * Tests that every bucket is refreshed exactly once during one period.
+     */
+    @Test
+    void shouldRefreshEveryBucketOncePerPeriod() {
+        // given
+        Instant start = Instant.parse("2025-01-01T10:00:00Z");
+
+        // when
+        for (int minute = 0; minute < 60; minute++) {
+            sensorDataRefreshService.refreshSensorsAt(start.plus(Duration.ofMinutes(minute)));
+        }
+
+        // then
+        for (int bucket = 0; bucket < 12; bucket++) {
+            then(coreEventPublisher).should(times(1)).callForRefreshSensors(bucket, 12);
+        }
+    }
+}
@@ -33,7 +33,7 @@ class SendEmailListenerTest {
         String emailTemplate = "welcome_template";
         String[] args = {"arg1", "arg2"};
         ComposedEmail composedEmail = new ComposedEmail("Subject", "Body");
-        SendEmailWithMessageEvent event = new SendEmailWithMessageEvent(this, userEmail, emailTemplate, args);
+        SendEmailWithMessageEvent event = new SendEmailWithMessageEvent(userEmail, emailTemplate, args);
 
         given(emailTemplateService.composeEmail(emailTemplate, args)).willReturn(composedEmail);
 
@@ -5,8 +5,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.skomi.pilot.googleapi.model.CityResponse;
+import org.skomi.pilot.googleapi.model.PrefetchResult;
 import org.skomi.pilot.googleapi.service.CitySearchService;
+import org.skomi.pilot.googleapi.service.PlacePrefetchService;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +24,9 @@ public class CitySearchControllerTest {
     @Mock
     private CitySearchService citySearchService;
 
+    @Mock
+    private PlacePrefetchService placePrefetchService;
+
     @InjectMocks
     private CitySearchController citySearchController;
 
@@ -59,4 +65,20 @@ public class CitySearchControllerTest {
         assertThat(response.getStatusCodeValue(), is(200));
         assertThat(response.getBody().isEmpty(), is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldAcceptPrefetchUnlessRateLimited() {
+        // given
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("test@example.com", null);
+        given(placePrefetchService.prefetch("test@example.com", "Praha")).willReturn(PrefetchResult.REQUESTED);
+        given(placePrefetchService.prefetch("test@example.com", "Brno")).willReturn(PrefetchResult.RATE_LIMITED);
+
+        // when
+        ResponseEntity<Void> accepted = citySearchController.prefetch("Praha", authentication);
+        ResponseEntity<Void> limited = citySearchController.prefetch("Brno", authentication);
+
+        // then
+        assertThat(accepted.getStatusCode().value(), is(202));
+        assertThat(limited.getStatusCode().value(), is(429));
+    }
+}
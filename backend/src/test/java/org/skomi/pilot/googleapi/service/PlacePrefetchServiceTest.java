@@ -0,0 +1,67 @@
+package org.skomi.pilot.googleapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.googleapi.model.PrefetchResult;
+import org.skomi.pilot.googleapi.publisher.CitySearchEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class PlacePrefetchServiceTest {
+
+    @Mock
+    private CitySearchEventPublisher citySearchEventPublisher;
+
+    private PlacePrefetchService placePrefetchService;
+
+    @BeforeEach
+    void setUp() {
+        placePrefetchService = new PlacePrefetchService(citySearchEventPublisher, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(placePrefetchService, "dedupeWindow", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(placePrefetchService, "rateWindow", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(placePrefetchService, "maxPerWindow", 2);
+        placePrefetchService.init();
+    }
+
+    /**
+     * Tests that a place picked again, also written differently or by another user, is prefetched only once.
+     */
+    @Test
+    void shouldPrefetchPlaceOnlyOnce() {
+        // when
+        PrefetchResult first = placePrefetchService.prefetch("alice@example.com", " Plzeň ");
+        PrefetchResult second = placePrefetchService.prefetch("bob@example.com", "PLZEN");
+
+        // then
+        assertThat(first).isEqualTo(PrefetchResult.REQUESTED);
+        assertThat(second).isEqualTo(PrefetchResult.DUPLICATE);
+        then(citySearchEventPublisher).should(times(1)).requestPlacePrefetch("Plzeň");
+    }
+
+    /**
+     * Tests that a user exceeding the allowed prefetches is limited without affecting other users.
+     */
+    @Test
+    void shouldLimitPrefetchesPerUser() {
+        // when
+        placePrefetchService.prefetch("alice@example.com", "Praha");
+        placePrefetchService.prefetch("alice@example.com", "Brno");
+        PrefetchResult limited = placePrefetchService.prefetch("alice@example.com", "Ostrava");
+        PrefetchResult other = placePrefetchService.prefetch("bob@example.com", "Ostrava");
+
+        // then
+        assertThat(limited).isEqualTo(PrefetchResult.RATE_LIMITED);
+        assertThat(other).isEqualTo(PrefetchResult.REQUESTED);
+        then(citySearchEventPublisher).should(times(1)).requestPlacePrefetch("Ostrava");
+    }
+}
@@ -0,0 +1,101 @@
+package org.skomi.pilot.shared.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.skomi.pilot.shared.exception.BulkheadRejectedException;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Tests that a call finding every slot taken is rejected right away and counted, while the running call
+     * completes and frees its slot.
+     */
+    @Test
+    void shouldRejectCallWhenSaturated() throws Exception {
+        // given
+        Bulkhead bulkhead = registry("bulkhead.google.max-concurrent", "1").get("google");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> bulkhead.call(() -> {
+            started.countDown();
+            await(release);
+            return "slow";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // when
+        assertThatThrownBy(() -> bulkhead.call(() -> "fast"))
+                .isInstanceOf(BulkheadRejectedException.class);
+        release.countDown();
+
+        // then
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        awaitIdle(bulkhead);
+        assertThat(bulkhead.call(() -> "fast")).isEqualTo("fast");
+        assertThat(meterRegistry.get("bulkhead.calls").tag("bulkhead", "google").tag("result", "rejected")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("bulkhead.calls").tag("bulkhead", "google").tag("result", "success")
+                .counter().count()).isEqualTo(2);
+    }
+
+    /**
+     * Tests that a hanging call releases its caller after the timeout and its slot once it is interrupted,
+     * and that failures of the dependency are rethrown as they are.
+     */
+    @Test
+    void shouldReleaseCallerOnTimeoutAndRethrowFailures() throws Exception {
+        // given
+        Bulkhead bulkhead = registry("bulkhead.default.timeout", "PT0.1S").get("avatar");
+
+        // when
+        assertThatThrownBy(() -> bulkhead.call(() -> {
+            await(new CountDownLatch(1));
+            return "never";
+        })).isInstanceOf(BulkheadRejectedException.class);
+
+        // then
+        awaitIdle(bulkhead);
+        assertThatThrownBy(() -> bulkhead.call(() -> {
+            throw new IllegalArgumentException("unknown image");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("unknown image");
+        assertThat(meterRegistry.get("bulkhead.calls").tag("bulkhead", "avatar").tag("result", "timeout")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("bulkhead.calls").tag("bulkhead", "avatar").tag("result", "failure")
+                .counter().count()).isEqualTo(1);
+    }
+
+    private BulkheadRegistry registry(String key, String value) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        environment.setProperty(key, value);
+        return new BulkheadRegistry(environment, meterRegistry);
+    }
+
+    private static void awaitIdle(Bulkhead bulkhead) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.active() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bulkhead.active()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
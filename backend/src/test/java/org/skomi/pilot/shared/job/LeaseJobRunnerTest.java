@@ -0,0 +1,171 @@
+package org.skomi.pilot.shared.job;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.JobRun;
+import org.skomi.pilot.shared.model.JobRunOutcome;
+import org.skomi.pilot.shared.repository.JobLeaseRepository;
+import org.skomi.pilot.shared.repository.JobRunRepository;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willReturn;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class LeaseJobRunnerTest {
+
+    @Mock
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Mock
+    private JobRunRepository jobRunRepository;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledFuture<?> heartbeat;
+
+    private LeaseJobRunner leaseJobRunner;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("job.default.lease", "PT5M")
+                .withProperty("job.cleanup.lease", "PT30S");
+        environment.setConversionService(new ApplicationConversionService());
+        leaseJobRunner = new LeaseJobRunner(jobLeaseRepository, jobRunRepository, taskScheduler, environment,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Tests that the instance taking the lease runs the job, releases the lease and records a successful run.
+     */
+    @Test
+    void shouldRunJobAndRecordRunWhenLeaseIsTaken() {
+        // given
+        given(jobLeaseRepository.acquire(eq("cleanup"), anyString(), eq(7L), eq(30L))).willReturn(1);
+        willReturn(heartbeat).given(taskScheduler).scheduleAtFixedRate(any(Runnable.class), any(Instant.class),
+                any(Duration.class));
+        AtomicInteger runs = new AtomicInteger();
+
+        // when
+        boolean ran = leaseJobRunner.runOnce("cleanup", 7, runs::incrementAndGet);
+
+        // then
+        assertThat(ran).isTrue();
+        assertThat(runs).hasValue(1);
+        then(jobLeaseRepository).should().release(eq("cleanup"), anyString(), eq(7L));
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        then(jobRunRepository).should().save(run.capture());
+        assertThat(run.getValue().getOutcome()).isEqualTo(JobRunOutcome.SUCCEEDED);
+        assertThat(run.getValue().getPeriod()).isEqualTo(7);
+    }
+
+    /**
+     * Tests that the lease is renewed every third of its length while the job runs and no longer once it finished.
+     */
+    @Test
+    void shouldRenewLeaseWhileJobRuns() {
+        // given
+        given(jobLeaseRepository.acquire(eq("cleanup"), anyString(), eq(7L), eq(30L))).willReturn(1);
+        willReturn(heartbeat).given(taskScheduler).scheduleAtFixedRate(any(Runnable.class), any(Instant.class),
+                any(Duration.class));
+
+        // when
+        leaseJobRunner.runOnce("cleanup", 7, () -> {
+        });
+
+        // then
+        ArgumentCaptor<Runnable> renewal = ArgumentCaptor.forClass(Runnable.class);
+        then(taskScheduler).should().scheduleAtFixedRate(renewal.capture(), any(Instant.class),
+                eq(Duration.ofSeconds(10)));
+        then(heartbeat).should().cancel(false);
+        renewal.getValue().run();
+        then(jobLeaseRepository).should().renew(eq("cleanup"), anyString(), eq(7L), eq(30L));
+    }
+
+    /**
+     * Tests that the job is skipped when another instance holds the lease of the period.
+     */
+    @Test
+    void shouldSkipJobWhenAnotherInstanceHoldsLease() {
+        // given
+        given(jobLeaseRepository.acquire(eq("cleanup"), anyString(), anyLong(), anyLong())).willReturn(0);
+        AtomicInteger runs = new AtomicInteger();
+
+        // when
+        boolean ran = leaseJobRunner.runOnce("cleanup", 7, runs::incrementAndGet);
+
+        // then
+        assertThat(ran).isFalse();
+        assertThat(runs).hasValue(0);
+        then(jobRunRepository).should(never()).save(any());
+    }
+
+    /**
+     * Tests that a failing job still releases its lease and is recorded as failed.
+     */
+    @Test
+    void shouldRecordFailedRun() {
+        // given
+        given(jobLeaseRepository.acquire(eq("cleanup"), anyString(), anyLong(), anyLong())).willReturn(1);
+        willReturn(heartbeat).given(taskScheduler).scheduleAtFixedRate(any(Runnable.class), any(Instant.class),
+                any(Duration.class));
+
+        // when
+        leaseJobRunner.runOnce("cleanup", 7, () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // then
+        then(heartbeat).should().cancel(false);
+        then(jobLeaseRepository).should().release(eq("cleanup"), anyString(), eq(7L));
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        then(jobRunRepository).should().save(run.capture());
+        assertThat(run.getValue().getOutcome()).isEqualTo(JobRunOutcome.FAILED);
+        assertThat(run.getValue().getError()).contains("boom");
+    }
+
+    /**
+     * Tests that ticks within the same period are submitted for the same period, at most the jitter later.
+     */
+    @Test
+    void shouldSubmitTicksOfSamePeriodWithJitter() {
+        // given
+        Instant tick = Instant.parse("2025-01-01T10:00:30Z");
+        given(jobLeaseRepository.acquire(eq("cleanup"), anyString(), anyLong(), anyLong())).willReturn(0);
+
+        // when
+        leaseJobRunner.submit("cleanup", tick, Duration.ofMinutes(1), () -> {
+        });
+
+        // then
+        ArgumentCaptor<Runnable> attempt = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> startAt = ArgumentCaptor.forClass(Instant.class);
+        then(taskScheduler).should().schedule(attempt.capture(), startAt.capture());
+        assertThat(startAt.getValue()).isBefore(Instant.now().plusSeconds(11));
+        attempt.getValue().run();
+        then(jobLeaseRepository).should().acquire(eq("cleanup"), anyString(),
+                eq(tick.toEpochMilli() / Duration.ofMinutes(1).toMillis()), eq(30L));
+    }
+}
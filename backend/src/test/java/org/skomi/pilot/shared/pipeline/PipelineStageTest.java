@@ -0,0 +1,97 @@
+package org.skomi.pilot.shared.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineStageTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PipelineStage<String> stage;
+
+    @AfterEach
+    void tearDown() {
+        stage.close();
+    }
+
+    /**
+     * Tests that items of the same key are handled in the order they were submitted, in micro-batches.
+     */
+    @Test
+    void shouldKeepOrderPerKeyAndHandleMicroBatches() {
+        // given
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        stage = stage(new PipelineStageSettings(4, 100, 10, Duration.ofMillis(50), Duration.ofSeconds(1), Duration.ofSeconds(1)),
+                batch -> {
+                    batchSizes.add(batch.size());
+                    handled.addAll(batch);
+                });
+        List<String> items = IntStream.range(0, 20).mapToObj(i -> "Prague:" + i).toList();
+
+        // when
+        stage.submitAll(items).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // then
+        assertThat(handled).containsExactlyElementsOf(items);
+        assertThat(batchSizes).allMatch(size -> size <= 10).hasSizeLessThan(20);
+        assertThat(meterRegistry.get("pipeline.stage.latency").tag("stage", "test").timer().count()).isEqualTo(20);
+    }
+
+    /**
+     * Tests that an item is dropped and counted when its lane stays full for longer than the offer timeout.
+     */
+    @Test
+    void shouldDropItemWhenQueueStaysFull() throws InterruptedException {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        stage = stage(new PipelineStageSettings(1, 1, 1, Duration.ZERO, Duration.ofMillis(50), Duration.ofSeconds(1)),
+                batch -> {
+                    started.countDown();
+                    await(release);
+                });
+        CompletableFuture<Void> first = stage.submit("Prague:1");
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Void> queued = stage.submit("Prague:2");
+
+        // when
+        CompletableFuture<Void> dropped = stage.submit("Prague:3");
+
+        // then
+        assertThat(dropped).isCompletedExceptionally();
+        assertThat(dropped.exceptionNow()).isInstanceOf(RejectedExecutionException.class);
+        assertThat(stage.depth()).isEqualTo(1);
+        assertThat(meterRegistry.get("pipeline.stage.dropped").tag("stage", "test").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        CompletableFuture.allOf(first, queued).orTimeout(5, TimeUnit.SECONDS).join();
+    }
+
+    private PipelineStage<String> stage(PipelineStageSettings settings, Consumer<List<String>> handler) {
+        return new PipelineStage<>("test", item -> item.split(":")[0], handler, settings, meterRegistry);
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
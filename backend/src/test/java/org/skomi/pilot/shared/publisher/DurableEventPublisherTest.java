@@ -0,0 +1,149 @@
+package org.skomi.pilot.shared.publisher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.event.DurableEventListener;
+import org.skomi.pilot.shared.event.GetPlaceWeatherDataHistoryEvent;
+import org.skomi.pilot.shared.model.EventPublication;
+import org.skomi.pilot.shared.repository.EventPublicationRepository;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class DurableEventPublisherTest {
+
+    private static final String GET_HISTORY = GetPlaceWeatherDataHistoryEvent.class.getName();
+
+    @Mock
+    private EventPublicationRepository eventPublicationRepository;
+
+    @Mock
+    private ApplicationContext applicationContext;
+
+    private final HistoryListener historyListener = new HistoryListener();
+
+    private DurableEventPublisher durableEventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        durableEventPublisher = new DurableEventPublisher(eventPublicationRepository, new ObjectMapper(),
+                new SimpleMeterRegistry(), applicationContext);
+        durableEventPublisher.register(historyListener);
+    }
+
+    /**
+     * Tests that a publication is stored for the listener and completed once the listener has handled the event.
+     */
+    @Test
+    void shouldStorePublicationAndCompleteItAfterDelivery() {
+        // when
+        durableEventPublisher.publish(new GetPlaceWeatherDataHistoryEvent("Prague"));
+
+        // then
+        ArgumentCaptor<UUID> id = ArgumentCaptor.forClass(UUID.class);
+        then(eventPublicationRepository).should().insert(id.capture(), startsWith(HistoryListener.class.getName()),
+                eq(GET_HISTORY), eq("{\"place\":\"Prague\"}"));
+        then(eventPublicationRepository).should(timeout(1000)).complete(id.getValue());
+        assertThat(historyListener.places).containsExactly("Prague");
+    }
+
+    /**
+     * Tests that a failed delivery leaves the publication incomplete with the failure recorded.
+     */
+    @Test
+    void shouldKeepPublicationIncompleteWhenListenerFails() {
+        // when
+        durableEventPublisher.publish(new GetPlaceWeatherDataHistoryEvent("Atlantis"));
+
+        // then
+        then(eventPublicationRepository).should(timeout(1000)).fail(any(UUID.class), contains("unknown place"));
+        then(eventPublicationRepository).should(never()).complete(any());
+    }
+
+    /**
+     * Tests that a stored publication is read back and delivered again to its listener.
+     */
+    @Test
+    void shouldRedeliverStoredPublication() {
+        // given
+        UUID id = UUID.randomUUID();
+        EventPublication publication = new EventPublication(id,
+                HistoryListener.class.getName() + ".onHistory(" + GET_HISTORY + ")", GET_HISTORY,
+                "{\"place\":\"Brno\"}", null, null, 2, null, null);
+
+        // when
+        boolean redelivered = durableEventPublisher.redeliver(publication);
+
+        // then
+        assertThat(redelivered).isTrue();
+        then(eventPublicationRepository).should(timeout(1000)).complete(id);
+        assertThat(historyListener.places).containsExactly("Brno");
+        then(eventPublicationRepository).should(never()).insert(any(), anyString(), anyString(), anyString());
+    }
+
+    /**
+     * Tests that a running delivery is renewed, so it is not claimed again, and is no longer renewed once it ends.
+     */
+    @Test
+    void shouldRenewRunningDeliveryUntilItEnds() throws InterruptedException {
+        // given
+        durableEventPublisher.publish(new GetPlaceWeatherDataHistoryEvent("Ostrava"));
+        assertThat(historyListener.started.await(1, TimeUnit.SECONDS)).isTrue();
+        ArgumentCaptor<UUID> id = ArgumentCaptor.forClass(UUID.class);
+        then(eventPublicationRepository).should().insert(id.capture(), anyString(), anyString(), anyString());
+
+        // when
+        durableEventPublisher.renewInFlight();
+        historyListener.release.countDown();
+        ReflectionTestUtils.setField(durableEventPublisher, "shutdownTimeout", Duration.ofSeconds(1));
+        durableEventPublisher.shutdown();
+        durableEventPublisher.renewInFlight();
+
+        // then
+        then(eventPublicationRepository).should().complete(id.getValue());
+        then(eventPublicationRepository).should(times(1)).renew(List.of(id.getValue()));
+    }
+
+    static class HistoryListener {
+
+        private final List<String> places = new CopyOnWriteArrayList<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @DurableEventListener
+        public void onHistory(GetPlaceWeatherDataHistoryEvent event) throws InterruptedException {
+            if (event.getPlace().equals("Atlantis")) {
+                throw new IllegalArgumentException("unknown place");
+            }
+            if (event.getPlace().equals("Ostrava")) {
+                started.countDown();
+                release.await();
+            }
+            places.add(event.getPlace());
+        }
+    }
+}
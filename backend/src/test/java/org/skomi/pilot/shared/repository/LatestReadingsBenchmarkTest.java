@@ -0,0 +1,125 @@
+package org.skomi.pilot.shared.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.skomi.pilot.shared.repository.impl.PlaceHistoryRepositoryCustomImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares reading the latest ten readings of the sensors of a PLC by the former correlated subquery with reading
+ * them by the lateral top-N query, over the whole history and within the recent window, by the time per call.
+ * Every place gets a reading every hour of {@code DAYS} days.
+ * Runs against the migrated database given by {@code benchmark.url}, {@code benchmark.username} and
+ * {@code benchmark.password}. The generated history is committed and vacuumed, so the index is read as in production,
+ * and deleted afterwards.
+ * Run with {@code mvn test -Dtest=LatestReadingsBenchmarkTest -Dbenchmark=true -Dbenchmark.url=...}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LatestReadingsBenchmarkTest {
+
+    private static final int PLACES = 50;
+    private static final int DAYS = 365;
+    private static final int SENSORS_PER_PLC = 8;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private static final String CORRELATED = """
+            SELECT s.id as sensor_id,
+                   t.updated_at as date,
+                   t.temperature as temperature
+            FROM sensor s
+            JOIN place_history t ON s.place_id = t.place_id
+            WHERE s.id IN (:sensorIds)
+            AND t.updated_at >= (
+                SELECT t2.updated_at
+                FROM place_history t2
+                WHERE t2.place_id = s.place_id
+                ORDER BY updated_at DESC
+                LIMIT 1 OFFSET 9
+            )
+            ORDER BY s.id, t.updated_at DESC
+            """;
+
+    private JdbcTemplate jdbcTemplate;
+    private PlaceHistoryRepositoryCustomImpl placeHistoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                System.getProperty("benchmark.url", "jdbc:postgresql://localhost:5432/pilot?currentSchema=pilot"),
+                System.getProperty("benchmark.username", "postgres"),
+                System.getProperty("benchmark.password", ""), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        placeHistoryRepository = new PlaceHistoryRepositoryCustomImpl(jdbcTemplate);
+    }
+
+    /**
+     * Compares the two queries on the sensors of a PLC.
+     */
+    @Test
+    void compareCorrelatedWithLateral() {
+        List<String> placeIds = IntStream.range(0, PLACES).mapToObj(i -> "benchmark-place-" + i).toList();
+        try {
+            placeIds.forEach(placeId -> jdbcTemplate.update(
+                    "INSERT INTO place (id, temperature, condition) VALUES (?, 0, 'undefined')", placeId));
+            List<String> plcPlaceIds = placeIds.subList(0, SENSORS_PER_PLC);
+            List<UUID> sensorIds = plcPlaceIds.stream().map(placeId -> {
+                UUID sensorId = UUID.randomUUID();
+                jdbcTemplate.update("INSERT INTO sensor (id, place_id) VALUES (?, ?)", sensorId, placeId);
+                return sensorId;
+            }).toList();
+            jdbcTemplate.update("""
+                    INSERT INTO place_history (place_id, temperature, condition, created_at, updated_at)
+                    SELECT p.id, round((random() * 30 - 5)::numeric, 1), 'Sunny', h, h
+                    FROM place p
+                    CROSS JOIN generate_series(now() - make_interval(days => ?), now(), interval '1 hour') h
+                    WHERE p.id LIKE 'benchmark-place-%'
+                    """, DAYS);
+            jdbcTemplate.execute("VACUUM ANALYZE place_history");
+
+            NamedParameterJdbcTemplate named = new NamedParameterJdbcTemplate(jdbcTemplate);
+            double correlated = measure(() -> named.queryForList(CORRELATED, Map.of("sensorIds", sensorIds)).size());
+            double lateral = measure(() -> placeHistoryRepository.findLatestReadings(plcPlaceIds, 10, null).size());
+            double windowed = measure(() -> placeHistoryRepository.findLatestReadings(plcPlaceIds, 10,
+                    OffsetDateTime.now().minusDays(7)).size());
+
+            System.out.printf("%d places, %d readings each%n", PLACES, DAYS * 24);
+            System.out.printf("correlated subquery:   %8.3f ms/op%n", correlated);
+            System.out.printf("lateral top-N:         %8.3f ms/op (%.1fx)%n", lateral, correlated / lateral);
+            System.out.printf("lateral top-N, 7 days: %8.3f ms/op (%.1fx)%n", windowed, correlated / windowed);
+            assertThat(lateral).isLessThan(correlated);
+            assertThat(windowed).isLessThan(lateral);
+        } finally {
+            jdbcTemplate.update("DELETE FROM sensor WHERE place_id LIKE 'benchmark-place-%'");
+            jdbcTemplate.update("DELETE FROM place_history WHERE place_id LIKE 'benchmark-place-%'");
+            jdbcTemplate.update("DELETE FROM place WHERE id LIKE 'benchmark-place-%'");
+        }
+    }
+
+    private double measure(Query query) {
+        for (int i = 0; i < WARMUP; i++) {
+            assertThat(query.run()).isEqualTo(SENSORS_PER_PLC * 10);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        int run();
+    }
+}
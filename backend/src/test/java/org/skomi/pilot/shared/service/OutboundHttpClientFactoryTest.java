@@ -0,0 +1,110 @@
+package org.skomi.pilot.shared.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboundHttpClientFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private OutboundHttpClientFactory outboundHttpClientFactory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/weather", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "{\"temp\":21.5}".getBytes(StandardCharsets.UTF_8);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(body);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("outbound.http.default.response-timeout", "PT5S")
+                .withProperty("outbound.http.test.max-connections", "2");
+        environment.setConversionService(new ApplicationConversionService());
+        outboundHttpClientFactory = new OutboundHttpClientFactory(environment, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboundHttpClientFactory.close();
+        server.stop(0);
+    }
+
+    /**
+     * Tests that gzip-compressed responses are decompressed and that consecutive calls reuse one connection.
+     */
+    @Test
+    void shouldDecompressResponsesOverReusedConnection() {
+        // given
+        RestTemplate restTemplate = outboundHttpClientFactory.restTemplate("test");
+
+        // when
+        String first = restTemplate.getForObject(url("/weather"), String.class);
+        String second = restTemplate.getForObject(url("/weather"), String.class);
+
+        // then
+        assertThat(first).isEqualTo("{\"temp\":21.5}");
+        assertThat(second).isEqualTo(first);
+        assertThat(clientPorts).hasSize(1);
+        assertThat(meterRegistry.timer("http.outbound.requests",
+                "target", "test", "host", "localhost", "method", "GET", "status", "200").count()).isEqualTo(2);
+    }
+
+    /**
+     * Tests that error responses are counted per target and host.
+     */
+    @Test
+    void shouldCountErrorResponses() {
+        // given
+        RestTemplate restTemplate = outboundHttpClientFactory.restTemplate("test");
+
+        // when / then
+        assertThatThrownBy(() -> restTemplate.getForObject(url("/missing"), String.class))
+                .isInstanceOf(HttpClientErrorException.NotFound.class);
+        assertThat(meterRegistry.counter("http.outbound.errors",
+                "target", "test", "host", "localhost", "reason", "4xx").count()).isEqualTo(1);
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,85 @@
+package org.skomi.pilot.shared.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceHistoryPartitionServiceTest {
+
+    @Mock
+    private PlaceHistoryRepository placeHistoryRepository;
+
+    @Mock
+    private LeaseJobRunner leaseJobRunner;
+
+    @InjectMocks
+    private PlaceHistoryPartitionService placeHistoryPartitionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(placeHistoryPartitionService, "premakeMonths", 2);
+        ReflectionTestUtils.setField(placeHistoryPartitionService, "retentionMonths", 12);
+    }
+
+    /**
+     * Tests that the partitions of the current and the coming months are created and that only the partitions
+     * older than the retention are dropped, along with the older records of the default partition.
+     */
+    @Test
+    void shouldCreateComingPartitionsAndDropExpiredOnes() {
+        // given
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth oldestKept = current.minusMonths(12);
+        given(placeHistoryRepository.findPartitions()).willReturn(List.of(
+                oldestKept.minusMonths(2), oldestKept.minusMonths(1), oldestKept, current));
+        given(placeHistoryRepository.createPartition(any())).willReturn(false);
+
+        // when
+        placeHistoryPartitionService.maintain();
+
+        // then
+        then(placeHistoryRepository).should().createPartition(current);
+        then(placeHistoryRepository).should().createPartition(current.plusMonths(1));
+        then(placeHistoryRepository).should().createPartition(current.plusMonths(2));
+        then(placeHistoryRepository).should().dropPartition(oldestKept.minusMonths(2));
+        then(placeHistoryRepository).should().dropPartition(oldestKept.minusMonths(1));
+        then(placeHistoryRepository).should(never()).dropPartition(oldestKept);
+        then(placeHistoryRepository).should().deleteBefore(oldestKept.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC));
+        then(placeHistoryRepository).should()
+                .deleteHourlyRollupsBefore(oldestKept.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Tests that no partition is dropped when the retention is disabled.
+     */
+    @Test
+    void shouldKeepHistoryWithoutRetention() {
+        // given
+        ReflectionTestUtils.setField(placeHistoryPartitionService, "retentionMonths", 0);
+
+        // when
+        placeHistoryPartitionService.maintain();
+
+        // then
+        then(placeHistoryRepository).should().createPartition(YearMonth.now(ZoneOffset.UTC));
+        then(placeHistoryRepository).should(never()).findPartitions();
+        then(placeHistoryRepository).should(never()).deleteBefore(any());
+        then(placeHistoryRepository).should(never()).deleteHourlyRollupsBefore(any());
+    }
+}
@@ -0,0 +1,154 @@
+package org.skomi.pilot.shared.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.PlaceReading;
+import org.skomi.pilot.shared.model.PlaceTemperatureStats;
+import org.skomi.pilot.shared.repository.PlaceHistoryRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceHistoryServiceTest {
+
+    private static final Set<String> PLACES = Set.of("prague");
+
+    @Mock
+    private PlaceHistoryRepository placeHistoryRepository;
+
+    @InjectMocks
+    private PlaceHistoryService placeHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(placeHistoryService, "rawMaxRange", Duration.ofHours(6));
+        ReflectionTestUtils.setField(placeHistoryService, "hourlyMaxRange", Duration.ofDays(14));
+        ReflectionTestUtils.setField(placeHistoryService, "latestWindow", Duration.ofDays(7));
+    }
+
+    /**
+     * Tests that a short range is read from the single readings only.
+     */
+    @Test
+    void shouldReadShortRangeFromReadings() {
+        // given
+        OffsetDateTime from = OffsetDateTime.of(2025, 3, 10, 8, 20, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime to = from.plusHours(5);
+
+        // when
+        placeHistoryService.findTemperatureStats(PLACES, from, to);
+
+        // then
+        then(placeHistoryRepository).should().findRawTemperatureStats(PLACES, from, to);
+        then(placeHistoryRepository).should(never()).findHourlyTemperatureStats(any(), any(), any());
+        then(placeHistoryRepository).should(never()).findDailyTemperatureStats(any(), any(), any());
+    }
+
+    /**
+     * Tests that a long range is read from the daily rollups for its whole days, from the hourly rollups for the
+     * whole hours around them and from the readings for the partial hours at its edges.
+     */
+    @Test
+    void shouldComposeLongRangeFromRollupsAndEdgeReadings() {
+        // given
+        OffsetDateTime from = OffsetDateTime.of(2025, 3, 1, 22, 30, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime to = OffsetDateTime.of(2025, 3, 31, 1, 45, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime firstHour = from.plusMinutes(30);
+        OffsetDateTime firstDay = firstHour.plusHours(1);
+        OffsetDateTime lastDay = to.minusHours(1).minusMinutes(45);
+        OffsetDateTime lastHour = lastDay.plusHours(1);
+        given(placeHistoryRepository.findDailyTemperatureStats(PLACES, firstDay, lastDay)).willReturn(List.of(
+                new PlaceTemperatureStats("prague", firstDay, 1.0, 9.0, 5.0, 24L)));
+        given(placeHistoryRepository.findRawTemperatureStats(PLACES, from, firstHour)).willReturn(List.of(
+                new PlaceTemperatureStats("prague", from.plusMinutes(5), 3.0, 3.0, 3.0, 1L)));
+
+        // when
+        List<PlaceTemperatureStats> stats = placeHistoryService.findTemperatureStats(PLACES, from, to);
+
+        // then
+        then(placeHistoryRepository).should().findHourlyTemperatureStats(PLACES, firstHour, firstDay);
+        then(placeHistoryRepository).should().findHourlyTemperatureStats(PLACES, lastDay, lastHour);
+        then(placeHistoryRepository).should().findRawTemperatureStats(PLACES, lastHour, to);
+        assertThat(stats).extracting(PlaceTemperatureStats::bucket).containsExactly(from.plusMinutes(5), firstDay);
+    }
+
+    /**
+     * Tests that the statistics of the current day cover the day as counted by the database clock.
+     */
+    @Test
+    void shouldReadTodayByDatabaseClock() {
+        // given
+        OffsetDateTime today = OffsetDateTime.of(2025, 3, 10, 0, 0, 0, 0, ZoneOffset.UTC);
+        given(placeHistoryRepository.findStartOfDay(0)).willReturn(today);
+        given(placeHistoryRepository.findStartOfDay(1)).willReturn(today.plusDays(1));
+
+        // when
+        placeHistoryService.findTodayTemperatureStats(PLACES);
+
+        // then
+        then(placeHistoryRepository).should().findHourlyTemperatureStats(PLACES, today, today.plusDays(1));
+    }
+
+    /**
+     * Tests that the temperature delta of a place spans all the buckets of the window.
+     */
+    @Test
+    void shouldComputeDeltaAcrossBuckets() {
+        // given
+        OffsetDateTime since = OffsetDateTime.now().minusHours(3);
+        given(placeHistoryRepository.findRawTemperatureStats(any(), any(), any())).willReturn(List.of(
+                new PlaceTemperatureStats("prague", since.plusHours(1), 4.0, 4.0, 4.0, 1L),
+                new PlaceTemperatureStats("prague", since.plusHours(2), 7.5, 7.5, 7.5, 1L)));
+
+        // when
+        Map<String, Double> deltas = placeHistoryService.findTemperatureDeltas(PLACES, since);
+
+        // then
+        assertThat(deltas).containsEntry("prague", 3.5);
+    }
+
+    /**
+     * Tests that the latest readings are looked up in the whole history only for the places with too few readings
+     * in the recent window.
+     */
+    @Test
+    void shouldLookUpWholeHistoryOnlyForIncompletePlaces() {
+        // given
+        OffsetDateTime now = OffsetDateTime.now();
+        given(placeHistoryRepository.findLatestReadings(eq(List.of("prague", "brno")), eq(2), notNull()))
+                .willReturn(List.of(
+                new PlaceReading("prague", now, 4.0),
+                new PlaceReading("prague", now.minusHours(1), 3.0),
+                new PlaceReading("brno", now, 6.0)));
+        given(placeHistoryRepository.findLatestReadings(List.of("brno"), 2, null)).willReturn(List.of(
+                new PlaceReading("brno", now, 6.0),
+                new PlaceReading("brno", now.minusDays(30), 1.0)));
+
+        // when
+        Map<String, List<PlaceReading>> readings = placeHistoryService.findLatestReadings(List.of("prague", "brno"), 2);
+
+        // then
+        assertThat(readings.get("prague")).extracting(PlaceReading::temperature).containsExactly(4.0, 3.0);
+        assertThat(readings.get("brno")).extracting(PlaceReading::temperature).containsExactly(6.0, 1.0);
+        then(placeHistoryRepository).should(never()).findLatestReadings(eq(List.of("prague", "brno")), eq(2), isNull());
+    }
+}
@@ -0,0 +1,112 @@
+package org.skomi.pilot.shared.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceAlias;
+import org.skomi.pilot.shared.model.PlaceCell;
+import org.skomi.pilot.shared.repository.PlaceAliasRepository;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceRegistryTest {
+
+    @Mock
+    private PlaceRepository placeRepository;
+
+    @Mock
+    private PlaceAliasRepository placeAliasRepository;
+
+    private PlaceRegistry placeRegistry;
+
+    @BeforeEach
+    void setUp() {
+        placeRegistry = new PlaceRegistry(placeRepository, placeAliasRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(placeRegistry, "geoEnabled", true);
+        ReflectionTestUtils.setField(placeRegistry, "cellSize", 0.05);
+    }
+
+    /**
+     * Tests that differently written names resolve to the registered place and unknown names to themselves, trimmed.
+     */
+    @Test
+    void shouldResolveNamesByAlias() {
+        // given
+        given(placeAliasRepository.findByAliases(List.of("plzen", "brno")))
+                .willReturn(List.of(new PlaceAlias("plzen", "Plzeň")));
+
+        // when
+        Map<String, String> resolved = placeRegistry.resolveAll(List.of(" PLZEN ", "Brno  ", ""));
+
+        // then
+        assertThat(resolved).containsEntry(" PLZEN ", "Plzeň").containsEntry("Brno  ", "Brno").containsEntry("", "");
+    }
+
+    /**
+     * Tests that a place located in the geo cell of another place is merged into it and its weather data is
+     * carried over to that place.
+     */
+    @Test
+    void shouldMergePlaceIntoPlaceRepresentingItsCell() {
+        // given
+        Place praha = place("Praha", 50.08, 14.42, 12.0);
+        String cell = placeRegistry.geoCell(50.08, 14.42);
+        given(placeRepository.findCells(List.of("Praha"))).willReturn(List.of(new PlaceCell("Praha", null)));
+        given(placeRepository.claimGeoCell("Praha", cell)).willReturn(0);
+        given(placeRepository.findIdByGeoCell(cell)).willReturn(Optional.of("Prague"));
+        given(placeRepository.existsById("Prague")).willReturn(true);
+
+        // when
+        List<Place> places = placeRegistry.collapse(List.of(praha));
+
+        // then
+        then(placeRepository).should().merge("Praha", "Prague", "praha");
+        assertThat(places).singleElement().satisfies(place -> {
+            assertThat(place.getId()).isEqualTo("Prague");
+            assertThat(place.getTemperature()).isEqualTo(12.0);
+        });
+    }
+
+    /**
+     * Tests that a place claiming a free cell, or already representing one, is kept as it is.
+     */
+    @Test
+    void shouldKeepPlacesRepresentingTheirCells() {
+        // given
+        Place brno = place("Brno", 49.19, 16.61, 10.0);
+        Place ostrava = place("Ostrava", 49.82, 18.26, 8.0);
+        given(placeRepository.findCells(List.of("Brno", "Ostrava")))
+                .willReturn(List.of(new PlaceCell("Brno", null), new PlaceCell("Ostrava", "996:365")));
+        given(placeRepository.claimGeoCell("Brno", placeRegistry.geoCell(49.19, 16.61))).willReturn(1);
+
+        // when
+        List<Place> places = placeRegistry.collapse(List.of(brno, ostrava));
+
+        // then
+        assertThat(places).containsExactly(brno, ostrava);
+        then(placeRepository).should(never()).merge(anyString(), anyString(), anyString());
+    }
+
+    private Place place(String id, double lat, double lon, double temperature) {
+        Place place = new Place(id);
+        place.setLat(lat);
+        place.setLon(lon);
+        place.setTemperature(temperature);
+        return place;
+    }
+}
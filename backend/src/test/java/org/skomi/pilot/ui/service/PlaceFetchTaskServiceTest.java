@@ -0,0 +1,111 @@
+package org.skomi.pilot.ui.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.job.LeaseJobRunner;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.model.PlaceFetchKind;
+import org.skomi.pilot.shared.model.PlaceFetchTask;
+import org.skomi.pilot.shared.repository.PlaceFetchTaskRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
+import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceFetchTaskServiceTest {
+
+    @Mock
+    private PlaceFetchTaskRepository placeFetchTaskRepository;
+
+    @Mock
+    private DiagramEventPublisher diagramEventPublisher;
+
+    @Mock
+    private PlaceHistoryService placeHistoryService;
+
+    @Mock
+    private LeaseJobRunner leaseJobRunner;
+
+    @InjectMocks
+    private PlaceFetchTaskService placeFetchTaskService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(placeFetchTaskService, "batchSize", 50);
+        ReflectionTestUtils.setField(placeFetchTaskService, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(placeFetchTaskService, "maxAttempts", 5);
+    }
+
+    /**
+     * Tests that claimed tasks request the history of every place and the actual weather of all places at once.
+     */
+    @Test
+    void shouldRequestFetchesOfClaimedTasks() {
+        // given
+        given(placeFetchTaskRepository.claim(50, 120, 5)).willReturn(List.of(
+                task("Prague", PlaceFetchKind.HISTORY),
+                task("Prague", PlaceFetchKind.ACTUAL),
+                task("Brno", PlaceFetchKind.ACTUAL)));
+
+        // when
+        placeFetchTaskService.poll();
+
+        // then
+        then(diagramEventPublisher).should().requestWeatherDataHistoryForPlace("Prague");
+        then(diagramEventPublisher).should().requestWeatherDataForPlaces(List.of(new Place("Prague"), new Place("Brno")));
+    }
+
+    /**
+     * Tests that nothing is requested when no task is due.
+     */
+    @Test
+    void shouldNotRequestAnythingWithoutDueTasks() {
+        // given
+        given(placeFetchTaskRepository.claim(50, 120, 5)).willReturn(List.of());
+
+        // when
+        placeFetchTaskService.poll();
+
+        // then
+        then(diagramEventPublisher).should(never()).requestWeatherDataForPlaces(any());
+        then(diagramEventPublisher).should(never()).requestWeatherDataHistoryForPlace(anyString());
+    }
+
+    /**
+     * Tests that the daily gap scan queues the history fetches of the places with gaps in their history.
+     */
+    @Test
+    void shouldQueueHistoryFetchesOfPlacesWithGaps() {
+        // given
+        given(placeHistoryService.findPlacesWithGaps()).willReturn(List.of("Prague", "Brno"));
+
+        // when
+        placeFetchTaskService.scanHistoryGaps();
+
+        // then
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        then(leaseJobRunner).should().submit(eq("place-history-gap-scan"), any(), eq(Duration.ofDays(1)), job.capture());
+        job.getValue().run();
+        then(placeFetchTaskRepository).should().enqueue("Prague", PlaceFetchKind.HISTORY.name());
+        then(placeFetchTaskRepository).should().enqueue("Brno", PlaceFetchKind.HISTORY.name());
+    }
+
+    private PlaceFetchTask task(String placeId, PlaceFetchKind kind) {
+        return new PlaceFetchTask(null, placeId, kind, null, 1, null);
+    }
+}
@@ -0,0 +1,112 @@
+package org.skomi.pilot.ui.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.PlaceRefreshSchedule;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.skomi.pilot.ui.model.PlaceRefreshPlan;
+import org.skomi.pilot.ui.model.PlaceRefreshReason;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceRefreshPlannerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T10:00:00Z");
+    private static final OffsetDateTime NOW_UTC = NOW.atOffset(ZoneOffset.UTC);
+
+    @Mock
+    private PlaceRepository placeRepository;
+
+    @InjectMocks
+    private PlaceRefreshPlanner placeRefreshPlanner;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(placeRefreshPlanner, "defaultCadence", Duration.ofHours(1));
+        ReflectionTestUtils.setField(placeRefreshPlanner, "hotCadence", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(placeRefreshPlanner, "coldCadence", Duration.ofHours(3));
+        ReflectionTestUtils.setField(placeRefreshPlanner, "volatilityWindow", Duration.ofHours(3));
+        ReflectionTestUtils.setField(placeRefreshPlanner, "volatileDelta", 2.0);
+        ReflectionTestUtils.setField(placeRefreshPlanner, "flatDelta", 0.5);
+    }
+
+    /**
+     * Tests that the due places are looked up in the database, including places due within the tolerance.
+     */
+    @Test
+    void shouldSelectDuePlacesWithinTolerance() {
+        // when
+        placeRefreshPlanner.selectDue(2, 4, NOW);
+
+        // then
+        then(placeRepository).should().findDueInBucket(2, 4, NOW_UTC.plusSeconds(30));
+    }
+
+    /**
+     * Tests that the cadence follows the watchers and the temperature delta of the place and is stored with it.
+     */
+    @Test
+    void shouldPlanCadenceByWatchersAndVolatility() {
+        // when
+        placeRefreshPlanner.plan(
+                List.of("Watched", "Volatile", "Flat", "Default", "Unknown"),
+                Set.of("Watched"),
+                Map.of("Watched", 0.0, "Volatile", 4.5, "Flat", 0.1, "Default", 1.0),
+                NOW);
+
+        // then
+        then(placeRepository).should().plan(List.of("Watched"), "WATCHED", NOW_UTC, NOW_UTC.plusMinutes(10));
+        then(placeRepository).should().plan(List.of("Volatile"), "VOLATILE", NOW_UTC, NOW_UTC.plusMinutes(10));
+        then(placeRepository).should().plan(List.of("Flat"), "FLAT", NOW_UTC, NOW_UTC.plusHours(3));
+        then(placeRepository).should().plan(List.of("Default", "Unknown"), "DEFAULT", NOW_UTC, NOW_UTC.plusHours(1));
+    }
+
+    /**
+     * Tests that watched places are brought forward to the hot cadence and nothing is written without them.
+     */
+    @Test
+    void shouldShortenPlanOfWatchedPlace() {
+        // when
+        placeRefreshPlanner.watch(Set.of("Flat"));
+        placeRefreshPlanner.watch(Set.of());
+
+        // then
+        then(placeRepository).should().watch(Set.of("Flat"), "WATCHED", 600);
+        then(placeRepository).should(never()).watch(Set.of(), "WATCHED", 600);
+    }
+
+    /**
+     * Tests that a stored plan is read back with the cadence of its reason.
+     */
+    @Test
+    void shouldReadStoredPlan() {
+        // given
+        given(placeRepository.findRefreshSchedule("Flat")).willReturn(Optional.of(
+                new PlaceRefreshSchedule("Flat", "FLAT", NOW_UTC, NOW_UTC.plusHours(3))));
+
+        // when
+        Optional<PlaceRefreshPlan> plan = placeRefreshPlanner.getPlan("Flat");
+
+        // then
+        assertThat(plan).contains(new PlaceRefreshPlan("Flat", PlaceRefreshReason.FLAT, Duration.ofHours(3),
+                NOW, NOW.plus(Duration.ofHours(3))));
+    }
+}
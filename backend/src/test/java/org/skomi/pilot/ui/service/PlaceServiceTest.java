@@ -0,0 +1,50 @@
+package org.skomi.pilot.ui.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.skomi.pilot.shared.service.PlaceHistoryService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+@ExtendWith(MockitoExtension.class)
+class PlaceServiceTest {
+
+    @Mock
+    private PlaceRepository placeRepository;
+
+    @Mock
+    private PlaceHistoryService placeHistoryService;
+
+    @InjectMocks
+    private PlaceService placeService;
+
+    /**
+     * Tests that the averages kept by the database are loaded in a single query without touching the history.
+     */
+    @Test
+    void shouldRefreshAverageTemperaturesFromStoredAggregates() {
+        // given
+        Place storedPrague = new Place("Prague");
+        storedPrague.setAverageTemperature(11.25);
+        given(placeRepository.findAllById(List.of("Prague", "Brno"))).willReturn(List.of(storedPrague));
+        Place prague = new Place("Prague");
+        Place brno = new Place("Brno");
+
+        // when
+        placeService.refreshAverageTemperatures(List.of(prague, brno));
+
+        // then
+        assertThat(prague.getAverageTemperature()).isEqualTo(11.25);
+        assertThat(brno.getAverageTemperature()).isNull();
+        then(placeHistoryService).shouldHaveNoInteractions();
+    }
+}
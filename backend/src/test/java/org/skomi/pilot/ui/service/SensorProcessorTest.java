@@ -0,0 +1,74 @@
+package org.skomi.pilot.ui.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.repository.PlaceRepository;
+import org.skomi.pilot.shared.service.PlaceRegistry;
+import org.skomi.pilot.ui.publisher.DiagramEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class SensorProcessorTest {
+
+    @Mock
+    private PlaceRepository placeRepository;
+
+    @Mock
+    private PlaceFetchTaskService placeFetchTaskService;
+
+    @Mock
+    private PlaceRegistry placeRegistry;
+
+    @Mock
+    private DiagramEventPublisher diagramEventPublisher;
+
+    @InjectMocks
+    private SensorProcessor sensorProcessor;
+
+    /**
+     * Tests that a picked place not stored yet is only prefetched into the weather caches, without storing it
+     * or queueing its fetches.
+     */
+    @Test
+    void shouldPrefetchUnknownPlaceWithoutStoringIt() {
+        // given
+        given(placeRegistry.resolveAll(List.of(" Plzeň "))).willReturn(Map.of(" Plzeň ", "Plzeň"));
+        given(placeRepository.existsById("Plzeň")).willReturn(false);
+
+        // when
+        sensorProcessor.prefetchPlace(" Plzeň ");
+
+        // then
+        then(diagramEventPublisher).should().requestWeatherPrefetchForPlace("Plzeň");
+        then(placeRepository).should(never()).upsert(anyString());
+        then(placeRegistry).should(never()).register(anyString());
+        then(placeFetchTaskService).should(never()).enqueue(anyString(), any());
+    }
+
+    /**
+     * Tests that a place already stored is not prefetched, it is refreshed anyway.
+     */
+    @Test
+    void shouldNotPrefetchKnownPlace() {
+        // given
+        given(placeRegistry.resolveAll(List.of("Praha"))).willReturn(Map.of("Praha", "Prague"));
+        given(placeRepository.existsById("Prague")).willReturn(true);
+
+        // when
+        sensorProcessor.prefetchPlace("Praha");
+
+        // then
+        then(diagramEventPublisher).should(never()).requestWeatherPrefetchForPlace(anyString());
+    }
+}
@@ -0,0 +1,154 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherRequestDto;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherResponseDto;
+import org.skomi.pilot.weatherapi.dto.CurrentWeatherDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class RestWeatherServiceTest {
+
+    @Mock
+    private RestTemplateService restTemplateService;
+
+    @Spy
+    private WeatherCircuitBreaker weatherCircuitBreaker = new WeatherCircuitBreaker(new SimpleMeterRegistry());
+
+    @Mock
+    private WeatherResponseCache weatherResponseCache;
+
+    @Spy
+    private WeatherProviderClient weatherProviderClient = primaryOnly();
+
+    @Spy
+    private WeatherResponseParser weatherResponseParser = new WeatherResponseParser();
+
+    @InjectMocks
+    private RestWeatherService restWeatherService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(restWeatherService, "bulkBatchSize", 2);
+    }
+
+    /**
+     * Tests that cities are split into batches and the results are matched back to the cities by their custom id,
+     * leaving out cities the provider could not resolve.
+     */
+    @Test
+    void shouldFetchWeatherInBatchesAndMatchResultsByCustomId() {
+        // given
+        given(weatherResponseCache.getAll(anyList(), any()))
+                .willAnswer(invocation -> invocation.<Function<List<String>, Map<String, WeatherApiResponseDto>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        given(restTemplateService.post(anyString(), any(BulkWeatherRequestDto.class),
+                ArgumentMatchers.<RestTemplateService.BodyReader<BulkWeatherResponseDto>>any(), any(HttpHeaders.class),
+                anyMap()))
+                .willReturn(response(item("1", 12.0), error("0")))
+                .willReturn(response(item("0", 8.0)));
+
+        // when
+        Map<String, WeatherApiResponseDto> result = restWeatherService.getActualWeatherBulk(List.of("Brno", "Prague", "Plzeň"));
+
+        // then
+        assertThat(result).containsOnlyKeys("Prague", "Plzeň");
+        assertThat(result.get("Prague").getCurrent().getTempC()).isEqualTo(12.0);
+        assertThat(result.get("Plzeň").getCurrent().getTempC()).isEqualTo(8.0);
+
+        ArgumentCaptor<BulkWeatherRequestDto> requests = ArgumentCaptor.forClass(BulkWeatherRequestDto.class);
+        then(restTemplateService).should(times(2)).post(eq("https://weather/current.json"), requests.capture(),
+                ArgumentMatchers.<RestTemplateService.BodyReader<BulkWeatherResponseDto>>any(), any(HttpHeaders.class),
+                eq(Map.of("q", "bulk", "key", "key")));
+        assertThat(requests.getAllValues().getLast().getLocations())
+                .containsExactly(new BulkWeatherRequestDto.Location("Plzen", "0"));
+    }
+
+    private static WeatherProviderClient primaryOnly() {
+        WeatherProviderClient client = new WeatherProviderClient(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "baseUrl", "https://weather");
+        ReflectionTestUtils.setField(client, "apiKey", "key");
+        ReflectionTestUtils.setField(client, "secondaryBaseUrl", "");
+        ReflectionTestUtils.setField(client, "secondaryApiKey", "");
+        ReflectionTestUtils.setField(client, "window", 10);
+        client.init();
+        return client;
+    }
+
+    /**
+     * Tests that a result with a missing, malformed or out of range custom id is skipped and the rest of the batch
+     * is kept.
+     */
+    @Test
+    void shouldSkipResultsWithUnknownCustomId() {
+        // given
+        given(weatherResponseCache.getAll(anyList(), any()))
+                .willAnswer(invocation -> invocation.<Function<List<String>, Map<String, WeatherApiResponseDto>>>getArgument(1)
+                        .apply(invocation.getArgument(0)));
+        given(restTemplateService.post(anyString(), any(BulkWeatherRequestDto.class),
+                ArgumentMatchers.<RestTemplateService.BodyReader<BulkWeatherResponseDto>>any(), any(HttpHeaders.class),
+                anyMap()))
+                .willReturn(response(item(null, 1.0), item("x", 2.0), item("7", 3.0), item("1", 12.0)));
+
+        // when
+        Map<String, WeatherApiResponseDto> result = restWeatherService.getActualWeatherBulk(List.of("Brno", "Prague"));
+
+        // then
+        assertThat(result).containsOnlyKeys("Prague");
+        assertThat(result.get("Prague").getCurrent().getTempC()).isEqualTo(12.0);
+    }
+
+    private BulkWeatherResponseDto response(BulkWeatherResponseDto.Item... items) {
+        BulkWeatherResponseDto response = new BulkWeatherResponseDto();
+        response.setBulk(List.of(items));
+        return response;
+    }
+
+    private BulkWeatherResponseDto.Item item(String customId, double temperature) {
+        CurrentWeatherDto current = new CurrentWeatherDto();
+        current.setTempC(temperature);
+        BulkWeatherResponseDto.Query query = new BulkWeatherResponseDto.Query();
+        query.setCustomId(customId);
+        query.setCurrent(current);
+        BulkWeatherResponseDto.Item item = new BulkWeatherResponseDto.Item();
+        item.setQuery(query);
+        return item;
+    }
+
+    private BulkWeatherResponseDto.Item error(String customId) {
+        BulkWeatherResponseDto.Error error = new BulkWeatherResponseDto.Error();
+        error.setCode(1006);
+        error.setMessage("No matching location found.");
+        BulkWeatherResponseDto.Query query = new BulkWeatherResponseDto.Query();
+        query.setCustomId(customId);
+        query.setError(error);
+        BulkWeatherResponseDto.Item item = new BulkWeatherResponseDto.Item();
+        item.setQuery(query);
+        return item;
+    }
+}
@@ -0,0 +1,68 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightRegistryTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlightRegistry singleFlightRegistry = new SingleFlightRegistry(meterRegistry);
+
+    /**
+     * Tests that requests for a place in flight attach to the pending call and a new call starts once it completes.
+     */
+    @Test
+    void shouldCoalesceRequestsWhileCallIsInFlight() {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> call = new CompletableFuture<>();
+        SingleFlightRegistry.Flight<String> leader = singleFlightRegistry.join("actual", "Prague", () -> {
+            calls.incrementAndGet();
+            return call;
+        });
+
+        // when
+        SingleFlightRegistry.Flight<String> coalesced = singleFlightRegistry.join("actual", "Prague", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        call.complete("sunny");
+        SingleFlightRegistry.Flight<String> next = singleFlightRegistry.join("actual", "Prague", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("rainy");
+        });
+
+        // then
+        assertThat(leader.leader()).isTrue();
+        assertThat(coalesced.leader()).isFalse();
+        assertThat(coalesced.result()).isCompletedWithValue("sunny");
+        assertThat(next.leader()).isTrue();
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("weatherapi.singleflight.requests").tag("result", "coalesced").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("weatherapi.singleflight.inflight").gauge().value()).isZero();
+    }
+
+    /**
+     * Tests that a call failing to start does not block further requests for the same place.
+     */
+    @Test
+    void shouldReleaseFlightWhenCallFailsToStart() {
+        // given
+        singleFlightRegistry.join("history", "Brno", () -> {
+            throw new IllegalStateException("queue is full");
+        });
+
+        // when
+        SingleFlightRegistry.Flight<Object> retry = singleFlightRegistry.join("history", "Brno",
+                () -> CompletableFuture.completedFuture(null));
+
+        // then
+        assertThat(retry.leader()).isTrue();
+    }
+}
@@ -0,0 +1,151 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.skomi.pilot.shared.exception.BulkheadRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherCircuitBreakerTest {
+
+    private WeatherCircuitBreaker weatherCircuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        weatherCircuitBreaker = new WeatherCircuitBreaker(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherCircuitBreaker, "failureThreshold", 2);
+        ReflectionTestUtils.setField(weatherCircuitBreaker, "openDuration", Duration.ofMinutes(1));
+    }
+
+    /**
+     * Tests that the circuit opens after consecutive failures and rejects calls without making them.
+     */
+    @Test
+    void shouldOpenAfterConsecutiveFailuresAndRejectCalls() {
+        // given
+        fail();
+        fail();
+
+        // when / then
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> "sunny"))
+                .isInstanceOf(WeatherProviderUnavailableException.class);
+    }
+
+    /**
+     * Tests that an unknown city does not count as a failure of the provider.
+     */
+    @Test
+    void shouldNotCountClientErrorsAsFailures() {
+        // given
+        RestClientException notFound = new RestClientException("Failed to make GET request",
+                HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        // when
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> {
+                throw notFound;
+            })).isSameAs(notFound);
+        }
+
+        // then
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.CLOSED);
+    }
+
+    /**
+     * Tests that a call given up on by its caller counts as a failure, even when it ends rejected by the bulkhead.
+     */
+    @Test
+    void shouldCountInterruptedCallAsFailure() {
+        // given
+        fail();
+
+        // when
+        try {
+            assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> {
+                Thread.currentThread().interrupt();
+                throw new BulkheadRejectedException("Interrupted while waiting for a call of bulkhead weatherapi.");
+            })).isInstanceOf(BulkheadRejectedException.class);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // then
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.OPEN);
+    }
+
+    /**
+     * Tests that an expired open circuit lets a single probe through and closes once the probe succeeds.
+     */
+    @Test
+    void shouldProbeWhenHalfOpenAndCloseOnSuccess() {
+        // given
+        ReflectionTestUtils.setField(weatherCircuitBreaker, "openDuration", Duration.ZERO);
+        fail();
+        fail();
+
+        // when
+        boolean probe = weatherCircuitBreaker.tryAcquirePermission();
+        boolean second = weatherCircuitBreaker.tryAcquirePermission();
+        weatherCircuitBreaker.onSuccess();
+
+        // then
+        assertThat(probe).isTrue();
+        assertThat(second).isFalse();
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.CLOSED);
+    }
+
+    /**
+     * Tests that a probe rejected by the bulkhead neither closes nor opens the circuit and frees it for the next probe.
+     */
+    @Test
+    void shouldKeepHalfOpenWhenProbeIsRejectedByBulkhead() {
+        // given
+        ReflectionTestUtils.setField(weatherCircuitBreaker, "openDuration", Duration.ZERO);
+        fail();
+        fail();
+
+        // when
+        assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> {
+            throw new BulkheadRejectedException("Bulkhead weatherapi is saturated.");
+        })).isInstanceOf(BulkheadRejectedException.class);
+
+        // then
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.HALF_OPEN);
+        assertThat(weatherCircuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    /**
+     * Tests that a probe ending with an error frees the half-open circuit for the next probe.
+     */
+    @Test
+    void shouldReleaseProbeEndingWithError() {
+        // given
+        ReflectionTestUtils.setField(weatherCircuitBreaker, "openDuration", Duration.ZERO);
+        fail();
+        fail();
+
+        // when
+        assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> {
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+
+        // then
+        assertThat(weatherCircuitBreaker.getState()).isEqualTo(WeatherCircuitBreaker.State.HALF_OPEN);
+        assertThat(weatherCircuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> weatherCircuitBreaker.execute(() -> {
+            throw new RestClientException("Failed to make GET request");
+        })).isInstanceOf(RestClientException.class);
+    }
+}
@@ -0,0 +1,176 @@
+package org.skomi.pilot.weatherapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.Place;
+import org.skomi.pilot.weatherapi.dto.CurrentWeatherDto;
+import org.skomi.pilot.weatherapi.dto.LocationDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.skomi.pilot.weatherapi.dto.WeatherConditionDto;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherFetchServiceTest {
+
+    @Mock
+    private RestWeatherService restWeatherService;
+
+    @InjectMocks
+    private WeatherFetchService weatherFetchService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherFetchService, "parallel", true);
+        ReflectionTestUtils.setField(weatherFetchService, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(weatherFetchService, "timeout", Duration.ofMillis(500));
+        weatherFetchService.init();
+    }
+
+    /**
+     * Tests that all places are filled and no more calls than allowed are in flight at once.
+     */
+    @Test
+    void shouldFetchAllPlacesWithBoundedConcurrency() {
+        // given
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        given(restWeatherService.getActualWeather(anyString())).willAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return response(10.5);
+        });
+        List<Place> places = List.of(new Place("Prague"), new Place("Brno"), new Place("Ostrava"), new Place("Plzen"));
+
+        // when
+        List<Place> result = weatherFetchService.fetchActualWeather(places);
+
+        // then
+        assertThat(result).extracting(Place::getTemperature).containsOnly(10.5);
+        assertThat(result).extracting(Place::getContinent).containsOnly("Europe");
+        assertThat(result).extracting(Place::getTimeZone).containsOnly("Europe/Prague");
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * Tests that concurrent fetches share the limit of calls in flight.
+     */
+    @Test
+    void shouldShareConcurrencyLimitBetweenFetches() throws Exception {
+        // given
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        given(restWeatherService.getActualWeather(anyString())).willAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return response(10.5);
+        });
+        List<Place> first = List.of(new Place("Prague"), new Place("Brno"), new Place("Ostrava"));
+        List<Place> second = List.of(new Place("Plzen"), new Place("Liberec"), new Place("Olomouc"));
+
+        // when
+        Thread other = Thread.ofVirtual().start(() -> weatherFetchService.fetchActualWeather(second));
+        weatherFetchService.fetchActualWeather(first);
+        other.join();
+
+        // then
+        assertThat(first).extracting(Place::getTemperature).containsOnly(10.5);
+        assertThat(second).extracting(Place::getTemperature).containsOnly(10.5);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+    }
+
+    /**
+     * Tests that a failing or slow place keeps its last known weather and is marked as stale without affecting
+     * the others.
+     */
+    @Test
+    void shouldKeepLastKnownWeatherOfFailedAndTimedOutPlaces() {
+        // given
+        given(restWeatherService.getActualWeather("Prague")).willReturn(response(3.0));
+        given(restWeatherService.getActualWeather("Brno")).willThrow(new IllegalStateException("down"));
+        given(restWeatherService.getActualWeather("Ostrava")).willAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return response(1.0);
+        });
+        Place slow = new Place("Ostrava");
+        slow.setTemperature(7.0);
+
+        // when
+        List<Place> result = weatherFetchService.fetchActualWeather(List.of(new Place("Prague"), new Place("Brno"), slow));
+
+        // then
+        assertThat(result).extracting(Place::getTemperature).containsExactly(3.0, null, 7.0);
+        assertThat(result).extracting(Place::isStale).containsExactly(false, true, true);
+    }
+
+    /**
+     * Tests that in bulk mode places are fetched in batches and places missing in the result are cleared.
+     */
+    @Test
+    void shouldFetchPlacesInBulkBatches() {
+        // given
+        ReflectionTestUtils.setField(weatherFetchService, "bulkEnabled", true);
+        given(restWeatherService.getBulkBatchSize()).willReturn(2);
+        given(restWeatherService.getActualWeatherBulk(List.of("Prague", "Brno")))
+                .willReturn(Map.of("Prague", response(3.0), "Brno", response(4.0)));
+        given(restWeatherService.getActualWeatherBulk(List.of("Ostrava"))).willReturn(Map.of());
+
+        // when
+        List<Place> result = weatherFetchService.fetchActualWeather(List.of(new Place("Prague"), new Place("Brno"), new Place("Ostrava")));
+
+        // then
+        assertThat(result).extracting(Place::getTemperature).containsExactly(3.0, 4.0, null);
+        then(restWeatherService).should(never()).getActualWeather(anyString());
+    }
+
+    /**
+     * Tests that a place is stamped with the time the provider took its reading, so the same reading served again
+     * carries the same time.
+     */
+    @Test
+    void shouldStampPlaceWithReadingTime() {
+        // given
+        WeatherApiResponseDto response = response(5.0);
+        response.getCurrent().setLastUpdatedEpoch(1_741_993_200L);
+        given(restWeatherService.getActualWeather("Prague")).willReturn(response);
+
+        // when
+        List<Place> result = weatherFetchService.fetchActualWeather(List.of(new Place("Prague")));
+
+        // then
+        assertThat(result).extracting(Place::getUpdatedAt)
+                .containsExactly(OffsetDateTime.of(2025, 3, 14, 23, 0, 0, 0, ZoneOffset.UTC));
+    }
+
+    private WeatherApiResponseDto response(double temperature) {
+        WeatherConditionDto condition = new WeatherConditionDto();
+        condition.setText("Sunny");
+        CurrentWeatherDto current = new CurrentWeatherDto();
+        current.setTempC(temperature);
+        current.setCondition(condition);
+        LocationDto location = new LocationDto();
+        location.setTzId("Europe/Prague");
+        WeatherApiResponseDto response = new WeatherApiResponseDto();
+        response.setCurrent(current);
+        response.setLocation(location);
+        return response;
+    }
+}
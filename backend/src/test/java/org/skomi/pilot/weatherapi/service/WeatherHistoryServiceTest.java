@@ -0,0 +1,116 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.shared.model.WeatherHistoryCacheEntry;
+import org.skomi.pilot.shared.repository.WeatherHistoryCacheRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherHistoryServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+    @Mock
+    private RestWeatherService restWeatherService;
+
+    @Mock
+    private WeatherHistoryCacheRepository weatherHistoryCacheRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private WeatherHistoryService weatherHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        weatherHistoryService = new WeatherHistoryService(restWeatherService, weatherHistoryCacheRepository,
+                objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherHistoryService, "maxDaysPerRequest", 3);
+    }
+
+    /**
+     * Tests that cached days are not fetched again and only the missing day is requested from the provider.
+     */
+    @Test
+    void shouldFetchOnlyDaysMissingInCache() throws Exception {
+        // given
+        LocalDate cached = TODAY.minusDays(2);
+        LocalDate missing = TODAY.minusDays(1);
+        given(weatherHistoryCacheRepository.findByPlaceKeyAndDays(eq("plzen"), any())).willReturn(List.of(
+                new WeatherHistoryCacheEntry("plzen", cached, objectMapper.writeValueAsString(hours(cached, 10.0)))));
+        given(restWeatherService.getHistoricalHours("Plzeň", missing, missing))
+                .willReturn(Map.of(missing, hours(missing, 12.0)));
+
+        // when
+        WeatherHistoryService.History history = weatherHistoryService.getHistory("Plzeň", List.of(cached, missing));
+
+        // then
+        assertThat(history.complete()).isTrue();
+        assertThat(history.hours()).extracting(HourlyTemperature::temperature).containsExactly(10.0, 12.0);
+        then(weatherHistoryCacheRepository).should().upsert(eq("plzen"), eq(missing), anyString());
+    }
+
+    /**
+     * Tests that missing days are fetched in ranges of consecutive days of the maximal length.
+     */
+    @Test
+    void shouldGroupMissingDaysIntoRanges() {
+        // given
+        List<LocalDate> days = List.of(TODAY.minusDays(8), TODAY.minusDays(7), TODAY.minusDays(6),
+                TODAY.minusDays(5), TODAY.minusDays(3));
+
+        // when
+        List<List<LocalDate>> ranges = weatherHistoryService.ranges(days);
+
+        // then
+        assertThat(ranges).containsExactly(
+                List.of(TODAY.minusDays(8), TODAY.minusDays(7), TODAY.minusDays(6)),
+                List.of(TODAY.minusDays(5)),
+                List.of(TODAY.minusDays(3)));
+    }
+
+    /**
+     * Tests that a failed range makes the history incomplete, and that the current day is returned but not cached.
+     */
+    @Test
+    void shouldReportIncompleteHistoryAndNotCacheCurrentDay() {
+        // given
+        LocalDate failed = TODAY.minusDays(3);
+        given(weatherHistoryCacheRepository.findByPlaceKeyAndDays(eq("brno"), any())).willReturn(List.of());
+        given(restWeatherService.getHistoricalHours("Brno", failed, failed))
+                .willThrow(new WeatherProviderUnavailableException("circuit open"));
+        given(restWeatherService.getHistoricalHours("Brno", TODAY, TODAY))
+                .willReturn(Map.of(TODAY, hours(TODAY, 8.0)));
+
+        // when
+        WeatherHistoryService.History history = weatherHistoryService.getHistory("Brno", List.of(failed, TODAY));
+
+        // then
+        assertThat(history.complete()).isFalse();
+        assertThat(history.hours()).extracting(HourlyTemperature::temperature).containsExactly(8.0);
+        then(weatherHistoryCacheRepository).should(never()).upsert(anyString(), any(), anyString());
+    }
+
+    private List<HourlyTemperature> hours(LocalDate day, double temperature) {
+        return List.of(new HourlyTemperature(day.atStartOfDay().atOffset(ZoneOffset.UTC), temperature, "Sunny"));
+    }
+}
@@ -0,0 +1,69 @@
+package org.skomi.pilot.weatherapi.service;
+
+/**
+ * Responses of the weather provider in their full shape, with every field the provider sends.
+ */
+final class WeatherPayloads {
+
+    private static final long DAY_EPOCH = 1_742_000_400L;
+
+    private WeatherPayloads() {
+    }
+
+    static String location(String name, double lat, double lon) {
+        return """
+                {"name":"%s","region":"Hlavni mesto Praha","country":"Czech Republic","lat":%s,"lon":%s,\
+                "tz_id":"Europe/Prague","localtime_epoch":1742043900,"localtime":"2025-03-15 13:05"}\
+                """.formatted(name, lat, lon);
+    }
+
+    static String current(double temperature) {
+        return """
+                {"last_updated_epoch":1742043600,"last_updated":"2025-03-15 13:00","temp_c":%s,"temp_f":43.3,\
+                "is_day":1,"condition":{"text":"Partly cloudy","icon":"//cdn.weatherapi.com/weather/64x64/day/116.png",\
+                "code":1003},"wind_mph":14.8,"wind_kph":23.8,"wind_degree":72,"wind_dir":"ENE","pressure_mb":1015.0,\
+                "pressure_in":29.97,"precip_mm":0.0,"precip_in":0.0,"humidity":56,"cloud":75,"feelslike_c":2.3,\
+                "feelslike_f":36.2,"windchill_c":2.8,"windchill_f":37.1,"heatindex_c":6.7,"heatindex_f":44.0,\
+                "dewpoint_c":-1.5,"dewpoint_f":29.3,"vis_km":10.0,"vis_miles":6.0,"uv":2.7,"gust_mph":17.0,\
+                "gust_kph":27.3,"air_quality":{"co":227.0,"no2":12.4,"o3":68.0,"so2":1.2,"pm2_5":6.3,"pm10":8.1}}\
+                """.formatted(temperature);
+    }
+
+    static String currentResponse(String name, double temperature) {
+        return "{\"location\":" + location(name, 50.08, 14.42) + ",\"current\":" + current(temperature) + "}";
+    }
+
+    static String historyResponse(String name, String... dates) {
+        StringBuilder days = new StringBuilder();
+        for (int day = 0; day < dates.length; day++) {
+            if (day > 0) {
+                days.append(',');
+            }
+            days.append("{\"date\":\"").append(dates[day]).append("\",\"date_epoch\":").append(DAY_EPOCH)
+                    .append(",\"day\":{\"maxtemp_c\":9.1,\"mintemp_c\":1.2,\"avgtemp_c\":5.3,\"maxwind_kph\":20.2,")
+                    .append("\"totalprecip_mm\":0.0,\"avghumidity\":70,\"condition\":{\"text\":\"Sunny\",\"code\":1000},")
+                    .append("\"uv\":1.0},\"astro\":{\"sunrise\":\"06:20 AM\",\"sunset\":\"06:01 PM\",")
+                    .append("\"moonrise\":\"08:01 PM\",\"moonset\":\"07:12 AM\",\"moon_phase\":\"Full Moon\"},\"hour\":[");
+            for (int hour = 0; hour < 24; hour++) {
+                if (hour > 0) {
+                    days.append(',');
+                }
+                days.append(hour(DAY_EPOCH + day * 86_400L + hour * 3_600L, hour / 2.0));
+            }
+            days.append("]}");
+        }
+        return "{\"location\":" + location(name, 50.08, 14.42) + ",\"forecast\":{\"forecastday\":[" + days + "]}}";
+    }
+
+    private static String hour(long timeEpoch, double temperature) {
+        return """
+                {"time_epoch":%d,"time":"2025-03-15 00:00","temp_c":%s,"temp_f":34.0,"is_day":0,\
+                "condition":{"text":"Clear","icon":"//cdn.weatherapi.com/weather/64x64/night/113.png","code":1000},\
+                "wind_mph":6.0,"wind_kph":9.7,"wind_degree":80,"wind_dir":"E","pressure_mb":1020.0,"pressure_in":30.12,\
+                "precip_mm":0.0,"precip_in":0.0,"snow_cm":0.0,"humidity":80,"cloud":10,"feelslike_c":-1.0,\
+                "feelslike_f":30.2,"windchill_c":-1.0,"windchill_f":30.2,"heatindex_c":1.1,"heatindex_f":34.0,\
+                "dewpoint_c":-2.0,"dewpoint_f":28.4,"will_it_rain":0,"chance_of_rain":0,"will_it_snow":0,\
+                "chance_of_snow":0,"vis_km":10.0,"vis_miles":6.0,"gust_mph":11.5,"gust_kph":18.5,"uv":0}\
+                """.formatted(timeEpoch, temperature);
+    }
+}
@@ -0,0 +1,151 @@
+package org.skomi.pilot.weatherapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherProviderClientTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WeatherProviderClient weatherProviderClient;
+
+    @BeforeEach
+    void setUp() {
+        weatherProviderClient = new WeatherProviderClient(meterRegistry);
+        ReflectionTestUtils.setField(weatherProviderClient, "baseUrl", "https://primary");
+        ReflectionTestUtils.setField(weatherProviderClient, "apiKey", "key");
+        ReflectionTestUtils.setField(weatherProviderClient, "secondaryBaseUrl", "https://secondary");
+        ReflectionTestUtils.setField(weatherProviderClient, "secondaryApiKey", "");
+        ReflectionTestUtils.setField(weatherProviderClient, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(weatherProviderClient, "budget", 0.05);
+        ReflectionTestUtils.setField(weatherProviderClient, "burst", 1.0);
+        ReflectionTestUtils.setField(weatherProviderClient, "minDelay", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(weatherProviderClient, "initialDelay", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(weatherProviderClient, "window", 10);
+        ReflectionTestUtils.setField(weatherProviderClient, "minSamples", 5);
+        weatherProviderClient.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherProviderClient.shutdown();
+    }
+
+    /**
+     * Tests that a slow primary call is hedged to the secondary endpoint, whose response wins,
+     * and that the primary call is cancelled.
+     */
+    @Test
+    void shouldHedgeSlowPrimaryAndCancelIt() throws InterruptedException {
+        // given
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        // when
+        String response = weatherProviderClient.call("current", provider -> {
+            if (provider.name().equals("primary")) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return provider.baseUrl() + "?key=" + provider.apiKey();
+        });
+
+        // then
+        assertThat(response).isEqualTo("https://secondary?key=key");
+        assertThat(primaryCancelled.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.counter("weatherapi.hedge.requests", "result", "won").count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that no hedge is sent once the budget is spent, the primary response is awaited instead.
+     */
+    @Test
+    void shouldNotHedgeWhenBudgetIsSpent() {
+        // given
+        ReflectionTestUtils.setField(weatherProviderClient, "hedgeTokens", 0.0);
+        AtomicBoolean secondaryCalled = new AtomicBoolean();
+
+        // when
+        String response = weatherProviderClient.call("current", provider -> {
+            if (provider.name().equals("secondary")) {
+                secondaryCalled.set(true);
+            }
+            sleep(100);
+            return provider.name();
+        });
+
+        // then
+        assertThat(response).isEqualTo("primary");
+        assertThat(secondaryCalled).isFalse();
+        assertThat(meterRegistry.counter("weatherapi.hedge.requests", "result", "skipped").count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that a failure of the hedged primary call is ignored when the secondary call succeeds, and that
+     * the call fails only when both endpoints fail.
+     */
+    @Test
+    void shouldFailOnlyWhenAllCallsFail() {
+        // when
+        String response = weatherProviderClient.call("current", provider -> {
+            if (provider.name().equals("primary")) {
+                sleep(200);
+                throw new IllegalStateException("primary down");
+            }
+            sleep(400);
+            return provider.name();
+        });
+
+        // then
+        assertThat(response).isEqualTo("secondary");
+        assertThatThrownBy(() -> weatherProviderClient.call("current", provider -> {
+            throw new IllegalStateException(provider.name() + " down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("primary down");
+    }
+
+    /**
+     * Tests that the hedge delay follows the 95th percentile of the recent primary latencies once enough
+     * calls were made.
+     */
+    @Test
+    void shouldDelayHedgeByPrimaryP95() {
+        // given
+        ReflectionTestUtils.setField(weatherProviderClient, "secondaryBaseUrl", "");
+        weatherProviderClient.init();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            weatherProviderClient.call("history", provider -> {
+                sleep(30);
+                return provider.name();
+            });
+        }
+
+        // then
+        assertThat(weatherProviderClient.hedgeDelay("current")).isEqualTo(Duration.ofMillis(50));
+        assertThat(weatherProviderClient.hedgeDelay("history")).isBetween(Duration.ofMillis(30), Duration.ofMillis(500));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
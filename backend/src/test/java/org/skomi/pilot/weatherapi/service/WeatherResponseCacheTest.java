@@ -0,0 +1,132 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.skomi.pilot.shared.model.WeatherCacheEntry;
+import org.skomi.pilot.shared.repository.WeatherCacheRepository;
+import org.skomi.pilot.weatherapi.dto.CurrentWeatherDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class WeatherResponseCacheTest {
+
+    @Mock
+    private WeatherCacheRepository weatherCacheRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private WeatherResponseCache weatherResponseCache;
+
+    @BeforeEach
+    void setUp() {
+        weatherResponseCache = new WeatherResponseCache(weatherCacheRepository, objectMapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(weatherResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(weatherResponseCache, "localMaxSize", 100L);
+        ReflectionTestUtils.setField(weatherResponseCache, "updateInterval", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherResponseCache, "minTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(weatherResponseCache, "maxTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(weatherResponseCache, "defaultTtl", Duration.ofMinutes(5));
+        weatherResponseCache.init();
+    }
+
+    /**
+     * Tests that a loaded response is shared and served from memory afterwards, also for a differently written name.
+     */
+    @Test
+    void shouldLoadOnceAndServeFromMemory() {
+        // given
+        given(weatherCacheRepository.findValid(anyCollection())).willReturn(List.of());
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        WeatherApiResponseDto first = weatherResponseCache.get("Plzeň", () -> {
+            loads.incrementAndGet();
+            return response(12.0, Instant.now().getEpochSecond());
+        });
+        WeatherApiResponseDto second = weatherResponseCache.get(" PLZEN ", () -> {
+            loads.incrementAndGet();
+            return response(99.0, Instant.now().getEpochSecond());
+        });
+
+        // then
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+        then(weatherCacheRepository).should().upsert(eq("plzen"), anyString(), any(OffsetDateTime.class));
+    }
+
+    /**
+     * Tests that responses shared by another instance are used and only the remaining places are loaded.
+     */
+    @Test
+    void shouldUseSharedResponsesAndLoadOnlyMissingPlaces() throws Exception {
+        // given
+        String shared = objectMapper.writeValueAsString(response(8.0, Instant.now().getEpochSecond()));
+        given(weatherCacheRepository.findValid(anyCollection())).willReturn(List.of(
+                new WeatherCacheEntry("prague", shared, OffsetDateTime.now(ZoneOffset.UTC).plusMinutes(10))));
+
+        // when
+        Map<String, WeatherApiResponseDto> weather = weatherResponseCache.getAll(List.of("Prague", "Brno"), places -> {
+            assertThat(places).containsExactly("Brno");
+            return Map.of("Brno", response(5.0, Instant.now().getEpochSecond()));
+        });
+
+        // then
+        assertThat(weather.get("Prague").getCurrent().getTempC()).isEqualTo(8.0);
+        assertThat(weather.get("Brno").getCurrent().getTempC()).isEqualTo(5.0);
+        then(weatherCacheRepository).should(never()).upsert(eq("prague"), anyString(), any(OffsetDateTime.class));
+    }
+
+    /**
+     * Tests that a response expires when the provider publishes its next update, bounded by the minimal and
+     * maximal time to live.
+     */
+    @Test
+    void shouldExpireWithNextProviderUpdate() {
+        // given
+        Instant now = Instant.now();
+
+        // when
+        Instant recent = weatherResponseCache.expiresAt(response(1.0, now.minus(5, ChronoUnit.MINUTES).getEpochSecond()));
+        Instant outdated = weatherResponseCache.expiresAt(response(1.0, now.minus(1, ChronoUnit.HOURS).getEpochSecond()));
+        Instant unknown = weatherResponseCache.expiresAt(response(1.0, null));
+
+        // then
+        assertThat(recent).isCloseTo(now.plus(10, ChronoUnit.MINUTES), within(2, ChronoUnit.SECONDS));
+        assertThat(outdated).isCloseTo(now.plus(1, ChronoUnit.MINUTES), within(2, ChronoUnit.SECONDS));
+        assertThat(unknown).isCloseTo(now.plus(5, ChronoUnit.MINUTES), within(2, ChronoUnit.SECONDS));
+    }
+
+    private WeatherApiResponseDto response(double temperature, Long lastUpdatedEpoch) {
+        CurrentWeatherDto current = new CurrentWeatherDto();
+        current.setTempC(temperature);
+        current.setLastUpdatedEpoch(lastUpdatedEpoch);
+        WeatherApiResponseDto response = new WeatherApiResponseDto();
+        response.setCurrent(current);
+        return response;
+    }
+}
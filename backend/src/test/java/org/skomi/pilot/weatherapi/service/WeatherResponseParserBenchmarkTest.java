@@ -0,0 +1,141 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.skomi.pilot.weatherapi.dto.WeatherConditionDto;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the streaming parser with binding the whole response, by the time and memory allocated per parsed
+ * response. Run with {@code mvn test -Dtest=WeatherResponseParserBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WeatherResponseParserBenchmarkTest {
+
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 10_000;
+
+    private final WeatherResponseParser weatherResponseParser = new WeatherResponseParser();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Compares reading the current weather of a place.
+     */
+    @Test
+    void compareCurrentWeather() throws Exception {
+        byte[] body = WeatherPayloads.currentResponse("Prague", 6.3).getBytes(StandardCharsets.UTF_8);
+
+        Result binding = measure(() -> objectMapper.readValue(new ByteArrayInputStream(body), WeatherApiResponseDto.class));
+        Result streaming = measure(() -> weatherResponseParser.parseCurrent(new ByteArrayInputStream(body)));
+
+        report("current", binding, streaming);
+        assertThat(streaming.bytesPerOp()).isLessThan(binding.bytesPerOp());
+    }
+
+    /**
+     * Compares reading a week of hourly weather history.
+     */
+    @Test
+    void compareHistory() throws Exception {
+        byte[] body = WeatherPayloads.historyResponse("Prague", "2025-03-09", "2025-03-10", "2025-03-11",
+                "2025-03-12", "2025-03-13", "2025-03-14", "2025-03-15").getBytes(StandardCharsets.UTF_8);
+
+        Result binding = measure(() -> toDays(objectMapper.readValue(new ByteArrayInputStream(body), BoundHistory.class)));
+        Result streaming = measure(() -> weatherResponseParser.parseHistory(new ByteArrayInputStream(body)));
+
+        report("history", binding, streaming);
+        assertThat(streaming.bytesPerOp()).isLessThan(binding.bytesPerOp());
+    }
+
+    private Result measure(Parse parse) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sink = parse.run();
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = parse.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        assertThat(sink).isNotNull();
+        return new Result((double) elapsed / ITERATIONS / 1_000, allocated / ITERATIONS);
+    }
+
+    private void report(String payload, Result binding, Result streaming) {
+        System.out.printf("%s binding:   %8.2f us/op %10d B/op%n", payload, binding.microsPerOp(), binding.bytesPerOp());
+        System.out.printf("%s streaming: %8.2f us/op %10d B/op%n", payload, streaming.microsPerOp(), streaming.bytesPerOp());
+    }
+
+    private Map<LocalDate, List<HourlyTemperature>> toDays(BoundHistory history) {
+        Map<LocalDate, List<HourlyTemperature>> days = new TreeMap<>();
+        history.getForecast().getForecastday().forEach(day -> days.put(LocalDate.parse(day.getDate()),
+                day.getHour().stream()
+                        .map(hour -> new HourlyTemperature(
+                                Instant.ofEpochSecond(hour.getTime_epoch()).atOffset(ZoneOffset.UTC),
+                                hour.getTemp_c(), hour.getCondition().getText()))
+                        .toList()));
+        return days;
+    }
+
+    @FunctionalInterface
+    private interface Parse {
+        Object run() throws Exception;
+    }
+
+    private record Result(double microsPerOp, long bytesPerOp) {
+    }
+
+    /**
+     * The history response as it was bound before the streaming parser.
+     */
+    @Data
+    static class BoundHistory {
+        private Forecast forecast;
+
+        @Data
+        static class Forecast {
+            private List<ForecastDay> forecastday;
+        }
+
+        @Data
+        static class ForecastDay {
+            private String date;
+            private Day day;
+            private List<Hour> hour;
+        }
+
+        @Data
+        static class Day {
+            private Double avgtemp_c;
+        }
+
+        @Data
+        static class Hour {
+            private Long time_epoch;
+            private Double temp_c;
+            private WeatherConditionDto condition;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.skomi.pilot.weatherapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherResponseDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherResponseParserTest {
+
+    private final WeatherResponseParser weatherResponseParser = new WeatherResponseParser();
+
+    /**
+     * Tests that the fields stored with a place are read from the current weather and everything else is skipped.
+     */
+    @Test
+    void shouldReadStoredFieldsOfCurrentWeather() throws IOException {
+        // when
+        WeatherApiResponseDto response = weatherResponseParser.parseCurrent(body(
+                WeatherPayloads.currentResponse("Prague", 6.3)));
+
+        // then
+        assertThat(response.getLocation().getTzId()).isEqualTo("Europe/Prague");
+        assertThat(response.getLocation().getLat()).isEqualTo(50.08);
+        assertThat(response.getLocation().getLon()).isEqualTo(14.42);
+        assertThat(response.getCurrent().getTempC()).isEqualTo(6.3);
+        assertThat(response.getCurrent().getLastUpdatedEpoch()).isEqualTo(1742043600L);
+        assertThat(response.getCurrent().getCondition().getText()).isEqualTo("Partly cloudy");
+        assertThat(response.getCurrent().getWindKph()).isNull();
+    }
+
+    /**
+     * Tests that the results of a bulk request keep their custom ids and errors, and that a missing location
+     * is read as null.
+     */
+    @Test
+    void shouldReadBulkResultsWithErrors() throws IOException {
+        // given
+        String json = "{\"bulk\":[{\"query\":{\"custom_id\":\"0\",\"q\":\"Prague\",\"location\":"
+                + WeatherPayloads.location("Prague", 50.08, 14.42) + ",\"current\":" + WeatherPayloads.current(12.0)
+                + "}},{\"query\":{\"custom_id\":\"1\",\"q\":\"Nowhere\",\"location\":null,"
+                + "\"error\":{\"code\":1006,\"message\":\"No matching location found.\"}}}]}";
+
+        // when
+        BulkWeatherResponseDto response = weatherResponseParser.parseBulk(body(json));
+
+        // then
+        assertThat(response.getBulk()).hasSize(2);
+        BulkWeatherResponseDto.Query prague = response.getBulk().getFirst().getQuery();
+        assertThat(prague.getCustomId()).isEqualTo("0");
+        assertThat(prague.getCurrent().getTempC()).isEqualTo(12.0);
+        assertThat(prague.getError()).isNull();
+        BulkWeatherResponseDto.Query nowhere = response.getBulk().getLast().getQuery();
+        assertThat(nowhere.getLocation()).isNull();
+        assertThat(nowhere.getError().getCode()).isEqualTo(1006);
+    }
+
+    /**
+     * Tests that every hour of every returned day is read with its temperature and condition.
+     */
+    @Test
+    void shouldReadHoursOfEveryHistoryDay() throws IOException {
+        // when
+        Map<LocalDate, List<HourlyTemperature>> days = weatherResponseParser.parseHistory(body(
+                WeatherPayloads.historyResponse("Prague", "2025-03-15", "2025-03-16")));
+
+        // then
+        assertThat(days).containsOnlyKeys(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 16));
+        assertThat(days.get(LocalDate.of(2025, 3, 16))).hasSize(24);
+        HourlyTemperature hour = days.get(LocalDate.of(2025, 3, 15)).get(3);
+        assertThat(hour.time().toEpochSecond()).isEqualTo(1_742_000_400L + 3 * 3_600L);
+        assertThat(hour.temperature()).isEqualTo(1.5);
+        assertThat(hour.condition()).isEqualTo("Clear");
+    }
+
+    private InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,164 @@
+package org.skomi.pilot.weatherapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skomi.pilot.shared.model.HourlyTemperature;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherRequestDto;
+import org.skomi.pilot.weatherapi.dto.BulkWeatherResponseDto;
+import org.skomi.pilot.weatherapi.dto.WeatherApiResponseDto;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherStandInTest {
+
+    private static final String BASE_URL = "https://api.weatherapi.com/v1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WeatherResponseParser weatherResponseParser = new WeatherResponseParser();
+    private final WeatherStandIn weatherStandIn = new WeatherStandIn(objectMapper, meterRegistry);
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(weatherStandIn, "directory", directory);
+        ReflectionTestUtils.setField(weatherStandIn, "latencyMedian", Duration.ZERO);
+        ReflectionTestUtils.setField(weatherStandIn, "latencyP99", Duration.ZERO);
+        ReflectionTestUtils.setField(weatherStandIn, "errorRate", 0.0);
+        ReflectionTestUtils.setField(weatherStandIn, "errorStatus", 503);
+    }
+
+    /**
+     * Tests that synthetic responses read like the responses of the provider, the same for the same place, and
+     * that bulk results keep the custom ids of their locations.
+     */
+    @Test
+    void shouldGenerateSyntheticResponses() throws IOException {
+        // given
+        mode(WeatherStandIn.Mode.SYNTHETIC);
+        byte[] bulkRequest = objectMapper.writeValueAsBytes(new BulkWeatherRequestDto(List.of(
+                new BulkWeatherRequestDto.Location("Prague", "0"), new BulkWeatherRequestDto.Location("Lima", "1"))));
+
+        // when
+        WeatherApiResponseDto current = weatherResponseParser.parseCurrent(
+                call(HttpMethod.GET, "/current.json?q=Prague&key=x", new byte[0], failing()).getBody());
+        WeatherApiResponseDto again = weatherResponseParser.parseCurrent(
+                call(HttpMethod.GET, "/current.json?q=prague&key=x", new byte[0], failing()).getBody());
+        BulkWeatherResponseDto bulk = weatherResponseParser.parseBulk(
+                call(HttpMethod.POST, "/current.json?q=bulk&key=x", bulkRequest, failing()).getBody());
+        Map<LocalDate, List<HourlyTemperature>> history = weatherResponseParser.parseHistory(
+                call(HttpMethod.GET, "/history.json?q=Prague&dt=2025-03-15&end_dt=2025-03-17&key=x",
+                        new byte[0], failing()).getBody());
+
+        // then
+        assertThat(current.getLocation().getTzId()).contains("/");
+        assertThat(current.getCurrent().getTempC()).isBetween(-60.0, 60.0);
+        assertThat(current.getCurrent().getCondition().getText()).isNotBlank();
+        assertThat(again.getCurrent().getTempC()).isEqualTo(current.getCurrent().getTempC());
+        assertThat(again.getLocation().getLat()).isEqualTo(current.getLocation().getLat());
+        assertThat(bulk.getBulk()).extracting(item -> item.getQuery().getCustomId()).containsExactly("0", "1");
+        assertThat(bulk.getBulk().getFirst().getQuery().getCurrent().getTempC())
+                .isEqualTo(current.getCurrent().getTempC());
+        assertThat(history).containsOnlyKeys(LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 16),
+                LocalDate.of(2025, 3, 17));
+        assertThat(history.get(LocalDate.of(2025, 3, 16))).hasSize(24);
+    }
+
+    /**
+     * Tests that recorded responses of the provider, including the results of a bulk request, are replayed
+     * without calling it, and that places never recorded get a synthetic response.
+     */
+    @Test
+    void shouldReplayRecordedResponses() throws IOException {
+        // given
+        mode(WeatherStandIn.Mode.RECORD);
+        String bulkResponse = "{\"bulk\":[{\"query\":{\"custom_id\":\"0\",\"q\":\"Brno\",\"location\":"
+                + WeatherPayloads.location("Brno", 49.2, 16.6) + ",\"current\":" + WeatherPayloads.current(3.5)
+                + "}},{\"query\":{\"custom_id\":\"1\",\"q\":\"Nowhere\",\"location\":null,"
+                + "\"error\":{\"code\":1006,\"message\":\"No matching location found.\"}}}]}";
+        call(HttpMethod.GET, "/current.json?q=Prague&key=x", new byte[0],
+                responding(WeatherPayloads.currentResponse("Prague", 6.3)));
+        call(HttpMethod.POST, "/current.json?q=bulk&key=x", new byte[0], responding(bulkResponse));
+        call(HttpMethod.GET, "/history.json?q=Prague&dt=2025-03-15&key=x", new byte[0],
+                responding(WeatherPayloads.historyResponse("Prague", "2025-03-15")));
+        mode(WeatherStandIn.Mode.REPLAY);
+
+        // when
+        WeatherApiResponseDto prague = weatherResponseParser.parseCurrent(
+                call(HttpMethod.GET, "/current.json?q=Prague&key=y", new byte[0], failing()).getBody());
+        WeatherApiResponseDto brno = weatherResponseParser.parseCurrent(
+                call(HttpMethod.GET, "/current.json?q=Brno&key=y", new byte[0], failing()).getBody());
+        WeatherApiResponseDto nowhere = weatherResponseParser.parseCurrent(
+                call(HttpMethod.GET, "/current.json?q=Nowhere&key=y", new byte[0], failing()).getBody());
+        Map<LocalDate, List<HourlyTemperature>> history = weatherResponseParser.parseHistory(
+                call(HttpMethod.GET, "/history.json?q=Prague&dt=2025-03-15&key=y", new byte[0], failing()).getBody());
+
+        // then
+        assertThat(prague.getCurrent().getTempC()).isEqualTo(6.3);
+        assertThat(brno.getCurrent().getTempC()).isEqualTo(3.5);
+        assertThat(nowhere.getLocation().getName()).isEqualTo("Nowhere");
+        assertThat(history.get(LocalDate.of(2025, 3, 15)).get(3).temperature()).isEqualTo(1.5);
+        assertThat(meterRegistry.get("weatherapi.stand-in.responses").tag("endpoint", "current")
+                .tag("source", "recorded").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("weatherapi.stand-in.responses").tag("endpoint", "current")
+                .tag("source", "synthetic").counter().count()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that stand-in answers fail with the configured status at the configured error rate.
+     */
+    @Test
+    void shouldFailAtErrorRate() throws IOException {
+        // given
+        mode(WeatherStandIn.Mode.SYNTHETIC);
+        ReflectionTestUtils.setField(weatherStandIn, "errorRate", 1.0);
+
+        // when
+        ClientHttpResponse response = call(HttpMethod.GET, "/current.json?q=Prague&key=x", new byte[0], failing());
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(meterRegistry.get("weatherapi.stand-in.responses").tag("source", "error").counter().count())
+                .isEqualTo(1);
+    }
+
+    private void mode(WeatherStandIn.Mode mode) {
+        ReflectionTestUtils.setField(weatherStandIn, "mode", mode);
+    }
+
+    private ClientHttpResponse call(HttpMethod method, String path, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        return weatherStandIn.intercept(new MockClientHttpRequest(method, URI.create(BASE_URL + path)), body, execution);
+    }
+
+    private ClientHttpRequestExecution responding(String json) {
+        return (request, body) -> new MockClientHttpResponse(json.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+    }
+
+    private ClientHttpRequestExecution failing() {
+        return (request, body) -> {
+            throw new IOException("The provider must not be called.");
+        };
+    }
+}
@@ -65,6 +65,7 @@ const DiagramSensorNode = observer(
         location
       );
       diagramStore.updateNodes(updatedNodes);
+      if (location) void citiesProvider.prefetch(location.city);
     };
 
     return (
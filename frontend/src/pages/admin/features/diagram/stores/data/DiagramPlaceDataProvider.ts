@@ -2,6 +2,7 @@ import { ResponseGooglePlacesType } from "@/types/api/responseTypes";
 import { environment } from "@/utils/environment";
 import { MappedGooglePlace, googlePlacesMapper } from "@/types/mapperTypes";
 import { MultiDataSelectProvider } from "@/data/MultiDataSelectProvider";
+import { post } from "@/utils/api/apiClient";
 
 export class DiagramPlaceDataProvider extends MultiDataSelectProvider<
   ResponseGooglePlacesType[],
@@ -22,4 +23,17 @@ export class DiagramPlaceDataProvider extends MultiDataSelectProvider<
   get data(): MappedGooglePlace[] {
     return this.getMappedData();
   }
+
+  /**
+   * Asks the backend to prefetch the weather data of a picked city, so the sensor shows it right after saving.
+   * The prefetch is only a hint, its response is ignored.
+   *
+   * @param {string} city - The picked city.
+   */
+  prefetch = async (city: string): Promise<void> => {
+    await post(
+      `${this.apiURL}api/place/prefetch?place=${encodeURIComponent(city)}`,
+      undefined
+    );
+  };
 }